@@ -0,0 +1,101 @@
+package eaai.ginrummy;
+
+import ginrummy.Card;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The binary protocol between a {@link RemoteGinRummyPlayer} and the
+ * {@link AgentShim} hosting its agent in a child JVM. Every message is an int
+ * length followed by that many bytes.
+ * <p>
+ * A request is an opcode (one per {@link ginrummy.GinRummyPlayer} method),
+ * the CPU time limit of the call (long, nanoseconds, negative if unlimited),
+ * and the call arguments. A response is a status byte, the thread CPU
+ * time of the call (long, nanoseconds), the agent's output during the call
+ * (int length and bytes), and then either the call result or, for a failed
+ * call, the failure message. A call which exceeds its limit is answered at
+ * once with an expired response, with no output or result, while the call
+ * goes on; the child is then killed. Cards are single bytes (their id, or 0xFF for
+ * null); card lists are a count byte followed by cards, and melds a count byte
+ * followed by card lists. Upon start, the shim sends one response (with no
+ * result) once the agent has been instantiated.
+ */
+final class AgentProtocol {
+	/* request opcodes */
+	static final int START_GAME = 0, WILL_DRAW = 1, REPORT_DRAW = 2, GET_DISCARD = 3, REPORT_DISCARD = 4,
+		GET_FINAL_MELDS = 5, REPORT_FINAL_MELDS = 6, REPORT_SCORES = 7, REPORT_LAYOFF = 8, REPORT_FINAL_HAND = 9;
+
+	/* response status */
+	static final int OK = 0, FAILED = 1, EXPIRED = 2;
+
+	/* card written for a null card, or for null melds */
+	static final int NONE = 0xFF;
+
+	// static class, private constructor
+	private AgentProtocol() { }
+
+	/**
+	 */
+	static void writeCard(DataOutputStream out, Card card) throws IOException {
+		out.writeByte(card == null ? NONE : card.getId());
+	}
+
+	/**
+	 */
+	static Card readCard(DataInputStream in) throws IOException {
+		int id = in.readUnsignedByte();
+		return id == NONE ? null : Card.getCard(id);
+	}
+
+	/**
+	 */
+	static void writeCards(DataOutputStream out, Card[] cards) throws IOException {
+		out.writeByte(cards.length);
+		for(Card card : cards) { writeCard(out, card); }
+	}
+
+	/**
+	 */
+	static Card[] readCardArray(DataInputStream in) throws IOException {
+		Card[] cards = new Card[in.readUnsignedByte()];
+		for(int c = 0; c < cards.length; c += 1) { cards[c] = readCard(in); }
+		return cards;
+	}
+
+	/**
+	 */
+	static void writeCards(DataOutputStream out, ArrayList<Card> cards) throws IOException {
+		out.writeByte(cards.size());
+		for(Card card : cards) { writeCard(out, card); }
+	}
+
+	/**
+	 */
+	static ArrayList<Card> readCards(DataInputStream in) throws IOException {
+		int size = in.readUnsignedByte();
+		ArrayList<Card> cards = new ArrayList<>(size);
+		for(int c = 0; c < size; c += 1) { cards.add(readCard(in)); }
+		return cards;
+	}
+
+	/**
+	 */
+	static void writeMelds(DataOutputStream out, ArrayList<ArrayList<Card>> melds) throws IOException {
+		if(melds == null) { out.writeByte(NONE); return; }
+		out.writeByte(melds.size());
+		for(ArrayList<Card> meld : melds) { writeCards(out, meld); }
+	}
+
+	/**
+	 */
+	static ArrayList<ArrayList<Card>> readMelds(DataInputStream in) throws IOException {
+		int size = in.readUnsignedByte();
+		if(size == NONE) { return null; }
+		ArrayList<ArrayList<Card>> melds = new ArrayList<>(size);
+		for(int m = 0; m < size; m += 1) { melds.add(readCards(in)); }
+		return melds;
+	}
+}
@@ -0,0 +1,259 @@
+package eaai.ginrummy;
+
+import com.sun.management.ThreadMXBean;
+import eaai.ginrummy.util.CPUWatchdog;
+import ginrummy.Card;
+import ginrummy.GinRummyPlayer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static eaai.ginrummy.AgentProtocol.*;
+
+/**
+ * The child JVM entry point hosting a single, unmodified agent for a
+ * {@link RemoteGinRummyPlayer}. Requests are read from stdin and responses
+ * written to stdout (see {@link AgentProtocol}); the agent's own output is
+ * captured per call and returned with the response, while logging goes to
+ * stderr. The shim exits once stdin is closed.
+ * <pre>
+ * java -Xmx512m -cp vermouth.jar eaai.ginrummy.AgentShim file:./MyGinRummyPlayer
+ * </pre>
+ */
+public class AgentShim {
+	/* */
+	private final ThreadMXBean monitor = ((ThreadMXBean) (ManagementFactory.getThreadMXBean()));
+
+	/* */
+	private final DataInputStream in;
+
+	/* */
+	private final DataOutputStream out;
+
+	/* agent output captured during a call */
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	/* */
+	private final PrintStream capture = new PrintStream(output, true);
+
+	/* stream for logging and output outside of calls */
+	private final PrintStream console;
+
+	/* response payload */
+	private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+	/* */
+	private final DataOutputStream result = new DataOutputStream(response);
+
+	/* */
+	private GinRummyPlayer player;
+
+	/* CPU time of the current call */
+	private long time;
+
+	/* thread serving the calls */
+	private final Thread caller = Thread.currentThread();
+
+	/* CPU time limit of the current call, negative if unlimited, and its watch */
+	private long limit = -1;
+	private CPUWatchdog.Watch watch = null;
+
+	/* whether the current call has been answered */
+	private boolean responded = false;
+
+	/* whether the player has been called (begin) and not yet returned (end) */
+	private boolean calling = false;
+
+	/**
+	 */
+	private AgentShim(DataInputStream in, DataOutputStream out, PrintStream console) {
+		this.in = in;
+		this.out = out;
+		this.console = console;
+	}
+
+	/*
+	 */
+	private void begin() {
+		output.reset();
+		response.reset();
+		System.setOut(capture);
+		System.setErr(capture);
+		if(limit >= 0) { watch = CPUWatchdog.get().watch(limit, this::expire); }
+		calling = true;
+		time = monitor.getCurrentThreadCpuTime();
+	}
+
+	/*
+	 */
+	private void end() {
+		if(watch != null) { watch.close(); }
+		watch = null;
+		time = monitor.getCurrentThreadCpuTime() - time;
+		calling = false;
+		System.setOut(console);
+		System.setErr(console);
+	}
+
+	/*
+	 */
+	private synchronized void respond(int status) throws IOException {
+		if(responded) { return; }
+		responded = true;
+		capture.flush();
+		out.writeInt(1 + 8 + 4 + output.size() + response.size());
+		out.writeByte(status);
+		out.writeLong(time);
+		out.writeInt(output.size());
+		output.writeTo(out);
+		response.writeTo(out);
+		out.flush();
+	}
+
+	/*
+	 * answers a call which exceeded its limit, on the watchdog thread, while
+	 * the call goes on (until the parent kills this JVM)
+	 */
+	private synchronized void expire() {
+		if(responded) { return; }
+		responded = true;
+		try {
+			out.writeInt(1 + 8 + 4);
+			out.writeByte(EXPIRED);
+			out.writeLong(monitor.getThreadCpuTime(caller.getId()) - time);
+			out.writeInt(0);
+			out.flush();
+		}
+		catch(IOException except) {
+			// the parent is gone
+		}
+	}
+
+	/*
+	 */
+	private void call(int opcode) throws IOException {
+		switch(opcode) {
+			case START_GAME: {
+				int playerNum = in.readUnsignedByte(), startingPlayerNum = in.readUnsignedByte();
+				Card[] cards = readCardArray(in);
+				begin(); player.startGame(playerNum, startingPlayerNum, cards); end();
+				break;
+			}
+			case WILL_DRAW: {
+				Card card = readCard(in);
+				begin(); boolean drawFaceUp = player.willDrawFaceUpCard(card); end();
+				result.writeBoolean(drawFaceUp);
+				break;
+			}
+			case REPORT_DRAW: {
+				int playerNum = in.readUnsignedByte();
+				Card card = readCard(in);
+				begin(); player.reportDraw(playerNum, card); end();
+				break;
+			}
+			case GET_DISCARD: {
+				begin(); Card card = player.getDiscard(); end();
+				writeCard(result, card);
+				break;
+			}
+			case REPORT_DISCARD: {
+				int playerNum = in.readUnsignedByte();
+				Card card = readCard(in);
+				begin(); player.reportDiscard(playerNum, card); end();
+				break;
+			}
+			case GET_FINAL_MELDS: {
+				begin(); ArrayList<ArrayList<Card>> melds = player.getFinalMelds(); end();
+				writeMelds(result, melds);
+				break;
+			}
+			case REPORT_FINAL_MELDS: {
+				int playerNum = in.readUnsignedByte();
+				ArrayList<ArrayList<Card>> melds = readMelds(in);
+				begin(); player.reportFinalMelds(playerNum, melds); end();
+				break;
+			}
+			case REPORT_SCORES: {
+				int[] scores = { in.readInt(), in.readInt() };
+				begin(); player.reportScores(scores); end();
+				break;
+			}
+			case REPORT_LAYOFF: {
+				int playerNum = in.readUnsignedByte();
+				Card card = readCard(in);
+				ArrayList<Card> meld = readCards(in);
+				begin(); player.reportLayoff(playerNum, card, meld); end();
+				break;
+			}
+			case REPORT_FINAL_HAND: {
+				int playerNum = in.readUnsignedByte();
+				ArrayList<Card> hand = readCards(in);
+				begin(); player.reportFinalHand(playerNum, hand); end();
+				break;
+			}
+			default:
+				throw new IOException(String.format("unknown request opcode %d", opcode));
+		}
+	}
+
+	/*
+	 */
+	private void serve(String spec) throws IOException {
+		begin();
+		player = GinRummyPlayerClass.from(spec).newInstance();
+		end();
+		respond(OK);
+
+		while(true) {
+			try { in.readInt(); }
+			catch(EOFException except) { return; }
+			int opcode = in.readUnsignedByte();
+			limit = in.readLong();
+			responded = false;
+			try {
+				call(opcode);
+				respond(OK);
+			}
+			catch(RuntimeException except) {
+				if(calling) { end(); }
+				else {
+					// the request failed to decode before the player was called
+					output.reset();
+					time = 0;
+				}
+				except.printStackTrace(console);
+				response.reset();
+				result.writeUTF(String.valueOf(except));
+				respond(FAILED);
+			}
+		}
+	}
+
+	/**
+	 * Hosts the agent of the given specification (as for the tournament's
+	 * --agents option), serving requests until stdin is closed.
+	 */
+	public static void main(String[] args) throws IOException {
+		// claim stdout for the protocol before anything (e.g., logging) can write to it
+		PrintStream console = System.err;
+		System.setOut(console);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in), 1 << 16));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+
+		if(args.length != 1) {
+			console.println("usage: java -cp vermouth.jar eaai.ginrummy.AgentShim <agent>");
+			System.exit(1);
+		}
+		new AgentShim(in, out, console).serve(args[0]);
+	}
+}
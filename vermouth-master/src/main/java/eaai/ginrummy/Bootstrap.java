@@ -0,0 +1,304 @@
+package eaai.ginrummy;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Bootstrap confidence intervals for the results of a tournament, computed
+ * from its games.csv once the tournament is complete: the win rate of each
+ * pair of agents that met, and the Bradley-Terry rating and rank of each
+ * agent. Games are resampled with replacement within each pair of agents, so
+ * every replicate keeps the number of games the schedule gave each pair.
+ * <p>
+ * The games are reduced to the wins, draws and games of each pair, so a
+ * replicate draws one random number per game and no per-game arrays are
+ * kept; replicates are spread over a fork/join pool, each drawing from its
+ * own generator split from the seed in replicate order, so the intervals do
+ * not depend on the number of threads.
+ */
+public class Bootstrap {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(Bootstrap.class);
+
+	/* replicates below which a task is not split further */
+	private static final int GRAIN = 16;
+
+	/* */
+	private final int agents;
+
+	/* wins, draws and games of the first agent of each pair (p0 < p1), by pair index p0 * agents + p1 */
+	private final int[] wins, draws, games;
+
+	/*
+	 */
+	private Bootstrap(int agents) {
+		this.agents = agents;
+		this.wins = new int[agents * agents];
+		this.draws = new int[agents * agents];
+		this.games = new int[agents * agents];
+	}
+
+	/**
+	 * Computes the confidence intervals of a tournament from its games.csv
+	 * (whose rows come in pairs, the agent in seat 0 first, with the agent in
+	 * the PLAYER column and its final score in the SCORE column), and writes
+	 * them to a CSV file.
+	 *
+	 * @param gamesPath the games.csv of the tournament
+	 * @param ciPath the CSV file written
+	 * @param agents the number of agents
+	 * @param replicates the number of bootstrap replicates
+	 * @param level the confidence level (e.g., 0.95)
+	 * @param threads the parallelism of the replicates
+	 * @param seed the seed of the replicates
+	 */
+	public static void write(Path gamesPath, Path ciPath, int agents, int replicates, double level, int threads, long seed) throws IOException {
+		Bootstrap bootstrap = read(gamesPath, agents);
+		long start = System.currentTimeMillis();
+
+		double[] rating = bootstrap.ratings(bootstrap.wins, bootstrap.draws, null);
+		int[] rank = ranks(rating);
+		double[][] rates = new double[agents * agents][];
+		for(int pair = 0; pair < rates.length; pair += 1) {
+			if(bootstrap.games[pair] > 0) { rates[pair] = new double[replicates]; }
+		}
+		double[][] ratings = new double[agents][replicates];
+		double[][] ranks = new double[agents][replicates];
+
+		// the generators of the replicates are split in order, before any is used
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] randoms = new SplittableRandom[replicates];
+		for(int r = 0; r < replicates; r += 1) { randoms[r] = root.split(); }
+		ForkJoinPool pool = new ForkJoinPool(Math.max(threads, 1));
+		try {
+			pool.invoke(bootstrap.new Replicates(0, replicates, randoms, rating, rates, ratings, ranks));
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		double alpha = (1 - level) / 2;
+		try(CSVWriter writer = new CSVWriter(new PrintWriter(Files.newOutputStream(ciPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n")) {
+			writer.writeNext(new String[] { "STATISTIC", "PLAYER", "OPPONENT", "ESTIMATE", "LOWER", "UPPER", "GAMES" });
+			for(int p0 = 0; p0 < agents; p0 += 1) {
+				for(int p1 = p0 + 1; p1 < agents; p1 += 1) {
+					int pair = p0 * agents + p1;
+					if(bootstrap.games[pair] == 0) { continue; }
+					double[] interval = interval(rates[pair], alpha);
+					double estimate = (bootstrap.wins[pair] + .5 * bootstrap.draws[pair]) / bootstrap.games[pair];
+					writer.writeNext(new String[] { "WINRATE", Integer.toString(p0), Integer.toString(p1), String.format("%.4f", estimate), String.format("%.4f", interval[0]), String.format("%.4f", interval[1]), Integer.toString(bootstrap.games[pair]) });
+				}
+			}
+			for(int p = 0; p < agents; p += 1) {
+				double[] interval = interval(ratings[p], alpha);
+				writer.writeNext(new String[] { "RATING", Integer.toString(p), "", String.format("%.2f", rating[p]), String.format("%.2f", interval[0]), String.format("%.2f", interval[1]), Integer.toString(bootstrap.played(p)) });
+			}
+			for(int p = 0; p < agents; p += 1) {
+				double[] interval = interval(ranks[p], alpha);
+				writer.writeNext(new String[] { "RANK", Integer.toString(p), "", Integer.toString(rank[p]), Integer.toString((int)interval[0]), Integer.toString((int)interval[1]), Integer.toString(bootstrap.played(p)) });
+			}
+		}
+		LOG.info("bootstrapped {}% confidence intervals from {} replicates in {} ms", String.format("%.0f", 100 * level), replicates, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Checks the intervals of a fixed set of results between three agents
+	 * (with draws): the intervals written for the given seed (hexadecimal,
+	 * default 2a) with one thread and with four must be identical, and every
+	 * interval must cover its estimate. Exits with status 1 otherwise.
+	 *
+	 * @param args the seed of the replicates, optionally
+	 */
+	public static void main(String[] args) throws IOException {
+		long seed = args.length > 0 ? Long.parseLong(args[0], 16) : 0x2a;
+		// each pair of agents, and the wins, draws and losses of the first
+		int[][] results = { { 0, 1, 60, 5, 35 }, { 0, 2, 70, 0, 30 }, { 1, 2, 55, 10, 35 } };
+		Path directory = Files.createTempDirectory("bootstrap");
+		Path gamesPath = directory.resolve("games.csv"), single = directory.resolve("ci-1.csv"), parallel = directory.resolve("ci-4.csv");
+		try {
+			try(CSVWriter writer = new CSVWriter(new PrintWriter(Files.newOutputStream(gamesPath)), ',', '\0', '\\', "\n")) {
+				writer.writeNext(new String[] { "MATCH", "GAME", "PLAYER", "SCORE", "WIN", "HANDS", "CAPPED" });
+				for(int match = 0; match < results.length; match += 1) {
+					int[] result = results[match];
+					for(int game = 0; game < result[2] + result[3] + result[4]; game += 1) {
+						int score = game < result[2] ? 100 : game < result[2] + result[3] ? 50 : 0;
+						writer.writeNext(new String[] { Integer.toString(match), Integer.toString(game), Integer.toString(result[0]), Integer.toString(score), score == 100 ? "1" : "0", "1", "0" });
+						writer.writeNext(new String[] { Integer.toString(match), Integer.toString(game), Integer.toString(result[1]), Integer.toString(100 - score), score == 0 ? "1" : "0", "1", "0" });
+					}
+				}
+			}
+			write(gamesPath, single, 3, 1000, .95, 1, seed);
+			write(gamesPath, parallel, 3, 1000, .95, 4, seed);
+
+			boolean reproduced = Arrays.equals(Files.readAllBytes(single), Files.readAllBytes(parallel)), covered = true;
+			try(CSVReader reader = new CSVReader(Files.newBufferedReader(single))) {
+				for(String[] row = reader.readNext(); row != null; row = reader.readNext()) {
+					System.out.println(String.join(",", row));
+					if("STATISTIC".equals(row[0])) { continue; }
+					double estimate = Double.parseDouble(row[3]), lower = Double.parseDouble(row[4]), upper = Double.parseDouble(row[5]);
+					covered &= lower <= estimate && estimate <= upper;
+				}
+			}
+			catch(CsvValidationException except) {
+				throw new IOException("malformed ci.csv", except);
+			}
+			if(!reproduced || !covered) {
+				System.err.println(!reproduced ? "intervals differ between one thread and four for the same seed" : "an interval does not cover its estimate");
+				System.exit(1);
+			}
+		}
+		finally {
+			for(Path path : new Path[] { gamesPath, single, parallel, directory }) { Files.deleteIfExists(path); }
+		}
+	}
+
+	/*
+	 * reduces the games of a games.csv to the results of each pair
+	 */
+	private static Bootstrap read(Path path, int agents) throws IOException {
+		Bootstrap bootstrap = new Bootstrap(agents);
+		try(CSVReader reader = new CSVReader(Files.newBufferedReader(path))) {
+			reader.skip(1);
+			for(String[] row0 = reader.readNext(), row1 = reader.readNext(); row0 != null && row1 != null; row0 = reader.readNext(), row1 = reader.readNext()) {
+				int a = Integer.parseInt(row0[2]), b = Integer.parseInt(row1[2]);
+				int sa = Integer.parseInt(row0[3]), sb = Integer.parseInt(row1[3]);
+				if(a == b) { continue; }
+				int pair = Math.min(a, b) * agents + Math.max(a, b);
+				// the score of the first agent of the pair
+				int first = a < b ? Integer.compare(sa, sb) : Integer.compare(sb, sa);
+				bootstrap.games[pair] += 1;
+				if(first > 0) { bootstrap.wins[pair] += 1; }
+				if(first == 0) { bootstrap.draws[pair] += 1; }
+			}
+		}
+		catch(CsvValidationException | NumberFormatException | ArrayIndexOutOfBoundsException except) {
+			throw new IOException("malformed games.csv", except);
+		}
+		return bootstrap;
+	}
+
+	/*
+	 * the games played by an agent
+	 */
+	private int played(int p) {
+		int played = 0;
+		for(int o = 0; o < agents; o += 1) { played += games[Math.min(p, o) * agents + Math.max(p, o)]; }
+		return played;
+	}
+
+	/*
+	 * the Bradley-Terry ratings of the given results of the pairs, starting
+	 * from the given ratings
+	 */
+	private double[] ratings(int[] wins, int[] draws, double[] start) {
+		double[][] w = new double[agents][agents], g = new double[agents][agents];
+		for(int p0 = 0; p0 < agents; p0 += 1) {
+			for(int p1 = p0 + 1; p1 < agents; p1 += 1) {
+				int pair = p0 * agents + p1;
+				w[p0][p1] = wins[pair] + .5 * draws[pair];
+				w[p1][p0] = games[pair] - w[p0][p1];
+				g[p0][p1] = g[p1][p0] = games[pair];
+			}
+		}
+		return BradleyTerry.fit(w, g, start);
+	}
+
+	/*
+	 * the rank of each agent by rating, 1 being the highest (ties sharing
+	 * the best rank)
+	 */
+	private static int[] ranks(double[] rating) {
+		int[] rank = new int[rating.length];
+		for(int p = 0; p < rating.length; p += 1) {
+			rank[p] = 1;
+			for(int o = 0; o < rating.length; o += 1) { rank[p] += rating[o] > rating[p] ? 1 : 0; }
+		}
+		return rank;
+	}
+
+	/*
+	 * the percentile interval of the replicates of a statistic (sorting
+	 * them in place)
+	 */
+	private static double[] interval(double[] replicates, double alpha) {
+		if(replicates.length == 0) { return new double[] { Double.NaN, Double.NaN }; }
+		Arrays.sort(replicates);
+		int last = replicates.length - 1;
+		return new double[] { replicates[(int)Math.floor(alpha * last)], replicates[(int)Math.ceil((1 - alpha) * last)] };
+	}
+
+	/*
+	 * a range of replicates, split in halves until small enough to run
+	 */
+	private class Replicates extends RecursiveAction {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* */
+		private final int from, to;
+
+		/* */
+		private final SplittableRandom[] randoms;
+
+		/* ratings of the games, from which the fit of each replicate starts */
+		private final double[] start;
+
+		/* statistics of each replicate */
+		private final double[][] rates, ratings, ranks;
+
+		/*
+		 */
+		private Replicates(int from, int to, SplittableRandom[] randoms, double[] start, double[][] rates, double[][] ratings, double[][] ranks) {
+			this.from = from;
+			this.to = to;
+			this.randoms = randoms;
+			this.start = start;
+			this.rates = rates;
+			this.ratings = ratings;
+			this.ranks = ranks;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > GRAIN) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Replicates(from, middle, randoms, start, rates, ratings, ranks), new Replicates(middle, to, randoms, start, rates, ratings, ranks));
+				return;
+			}
+			int[] w = new int[wins.length], d = new int[draws.length];
+			for(int r = from; r < to; r += 1) {
+				SplittableRandom random = randoms[r];
+				// resample the games of each pair: a game is a win with index below the wins, a draw below the wins and draws
+				for(int pair = 0; pair < games.length; pair += 1) {
+					int n = games[pair], won = 0, drawn = 0;
+					for(int g = 0; g < n; g += 1) {
+						int u = random.nextInt(n);
+						if(u < wins[pair]) { won += 1; }
+						else if(u < wins[pair] + draws[pair]) { drawn += 1; }
+					}
+					w[pair] = won;
+					d[pair] = drawn;
+					if(n > 0) { rates[pair][r] = (won + .5 * drawn) / n; }
+				}
+				double[] rating = Bootstrap.this.ratings(w, d, start);
+				int[] rank = ranks(rating);
+				for(int p = 0; p < agents; p += 1) {
+					ratings[p][r] = rating[p];
+					ranks[p][r] = rank[p];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package eaai.ginrummy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bradley-Terry ratings of a set of players, fit by maximum likelihood to the
+ * pairwise results of the games added so far, independent of the order of
+ * the games. Under the model, player i beats player j with probability
+ * g_i / (g_i + g_j); ratings are reported on the Elo scale, 1000 + 400
+ * log10(g_i), so a difference of 400 points means odds of 10 to 1.
+ * <p>
+ * Results are kept as sparse pairwise counts, and ratings are refit by
+ * minorization-maximization (MM) iterations starting from the previous fit, so
+ * that refitting after each game or round is cheap. Every player is given a
+ * prior of one drawn game against a fixed player rated 1000, which keeps the
+ * ratings of undefeated and winless players finite and anchors the scale.
+ * Standard errors are taken from the inverse of the observed Fisher
+ * information, and are those of each rating relative to the mean rating of
+ * all players, as only rating differences are determined by the games.
+ */
+public class BradleyTerry implements Serializable {
+	/* */
+	private static final long serialVersionUID = 1L;
+
+	/** rating of the prior opponent, and of players without games */
+	public static final double BASE = 1000;
+
+	/* Elo points per unit of log strength */
+	private static final double SCALE = 400 / Math.log(10);
+
+	/* convergence threshold on the change in log strength, and iteration cap */
+	private static final double EPSILON = 1e-9;
+	private static final int ITERATIONS = 10000;
+
+	/* */
+	private final int players;
+
+	/* wins of each player (draws counting half) against each opponent */
+	private final List<Map<Integer, Double>> wins = new ArrayList<>();
+
+	/* games of each player against each opponent */
+	private final List<Map<Integer, Double>> games = new ArrayList<>();
+
+	/* strengths of the latest fit */
+	private final double[] strength;
+
+	/* whether games have been added since the latest fit */
+	private boolean stale = false;
+
+	/**
+	 * Creates an empty rating of the given number of players.
+	 *
+	 * @param players the number of players
+	 */
+	public BradleyTerry(int players) {
+		this.players = players;
+		this.strength = new double[players];
+		for(int p = 0; p < players; p += 1) {
+			wins.add(new HashMap<>());
+			games.add(new HashMap<>());
+			strength[p] = 1;
+		}
+	}
+
+	/**
+	 * Adds the result of a game.
+	 *
+	 * @param p0 the first player
+	 * @param p1 the second player
+	 * @param score the score of the first player (1 for a win, 0 for a loss,
+	 * 1/2 for a draw)
+	 */
+	public synchronized void add(int p0, int p1, double score) {
+		wins.get(p0).merge(p1, score, Double::sum);
+		wins.get(p1).merge(p0, 1 - score, Double::sum);
+		games.get(p0).merge(p1, 1., Double::sum);
+		games.get(p1).merge(p0, 1., Double::sum);
+		stale = true;
+	}
+
+	/**
+	 * Returns the number of games of the given player.
+	 *
+	 * @param p the player
+	 * @return the number of games added for the player
+	 */
+	public synchronized int games(int p) {
+		return (int)Math.round(games.get(p).values().stream().mapToDouble(Double::doubleValue).sum());
+	}
+
+	/*
+	 * refits the strengths by MM iterations, each strength being updated from
+	 * the latest strengths of the others (Gauss-Seidel order), with the prior
+	 * counting as half a win and a game against strength 1
+	 */
+	private void fit() {
+		if(!stale) { return; }
+		for(int iteration = 0; iteration < ITERATIONS; iteration += 1) {
+			double change = 0;
+			for(int p = 0; p < players; p += 1) {
+				double w = .5 + wins.get(p).values().stream().mapToDouble(Double::doubleValue).sum();
+				double d = 1 / (strength[p] + 1);
+				for(Map.Entry<Integer, Double> entry : games.get(p).entrySet()) {
+					d += entry.getValue() / (strength[p] + strength[entry.getKey()]);
+				}
+				double updated = w / d;
+				change = Math.max(change, Math.abs(Math.log(updated / strength[p])));
+				strength[p] = updated;
+			}
+			if(change < EPSILON) { break; }
+		}
+		stale = false;
+	}
+
+	/**
+	 * Fits ratings to dense pairwise results, as for ratings but without
+	 * keeping the results (e.g., for each replicate of a bootstrap). The fit
+	 * takes Newton steps on the log strengths, halved while they decrease the
+	 * likelihood, which converges in a few steps from nearby ratings where MM
+	 * iterations would take thousands on large numbers of games.
+	 *
+	 * @param wins the wins of each player (draws counting half) against each
+	 * opponent
+	 * @param games the games of each player against each opponent
+	 * @param start ratings from which the fit starts (e.g., those of similar
+	 * results), or null
+	 * @return the ratings, on the Elo scale
+	 */
+	public static double[] fit(double[][] wins, double[][] games, double[] start) {
+		int players = wins.length;
+		double[] theta = new double[players];
+		for(int p = 0; p < players && start != null; p += 1) { theta[p] = (start[p] - BASE) / SCALE; }
+		double likelihood = likelihood(wins, games, theta);
+		for(int iteration = 0; iteration < ITERATIONS; iteration += 1) {
+			// gradient and observed information of the log strengths (the prior counting as a draw against strength 1)
+			double[] gradient = new double[players];
+			double[][] information = new double[players][players];
+			for(int p = 0; p < players; p += 1) {
+				double q = 1 / (1 + Math.exp(-theta[p]));
+				gradient[p] += .5 - q;
+				information[p][p] += q * (1 - q);
+				for(int o = 0; o < players; o += 1) {
+					if(games[p][o] == 0) { continue; }
+					q = 1 / (1 + Math.exp(theta[o] - theta[p]));
+					gradient[p] += wins[p][o] - games[p][o] * q;
+					information[p][p] += games[p][o] * q * (1 - q);
+					information[p][o] -= games[p][o] * q * (1 - q);
+				}
+			}
+			double[][] covariance = invert(information);
+			double[] step = new double[players];
+			double change = 0;
+			for(int p = 0; p < players; p += 1) {
+				for(int o = 0; o < players; o += 1) { step[p] += covariance[p][o] * gradient[o]; }
+				change = Math.max(change, Math.abs(step[p]));
+			}
+			if(change < EPSILON) { break; }
+			double[] next = new double[players];
+			double updated = Double.NEGATIVE_INFINITY;
+			for(double scale = 1; scale > EPSILON; scale /= 2) {
+				for(int p = 0; p < players; p += 1) { next[p] = theta[p] + scale * step[p]; }
+				updated = likelihood(wins, games, next);
+				if(updated >= likelihood) { break; }
+			}
+			if(!(updated >= likelihood)) { break; }
+			theta = next;
+			// stop once steps no longer improve the likelihood beyond rounding
+			boolean converged = updated - likelihood <= EPSILON * Math.abs(likelihood);
+			likelihood = updated;
+			if(converged) { break; }
+		}
+		double[] ratings = new double[players];
+		for(int p = 0; p < players; p += 1) { ratings[p] = BASE + SCALE * theta[p]; }
+		return ratings;
+	}
+
+	/*
+	 * the log-likelihood of dense pairwise results (and the prior) under the
+	 * given log strengths
+	 */
+	private static double likelihood(double[][] wins, double[][] games, double[] theta) {
+		double likelihood = 0;
+		for(int p = 0; p < theta.length; p += 1) {
+			likelihood += .5 * theta[p] - log1pexp(theta[p]);
+			for(int o = p + 1; o < theta.length; o += 1) {
+				if(games[p][o] == 0) { continue; }
+				double d = theta[p] - theta[o];
+				likelihood += wins[p][o] * -log1pexp(-d) + wins[o][p] * -log1pexp(d);
+			}
+		}
+		return likelihood;
+	}
+
+	/*
+	 * log(1 + e^x), without overflow
+	 */
+	private static double log1pexp(double x) {
+		return x > 0 ? x + Math.log1p(Math.exp(-x)) : Math.log1p(Math.exp(x));
+	}
+
+	/**
+	 * Returns the ratings of the players, refitting if games have been added.
+	 *
+	 * @return the ratings, on the Elo scale
+	 */
+	public synchronized double[] ratings() {
+		fit();
+		double[] ratings = new double[players];
+		for(int p = 0; p < players; p += 1) { ratings[p] = BASE + SCALE * Math.log(strength[p]); }
+		return ratings;
+	}
+
+	/**
+	 * Returns the standard errors of the ratings of the players relative to the
+	 * mean rating, refitting if games have been added.
+	 *
+	 * @return the standard errors, in Elo points
+	 */
+	public synchronized double[] errors() {
+		fit();
+		// observed information of the log strengths (the prior adding to the diagonal)
+		double[][] information = new double[players][players];
+		for(int p = 0; p < players; p += 1) {
+			double q = strength[p] / (strength[p] + 1);
+			information[p][p] += q * (1 - q);
+			for(Map.Entry<Integer, Double> entry : games.get(p).entrySet()) {
+				int o = entry.getKey();
+				q = strength[p] / (strength[p] + strength[o]);
+				information[p][p] += entry.getValue() * q * (1 - q);
+				information[p][o] -= entry.getValue() * q * (1 - q);
+			}
+		}
+		double[][] covariance = invert(information);
+		// variance of each log strength less the mean log strength
+		double total = 0;
+		double[] rows = new double[players];
+		for(int p = 0; p < players; p += 1) {
+			for(int o = 0; o < players; o += 1) { rows[p] += covariance[p][o]; }
+			total += rows[p];
+		}
+		double[] errors = new double[players];
+		for(int p = 0; p < players; p += 1) {
+			double variance = covariance[p][p] - 2 * rows[p] / players + total / ((double)players * players);
+			errors[p] = SCALE * Math.sqrt(Math.max(variance, 0));
+		}
+		return errors;
+	}
+
+	/**
+	 * Checks that the MM fit of ratings and the Newton fit of fit agree on a
+	 * fixed set of results between four players (with draws, and a pair that
+	 * never met). Exits with status 1 if any rating differs by more than a
+	 * hundredth of a point.
+	 *
+	 * @param args unused
+	 */
+	public static void main(String[] args) {
+		// wins of each player against each opponent, and draws of each pair
+		int[][] won = { { 0, 20, 14, 9 }, { 8, 0, 12, 6 }, { 10, 10, 0, 0 }, { 3, 6, 0, 0 } };
+		int[][] drawn = { { 0, 2, 1, 0 }, { 2, 0, 0, 0 }, { 1, 0, 0, 0 }, { 0, 0, 0, 0 } };
+		int players = won.length;
+		BradleyTerry sparse = new BradleyTerry(players);
+		double[][] wins = new double[players][players], games = new double[players][players];
+		for(int p = 0; p < players; p += 1) {
+			for(int o = 0; o < players; o += 1) {
+				for(int g = 0; g < won[p][o]; g += 1) { sparse.add(p, o, 1); }
+				for(int g = 0; g < drawn[p][o] && p < o; g += 1) { sparse.add(p, o, .5); }
+				wins[p][o] = won[p][o] + drawn[p][o] / 2.;
+				games[p][o] = won[p][o] + won[o][p] + drawn[p][o];
+			}
+		}
+
+		double[] mm = sparse.ratings(), newton = fit(wins, games, null);
+		boolean agree = true;
+		for(int p = 0; p < players; p += 1) {
+			System.out.printf("player %d: MM %.4f, Newton %.4f\n", p, mm[p], newton[p]);
+			agree &= Math.abs(mm[p] - newton[p]) <= 0.01;
+		}
+		if(!agree) {
+			System.err.println("MM and Newton fits of the ratings differ");
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * inverts a symmetric positive definite matrix by Gauss-Jordan
+	 * elimination
+	 */
+	private static double[][] invert(double[][] matrix) {
+		int n = matrix.length;
+		double[][] a = new double[n][2 * n];
+		for(int i = 0; i < n; i += 1) {
+			System.arraycopy(matrix[i], 0, a[i], 0, n);
+			a[i][n + i] = 1;
+		}
+		for(int c = 0; c < n; c += 1) {
+			int pivot = c;
+			for(int r = c + 1; r < n; r += 1) {
+				if(Math.abs(a[r][c]) > Math.abs(a[pivot][c])) { pivot = r; }
+			}
+			double[] row = a[c]; a[c] = a[pivot]; a[pivot] = row;
+			double scale = a[c][c];
+			for(int k = 0; k < 2 * n; k += 1) { a[c][k] /= scale; }
+			for(int r = 0; r < n; r += 1) {
+				if(r == c || a[r][c] == 0) { continue; }
+				double factor = a[r][c];
+				for(int k = 0; k < 2 * n; k += 1) { a[r][k] -= factor * a[c][k]; }
+			}
+		}
+		double[][] inverse = new double[n][n];
+		for(int i = 0; i < n; i += 1) { System.arraycopy(a[i], n, inverse[i], 0, n); }
+		return inverse;
+	}
+}
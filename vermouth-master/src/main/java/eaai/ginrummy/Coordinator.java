@@ -0,0 +1,368 @@
+package eaai.ginrummy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static eaai.ginrummy.WorkerProtocol.*;
+
+/**
+ * The coordinator of a distributed tournament, which dispatches the matches of
+ * the tournament to {@link Worker} processes connecting over TCP (see
+ * {@link WorkerProtocol}) rather than playing them itself. Workers may connect
+ * at any time, and each is sent as many matches at a time as it has threads,
+ * in the order given by the tournament (e.g., longest first).
+ * <p>
+ * The coordinator listens on the given address only (by default, the
+ * loopback interface), and workers are not authenticated beyond the
+ * settings they present, so it should only be exposed to trusted networks.
+ * <p>
+ * A match is leased to its worker for as long as the worker is heard from;
+ * workers send heartbeats while they are alive, however long their games
+ * take, so a worker is only silent for the lease time if its process or host
+ * has died or hung. A worker which disconnects (e.g., giving up a match
+ * stalled on a hung agent) or falls silent is dropped, and its matches are dispatched again
+ * to other workers, ahead of the remaining matches. A match which is lost by
+ * several workers in turn (e.g., an agent crashing its JVM) ends the
+ * tournament.
+ */
+public class Coordinator implements Closeable {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(Coordinator.class);
+
+	/* number of times a match is dispatched before giving up on it */
+	private static final int MAX_DISPATCHES = 3;
+
+	/* */
+	private final ServerSocket server;
+
+	/* settings of the tournament, which workers must match */
+	private final String settings;
+
+	/* lease time, in milliseconds */
+	private final long lease;
+
+	/* connected workers */
+	private final List<Connection> connections = new ArrayList<>();
+
+	/* indices of the matches awaiting dispatch, in dispatch order */
+	private final Deque<Integer> pending = new ArrayDeque<>();
+
+	/* matches being executed, their outcomes until committed, which have been received, and their dispatch counts */
+	private List<Tournament.Match> matches = null;
+	private Outcome[] outcomes = null;
+	private BitSet received = null;
+	private int[] dispatches = null;
+
+	/* index of a match lost too many times, or -1 */
+	private int failed = -1;
+
+	/* */
+	private boolean closed = false;
+
+	/**
+	 * Starts listening for workers on the given port of the given address.
+	 *
+	 * @param address the address listened on (e.g., the loopback address, or
+	 * the wildcard address for all interfaces)
+	 * @param port the port
+	 * @param settings the settings of the tournament (e.g., its type, games
+	 * and agents), which each worker's must match
+	 * @param lease the time a worker may go unheard from before its matches
+	 * are dispatched to other workers, in milliseconds
+	 */
+	public Coordinator(InetAddress address, int port, String settings, long lease) throws IOException {
+		this.server = new ServerSocket(port, 0, address);
+		this.settings = settings;
+		this.lease = lease;
+		Thread acceptor = new Thread(this::accept, "coordinator");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		LOG.info("waiting for workers on {}:{}", server.getInetAddress().getHostAddress(), server.getLocalPort());
+	}
+
+	/**
+	 * Plays the given matches on the workers, passing the outcome of each
+	 * match to the given consumer on the calling thread, in the order of the
+	 * matches.
+	 *
+	 * @param matches the matches, each indexed by its position in the list
+	 * @param order the indices of the matches in the order they are
+	 * dispatched
+	 * @param commit the consumer of the outcomes
+	 */
+	void execute(List<Tournament.Match> matches, int[] order, Tournament.Commit<Outcome> commit) throws IOException {
+		synchronized(this) {
+			this.matches = matches;
+			this.outcomes = new Outcome[matches.size()];
+			this.received = new BitSet(matches.size());
+			this.dispatches = new int[matches.size()];
+			for(int index : order) { pending.add(index); }
+			dispatch();
+		}
+		for(int next = 0; next < matches.size(); next += 1) {
+			Outcome outcome;
+			synchronized(this) {
+				while(outcomes[next] == null) {
+					if(failed >= 0) { throw new IllegalStateException(String.format("match %d lost by %d workers", failed, MAX_DISPATCHES)); }
+					expire();
+					try {
+						wait(Math.max(lease / 4, 1));
+					}
+					catch(InterruptedException except) {
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("interrupted while waiting for workers", except);
+					}
+				}
+				outcome = outcomes[next];
+				outcomes[next] = null;
+			}
+			commit.accept(outcome);
+		}
+	}
+
+	/**
+	 * Stops the connected workers and stops listening for workers.
+	 */
+	@Override
+	public void close() throws IOException {
+		List<Connection> stopped;
+		synchronized(this) {
+			closed = true;
+			stopped = new ArrayList<>(connections);
+			connections.clear();
+		}
+		for(Connection connection : stopped) {
+			try {
+				connection.send(null);
+			}
+			catch(IOException except) {
+				// the worker is already gone
+			}
+			connection.close();
+		}
+		server.close();
+	}
+
+	/*
+	 * accepts workers until closed, each connection being served by its own
+	 * thread
+	 */
+	private void accept() {
+		try {
+			while(true) {
+				Socket socket = server.accept();
+				Thread reader = new Thread(() -> serve(socket), "worker-" + socket.getRemoteSocketAddress());
+				reader.setDaemon(true);
+				reader.start();
+			}
+		}
+		catch(IOException except) {
+			// the server socket is closed
+		}
+	}
+
+	/*
+	 * greets a worker, and then reads its messages until it disconnects
+	 */
+	private void serve(Socket socket) {
+		Connection connection = null;
+		try {
+			connection = new Connection(socket);
+			socket.setSoTimeout((int)Math.min(lease, Integer.MAX_VALUE));
+			Hello hello = (Hello)connection.read();
+			socket.setSoTimeout(0);
+			if(!settings.equals(hello.settings)) {
+				LOG.warn("rejecting worker {}: settings ({}) differ from the tournament's ({})", connection, hello.settings, settings);
+				connection.send(null);
+				connection.close();
+				return;
+			}
+			connection.threads = Math.max(hello.threads, 1);
+			synchronized(this) {
+				if(closed) {
+					connection.send(null);
+					connection.close();
+					return;
+				}
+				connection.send(lease);
+				connections.add(connection);
+				LOG.info("worker {} connected ({} threads)", connection, connection.threads);
+				dispatch();
+			}
+			while(true) {
+				Object message = connection.read();
+				if(message instanceof Outcome) {
+					Outcome outcome = (Outcome)message;
+					synchronized(this) {
+						connection.leased.remove(outcome.index);
+						if(!received.get(outcome.index)) {
+							received.set(outcome.index);
+							outcomes[outcome.index] = outcome;
+						}
+						dispatch();
+						notifyAll();
+					}
+				}
+			}
+		}
+		catch(IOException | ClassCastException except) {
+			if(connection != null) { drop(connection, String.valueOf(except)); }
+		}
+	}
+
+	/*
+	 * sends pending matches to the workers with free threads; a failed send
+	 * closes the connection, whose reader then drops the worker
+	 */
+	private synchronized void dispatch() {
+		if(matches == null) { return; }
+		for(Connection connection : connections) {
+			while(connection.leased.size() < connection.threads && !pending.isEmpty()) {
+				int index = pending.poll();
+				dispatches[index] += 1;
+				if(dispatches[index] > MAX_DISPATCHES) {
+					failed = index;
+					notifyAll();
+					return;
+				}
+				connection.leased.add(index);
+				try {
+					connection.send(matches.get(index));
+					LOG.debug("dispatched match {} to worker {}", index, connection);
+				}
+				catch(IOException except) {
+					connection.close();
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * drops the workers which have not been heard from within the lease time
+	 */
+	private synchronized void expire() {
+		long now = System.currentTimeMillis();
+		for(Connection connection : new ArrayList<>(connections)) {
+			if(now - connection.heard > lease) { drop(connection, String.format("not heard from in %d ms", now - connection.heard)); }
+		}
+	}
+
+	/*
+	 * drops a worker, dispatching its matches again ahead of the remaining
+	 * matches
+	 */
+	private synchronized void drop(Connection connection, String reason) {
+		connection.close();
+		if(closed || !connections.remove(connection)) { return; }
+		List<Integer> leased = new ArrayList<>(connection.leased);
+		leased.sort(null);
+		for(int i = leased.size() - 1; i >= 0; i -= 1) {
+			if(!received.get(leased.get(i))) { pending.addFirst(leased.get(i)); }
+		}
+		LOG.warn("lost worker {} ({}); dispatching its {} matches again", connection, reason, leased.size());
+		dispatch();
+		notifyAll();
+	}
+
+	/*
+	 * the connection to a worker
+	 */
+	private static class Connection {
+		/* */
+		private final Socket socket;
+
+		/* */
+		private final ObjectOutputStream out;
+
+		/* */
+		private final ObjectInputStream in;
+
+		/* number of matches the worker plays at a time */
+		private int threads = 1;
+
+		/* indices of the matches leased to the worker */
+		private final Set<Integer> leased = new HashSet<>();
+
+		/* time the worker was last heard from */
+		private volatile long heard;
+
+		/*
+		 */
+		private Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			this.out.flush();
+			// any data renews the lease, as a large outcome may take a while to arrive
+			InputStream heartbeats = new FilterInputStream(socket.getInputStream()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					heard = System.currentTimeMillis();
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					heard = System.currentTimeMillis();
+					return n;
+				}
+			};
+			this.in = input(new BufferedInputStream(heartbeats), Hello.class, Outcome.class, String.class, Long.class, Number.class, ArrayList.class, String[].class, int[].class);
+		}
+
+		/*
+		 */
+		private Object read() throws IOException {
+			try {
+				return in.readObject();
+			}
+			catch(ClassNotFoundException except) {
+				throw new IOException("unknown message class", except);
+			}
+		}
+
+		/*
+		 */
+		private synchronized void send(Object message) throws IOException {
+			out.writeObject(message);
+			out.reset();
+			out.flush();
+		}
+
+		/*
+		 */
+		private void close() {
+			try {
+				socket.close();
+			}
+			catch(IOException except) {
+				// already closed
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(socket.getRemoteSocketAddress());
+		}
+	}
+}
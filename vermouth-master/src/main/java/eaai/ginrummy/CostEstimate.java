@@ -0,0 +1,114 @@
+package eaai.ginrummy;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Estimates of the CPU cost of each agent of a tournament, taken from the
+ * stats.csv of a previous tournament of the same agents (in the same order),
+ * by which matches are scheduled longest first. The cost of an agent is its
+ * total call time per hand, so that the cost of a match is roughly
+ * proportional to the sum of the costs of its agents. Hands are counted from
+ * the HANDS column of the tournament's games.csv; without one, they are
+ * counted by the startGame calls of each agent, or by its endHand calls for
+ * an agent playing batched turns (whose startGame is not called on its own).
+ */
+public class CostEstimate {
+	// static class, private constructor
+	private CostEstimate() { }
+
+	/**
+	 * Reads the costs of the agents from the stats.csv (and games.csv) of a
+	 * previous tournament. Agents without calls or hands in the files are
+	 * given the mean cost of the others.
+	 *
+	 * @param path the output archive of the tournament, or its stats.csv
+	 * (with its games.csv, if any, in the same directory)
+	 * @param agents the number of agents
+	 * @return the estimated CPU time of each agent per hand, in nanoseconds
+	 */
+	public static double[] fromStats(Path path, int agents) throws IOException {
+		if(path.toString().endsWith(".zip")) {
+			URI uri = URI.create("jar:" + path.toUri());
+			try(FileSystem fs = FileSystems.newFileSystem(uri, new HashMap<String, String>())) {
+				return read(fs.getPath("stats.csv"), fs.getPath("games.csv"), agents);
+			}
+		}
+		return read(path, path.resolveSibling("games.csv"), agents);
+	}
+
+	/*
+	 * the cost of each agent from its call time and hands
+	 */
+	private static double[] read(Path statsPath, Path gamesPath, int agents) throws IOException {
+		double[] time = new double[agents];
+		long[] starts = new long[agents], ends = new long[agents];
+		try(Reader reader = Files.newBufferedReader(statsPath)) { readStats(reader, time, starts, ends); }
+		long[] hands = new long[agents];
+		if(Files.exists(gamesPath)) {
+			try(Reader reader = Files.newBufferedReader(gamesPath)) { readHands(reader, hands); }
+		}
+		else {
+			for(int p = 0; p < agents; p += 1) { hands[p] = Math.max(starts[p], ends[p]); }
+		}
+
+		double[] costs = new double[agents];
+		double total = 0;
+		int known = 0;
+		for(int p = 0; p < agents; p += 1) {
+			if(hands[p] == 0) { costs[p] = Double.NaN; continue; }
+			costs[p] = time[p] / hands[p];
+			total += costs[p];
+			known += 1;
+		}
+		double mean = known == 0 ? 1 : total / known;
+		return Arrays.stream(costs).map(cost -> Double.isNaN(cost) ? mean : cost).toArray();
+	}
+
+	/*
+	 * sums the call time and counts the startGame and endHand calls of each
+	 * agent (METHOD, PLAYER, TIME rows, after the header)
+	 */
+	private static void readStats(Reader input, double[] time, long[] starts, long[] ends) throws IOException {
+		try(CSVReader reader = new CSVReader(input)) {
+			reader.skip(1);
+			for(String[] row = reader.readNext(); row != null; row = reader.readNext()) {
+				int player = Integer.parseInt(row[1]);
+				if(player >= time.length) { continue; }
+				time[player] += Long.parseLong(row[2]);
+				if("startGame".equals(row[0])) { starts[player] += 1; }
+				if("endHand".equals(row[0])) { ends[player] += 1; }
+			}
+		}
+		catch(CsvValidationException | NumberFormatException | ArrayIndexOutOfBoundsException except) {
+			throw new IOException("malformed stats.csv", except);
+		}
+	}
+
+	/*
+	 * sums the hands of the games of each agent (MATCH, GAME, PLAYER, SCORE,
+	 * WIN, HANDS, CAPPED rows, after the header)
+	 */
+	private static void readHands(Reader input, long[] hands) throws IOException {
+		try(CSVReader reader = new CSVReader(input)) {
+			reader.skip(1);
+			for(String[] row = reader.readNext(); row != null; row = reader.readNext()) {
+				int player = Integer.parseInt(row[2]);
+				if(player >= hands.length) { continue; }
+				hands[player] += Integer.parseInt(row[5]);
+			}
+		}
+		catch(CsvValidationException | NumberFormatException | ArrayIndexOutOfBoundsException except) {
+			throw new IOException("malformed games.csv", except);
+		}
+	}
+}
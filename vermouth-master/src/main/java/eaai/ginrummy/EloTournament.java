@@ -20,20 +20,28 @@
 package eaai.ginrummy;
 
 import com.opencsv.CSVWriter;
-import ginrummy.GinRummyGame;
+import ginrummy.CompositeGameEventListener;
+import ginrummy.GameEventListener;
 import ginrummy.GinRummyPlayer;
+import ginrummy.TextGameEventListener;
 import eaai.ginrummy.util.FileMap;
 import eaai.ginrummy.util.RunningStatistic;
+import eaai.ginrummy.util.ThreadPrintStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -52,6 +60,9 @@ public class EloTournament extends Tournament {
 	/* */
 	private final boolean verbose;
 
+	/* consecutive stable rounds ending the tournament */
+	private static final int STABLE_ROUNDS = 3;
+
 	/**
 	 */
 	public EloTournament(List<GinRummyPlayerClass> classes, int rounds, boolean verbose, Random random) {
@@ -65,97 +76,151 @@ public class EloTournament extends Tournament {
 	 */
 	public void run() {
 		try {
-			LOG.debug("generating GinRummyPlayer instances");
-			List<GinRummyPlayer> players = classes.stream()
-				.map(c -> c.newInstance())
-				.collect(Collectors.toList());
-
-			List<Integer> rankings = players.stream()
-				.map(p -> 1000)
-				.collect(Collectors.toList());
-
-			List<RunningStatistic> averages = players.stream()
-				.map(p -> new RunningStatistic(1000.))
-				.collect(Collectors.toList());
-
-			Path playerPath = FileMap.get().getPath("players.csv");
-			CSVWriter playerWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(playerPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			playerWriter.writeNext(new String[] { "ID", "NAME" });
-			for(int p = 0; p < players.size(); p += 1) { playerWriter.writeNext(new String[] { Integer.toString(p), classes.get(p).name() }); }
-
-			Path roundPath = FileMap.get().getPath("rounds.csv");
-			CSVWriter roundWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(roundPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			roundWriter.writeNext(new String[] { "ROUND", "PLAYER", "RANKING" });
-			for (int p = 0; p < players.size(); p += 1) { roundWriter.writeNext(new String[] { Integer.toString(0), Integer.toString(p), Integer.toString(rankings.get(p)) }); }
-
-			Path gamesPath = FileMap.get().getPath("games.csv");
-			CSVWriter gamesWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(gamesPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			gamesWriter.writeNext(new String[] { "MATCH", "ROUND", "PLAYER", "SCORE", "WIN" });
-
-			Path statsPath = FileMap.get().getPath("stats.csv");
-			CSVWriter statsWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(statsPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			statsWriter.writeNext(new String[] { "METHOD", "PLAYER", "TIME" });
-
-			int m = 0;
-			for(int r = 1; r <= rounds; r += 1) {
+			LOG.debug("generating GinRummyPlayer pools");
+			List<GinRummyPlayerPool> pools = createPools(classes);
+			warmUp(pools);
+
+			EloState restored = (EloState)restore();
+			EloState state = restored != null ? restored : new EloState(pools.size());
+			List<Integer> rankings = state.rankings;
+			List<RunningStatistic> averages = state.averages;
+			BradleyTerry ratings = state.ratings;
+			Glicko2 glicko2 = state.glicko;
+			int[] played = state.played;
+
+			CSVWriter playerWriter = openCSV("players.csv", "ID", "NAME");
+			CSVWriter roundWriter = glicko ? openCSV("rounds.csv", "ROUND", "PLAYER", "RANKING", "RD", "VOLATILITY") : openCSV("rounds.csv", "ROUND", "PLAYER", "RANKING");
+			CSVWriter ratingWriter = openCSV("ratings.csv", "ROUND", "PLAYER", "RATING", "ERROR", "GAMES");
+			if(restored == null) {
+				for(int p = 0; p < pools.size(); p += 1) { playerWriter.writeNext(new String[] { Integer.toString(p), classes.get(p).name() }); }
+				for (int p = 0; p < pools.size(); p += 1) { roundWriter.writeNext(roundRow(0, p, rankings.get(p), glicko2)); }
+			}
+
+			CSVWriter gamesWriter = openCSV("games.csv", "MATCH", "ROUND", "PLAYER", "SCORE", "WIN", "HANDS", "CAPPED");
+
+			CSVWriter statsWriter = openCSV("stats.csv", "METHOD", "PLAYER", "TIME");
+
+			GameRecordWriter[][] recordWriters = new GameRecordWriter[pools.size()][pools.size()];
+
+			if(metrics != null) {
+				int n = pools.size();
+				metrics.plan((long)(rounds - state.round + 1) * (adaptive ? n / 2 : n * (n - 1) / 2));
+			}
+			for(int r = state.round; r <= rounds; r += 1) {
 				LOG.info("starting round {} with average rankings {}", Integer.toString(r), averages.stream().map(p -> String.format("%06.4f", p.mean())).collect(Collectors.toList()));
+				boolean[] converged = converged(glicko2);
+				if(IntStream.range(0, pools.size()).allMatch(p -> converged[p])) {
+					LOG.info("all ratings converged (deviation below {}) before round {} ({} games)", convergedDeviation, r, Arrays.stream(played).sum() / 2);
+					break;
+				}
 
-				List<Integer> updates = players.stream()
+				List<Integer> updates = pools.stream()
 					.map(p -> 0)
 					.collect(Collectors.toList());
-				for(int p0 = 0; p0 < players.size(); p0 += 1, m += 1) {
-					for(int p1 = p0 + 1; p1 < players.size(); p1 += 1, m += 1) {
-						LOG.info("starting match [{}] {} (rank {}) vs [{}] {} (rank {})", p0, classes.get(p0).name(), rankings.get(p0), p1, classes.get(p1).name(), rankings.get(p1));
-
-						PrintStream gameStream = System.out;
-						if(verbose) {
-							Path gamePath = FileMap.get().getPath(String.format("%d-%dv%d-round%d.txt", m, p0, p1, r));
-							gameStream = new PrintStream(Files.newOutputStream(gamePath, StandardOpenOption.CREATE_NEW));
+				// games within a round are independent, as adjustments use the rankings from the start of the round
+				List<int[]> pairs = new ArrayList<>();
+				if(adaptive) {
+					double[] rating = glicko ? glicko2.ratings() : rankings.stream().mapToDouble(Integer::doubleValue).toArray();
+					double[] uncertainty = glicko ? glicko2.deviations() : Arrays.stream(played).mapToDouble(g -> 1 / Math.sqrt(1 + g)).toArray();
+					for(int[] pair : informativePairs(rating, uncertainty, converged)) { pairs.add(new int[] { pair[0], pair[1], state.match++ }); }
+				}
+				else {
+					for(int p0 = 0; p0 < pools.size(); p0 += 1, state.match += 1) {
+						for(int p1 = p0 + 1; p1 < pools.size(); p1 += 1, state.match += 1) {
+							if(!(converged[p0] && converged[p1])) { pairs.add(new int[] { p0, p1, state.match }); }
 						}
-						PrintStream out = System.out; System.setOut(gameStream);
-						PrintStream err = System.err; System.setErr(gameStream);
-
-						GinRummyAgent agent0 = new GinRummyAgent(players.get(p0), p0, statsWriter, gameStream, gameStream);
-						GinRummyAgent agent1 = new GinRummyAgent(players.get(p1), p1, statsWriter, gameStream, gameStream);
-						GinRummyGame game = new GinRummyGame(agent0, agent1);
-						int[] scores = game.play();
-
-						System.setOut(out);
-						System.setErr(err);
-						if(gameStream != System.out) { gameStream.close(); }
-
-						// earned score (is a draw possible?)
-						double s0 = scores[0] > scores[1] ? 1 : 0;
-						double s1 = scores[1] > scores[0] ? 1 : 0;
-						// quality ranking score
-						double q0 = Math.pow(10, rankings.get(p0) / 400.);
-						double q1 = Math.pow(10, rankings.get(p1) / 400.);
-						// expected ranking socre
-						double e0 = q0 / (q0 + q1);
-						double e1 = q1 / (q0 + q1);
-						// calculate and accumulate score adjustments
-						final int K = 8;
-						double d0 = K * (s0 - e0);
-						double d1 = K * (s1 - e1);
-						updates.set(p0, updates.get(p0) + (int)Math.round(d0));
-						updates.set(p1, updates.get(p1) + (int)Math.round(d1));
-
-						gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(r), Integer.toString(p0), Integer.toString(scores[0]), Integer.toString(scores[0] > scores[1] ? 1 : 0) });
-						gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(r), Integer.toString(p1), Integer.toString(scores[1]), Integer.toString(scores[0] < scores[1] ? 1 : 0) });
 					}
 				}
+				List<Job<Pairing>> jobs = new ArrayList<>();
+				for(int[] pair : pairs) {
+					int p0 = pair[0], p1 = pair[1];
+					if(record && recordWriters[p0][p1] == null) { recordWriters[p0][p1] = openRecord(String.format("%dv%d.rec", p0, p1)); }
+					int match = pair[2], round = r;
+					GameRecordWriter recordWriter = recordWriters[p0][p1];
+					long seed = random.nextLong();
+					jobs.add(() -> pairing(pools, rankings, match, round, p0, p1, recordWriter, new Random(seed), new Output(gamesWriter, statsWriter)));
+				}
+				execute(jobs, pairing -> {
+					int p0 = pairing.p0, p1 = pairing.p1;
+					int[] scores = pairing.result.scores;
+
+					// earned score (a draw is possible when the hand limit is reached)
+					double s0 = scores[0] > scores[1] ? 1 : scores[0] == scores[1] ? .5 : 0;
+					double s1 = 1 - s0;
+					played[p0] += 1;
+					played[p1] += 1;
+					ratings.add(p0, p1, s0);
+					if(glicko) {
+						glicko2.add(p0, p1, s0);
+						pairing.output.commit(gamesWriter, statsWriter);
+						return;
+					}
+					// quality ranking score
+					double q0 = Math.pow(10, rankings.get(p0) / 400.);
+					double q1 = Math.pow(10, rankings.get(p1) / 400.);
+					// expected ranking socre
+					double e0 = q0 / (q0 + q1);
+					double e1 = q1 / (q0 + q1);
+					// calculate and accumulate score adjustments
+					final int K = 8;
+					double d0 = K * (s0 - e0);
+					double d1 = K * (s1 - e1);
+					updates.set(p0, updates.get(p0) + (int)Math.round(d0));
+					updates.set(p1, updates.get(p1) + (int)Math.round(d1));
+
+					pairing.output.commit(gamesWriter, statsWriter);
+				});
 
-				for (int p = 0; p < players.size(); p += 1) {
-					rankings.set(p, rankings.get(p) + (int)Math.round(updates.get(p)));
+				// with Glicko-2, each round is a rating period
+				if(glicko) { glicko2.update(); }
+				double[] glickoRating = glicko2.ratings();
+				for (int p = 0; p < pools.size(); p += 1) {
+					rankings.set(p, glicko ? (int)Math.round(glickoRating[p]) : rankings.get(p) + (int)Math.round(updates.get(p)));
 					averages.get(p).add(rankings.get(p));
-					roundWriter.writeNext(new String[] { Integer.toString(r), Integer.toString(p), Integer.toString(rankings.get(p)) });
+					roundWriter.writeNext(roundRow(r, p, rankings.get(p), glicko2));
+				}
+				double[] rating = ratings.ratings(), error = ratings.errors();
+				for(int p = 0; p < pools.size(); p += 1) {
+					ratingWriter.writeNext(new String[] { Integer.toString(r), Integer.toString(p), String.format("%.2f", rating[p]), String.format("%.2f", error[p]), Integer.toString(played[p]) });
+				}
+
+				state.round = r + 1;
+				if(stability > 0) {
+					List<Integer> order = rankingOrder(averages);
+					boolean stable = order.equals(state.previousOrder);
+					for(int p = 0; p < pools.size(); p += 1) {
+						stable &= Math.abs(averages.get(p).mean() - state.previousAverages[p]) < stability;
+						state.previousAverages[p] = averages.get(p).mean();
+					}
+					state.previousOrder = order;
+					state.stableRounds = stable ? state.stableRounds + 1 : 0;
+					if(state.stableRounds >= STABLE_ROUNDS) {
+						LOG.info("average rankings stable within {} after round {} ({} games)", stability, r, Arrays.stream(played).sum() / 2);
+						break;
+					}
 				}
+				checkpoint(state);
 			}
 
+			for(GameRecordWriter[] row : recordWriters) {
+				for(GameRecordWriter recordWriter : row) {
+					if(recordWriter != null) { recordWriter.close(); }
+				}
+			}
+
+			reportLimits();
+			closePools(pools);
 			LOG.info("final average rankings {}", averages.stream().map(p -> String.format("%06.2f", p.mean())).collect(Collectors.toList()));
+			if(glicko) {
+				double[] rating = glicko2.ratings(), deviation = glicko2.deviations();
+				LOG.info("final Glicko-2 ratings {}", IntStream.range(0, pools.size()).mapToObj(p -> String.format("%06.2f (RD %.2f)", rating[p], deviation[p])).collect(Collectors.toList()));
+			}
+			double[] rating = ratings.ratings(), error = ratings.errors();
+			LOG.info("final Bradley-Terry ratings {}", IntStream.range(0, pools.size()).mapToObj(p -> String.format("%06.2f +/- %.2f", rating[p], error[p])).collect(Collectors.toList()));
 
 			playerWriter.close();
 			 roundWriter.close();
+			 ratingWriter.close();
 			 gamesWriter.close();
 			 statsWriter.close();
 		}
@@ -164,4 +229,169 @@ public class EloTournament extends Tournament {
 			System.exit(1);
 		}
 	}
+
+	/*
+	 * the state of the tournament between rounds, checkpointed after each
+	 */
+	private static class EloState implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* the next round, and the id of its first game */
+		private int round = 1, match = 0;
+
+		/* */
+		private final List<Integer> rankings;
+
+		/* */
+		private final List<RunningStatistic> averages;
+
+		/* */
+		private final BradleyTerry ratings;
+
+		/* Glicko-2 ratings, used in place of the rankings' fixed-K updates if enabled */
+		private final Glicko2 glicko;
+
+		/* games played by each agent */
+		private final int[] played;
+
+		/* the ranking order and averages of the previous round, and the number of stable rounds */
+		private List<Integer> previousOrder;
+		private final double[] previousAverages;
+		private int stableRounds = 0;
+
+		/*
+		 */
+		private EloState(int agents) {
+			rankings = new ArrayList<>(Collections.nCopies(agents, 1000));
+			averages = IntStream.range(0, agents).mapToObj(p -> new RunningStatistic(1000.)).collect(Collectors.toCollection(ArrayList::new));
+			ratings = new BradleyTerry(agents);
+			glicko = new Glicko2(agents);
+			played = new int[agents];
+			previousOrder = rankingOrder(averages);
+			previousAverages = averages.stream().mapToDouble(RunningStatistic::mean).toArray();
+		}
+	}
+
+	/*
+	 * a rounds.csv row: the ranking of an agent after a round, with its
+	 * Glicko-2 deviation and volatility if enabled
+	 */
+	private String[] roundRow(int r, int p, int ranking, Glicko2 glicko2) {
+		if(!glicko) { return new String[] { Integer.toString(r), Integer.toString(p), Integer.toString(ranking) }; }
+		return new String[] { Integer.toString(r), Integer.toString(p), Integer.toString(ranking), String.format("%.2f", glicko2.deviations()[p]), String.format("%.6f", glicko2.volatilities()[p]) };
+	}
+
+	/*
+	 * the agents whose Glicko-2 deviation is below the converged deviation
+	 * (none unless enabled)
+	 */
+	private boolean[] converged(Glicko2 glicko2) {
+		boolean[] converged = new boolean[glicko2.deviations().length];
+		if(!glicko || convergedDeviation <= 0) { return converged; }
+		double[] deviation = glicko2.deviations();
+		for(int p = 0; p < converged.length; p += 1) { converged[p] = deviation[p] < convergedDeviation; }
+		return converged;
+	}
+
+	/*
+	 * the agents ordered by decreasing average ranking
+	 */
+	private static List<Integer> rankingOrder(List<RunningStatistic> averages) {
+		return IntStream.range(0, averages.size()).boxed()
+			.sorted(Comparator.comparingDouble((Integer p) -> -averages.get(p).mean()))
+			.collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	/*
+	 * the pairings of an adaptive round: pairs are taken greedily by expected
+	 * information, each agent playing at most one game; the information of a
+	 * game is its outcome variance e(1 - e) under the current ratings, which
+	 * is greatest for agents of close ratings, weighted by the uncertainty of
+	 * the agents' ratings (1 / sqrt(1 + games played) for Elo rankings, the
+	 * rating deviation for Glicko-2); pairs of converged agents are not taken
+	 */
+	private static List<int[]> informativePairs(double[] rating, double[] uncertainty, boolean[] converged) {
+		int n = rating.length;
+		List<int[]> candidates = new ArrayList<>();
+		for(int p0 = 0; p0 < n; p0 += 1) {
+			for(int p1 = p0 + 1; p1 < n; p1 += 1) {
+				if(!(converged[p0] && converged[p1])) { candidates.add(new int[] { p0, p1 }); }
+			}
+		}
+		double[] information = new double[n * n];
+		for(int[] pair : candidates) {
+			double e = 1 / (1 + Math.pow(10, (rating[pair[1]] - rating[pair[0]]) / 400.));
+			information[pair[0] * n + pair[1]] = e * (1 - e) * (uncertainty[pair[0]] + uncertainty[pair[1]]);
+		}
+		// stable sort, so that ties are broken by pair order
+		candidates.sort(Comparator.comparingDouble((int[] pair) -> -information[pair[0] * n + pair[1]]));
+
+		boolean[] paired = new boolean[n];
+		List<int[]> pairs = new ArrayList<>();
+		for(int[] pair : candidates) {
+			if(paired[pair[0]] || paired[pair[1]]) { continue; }
+			paired[pair[0]] = paired[pair[1]] = true;
+			pairs.add(pair);
+		}
+		return pairs;
+	}
+
+	/*
+	 * the outcome of a single game of a round
+	 */
+	private class Pairing {
+		/* */
+		private final int p0, p1;
+
+		/* */
+		private final Result result;
+
+		/* */
+		private final Output output;
+
+		/*
+		 */
+		private Pairing(int p0, int p1, Result result, Output output) {
+			this.p0 = p0;
+			this.p1 = p1;
+			this.result = result;
+			this.output = output;
+		}
+	}
+
+	/*
+	 * plays the single game of a round between the given agents
+	 */
+	private Pairing pairing(List<GinRummyPlayerPool> pools, List<Integer> rankings, int m, int r, int p0, int p1, GameRecordWriter recordWriter, Random random, Output output) throws IOException {
+		LOG.info("starting match [{}] {} (rank {}) vs [{}] {} (rank {})", p0, classes.get(p0).name(), rankings.get(p0), p1, classes.get(p1).name(), rankings.get(p1));
+
+		PrintStream gameStream = output.console;
+		if(verbose) {
+			Path gamePath = FileMap.get().getPath(String.format("%d-%dv%d-round%d.txt", m, p0, p1, r));
+			gameStream = new PrintStream(Files.newOutputStream(gamePath, StandardOpenOption.CREATE_NEW));
+		}
+		PrintStream out = ThreadPrintStream.setOut(gameStream);
+		PrintStream err = ThreadPrintStream.setErr(gameStream);
+
+		GinRummyPlayer player0 = pools.get(p0).acquire();
+		GinRummyPlayer player1 = pools.get(p1).acquire();
+		GinRummyAgent agent0 = new GinRummyAgent(player0, p0, output.statsWriter, gameStream, gameStream);
+		GinRummyAgent agent1 = new GinRummyAgent(player1, p1, output.statsWriter, gameStream, gameStream);
+		if(recordWriter != null) { recordWriter.startGame(m, r); }
+		GameEventListener listener = CompositeGameEventListener.of(verbose ? new TextGameEventListener(gameStream) : null, recordWriter);
+		// each pairing plays a single game per round, so the match limit bounds that game
+		Result result = play(agent0, agent1, listener, handLimit(0), random);
+		int[] scores = result.scores;
+		pools.get(p0).release(player0);
+		pools.get(p1).release(player1);
+
+		ThreadPrintStream.setOut(out);
+		ThreadPrintStream.setErr(err);
+		if(gameStream != output.console) { gameStream.close(); }
+
+		output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(r), Integer.toString(p0), Integer.toString(scores[0]), Integer.toString(scores[0] > scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+		output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(r), Integer.toString(p1), Integer.toString(scores[1]), Integer.toString(scores[0] < scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+		return new Pairing(p0, p1, result, output);
+	}
 }
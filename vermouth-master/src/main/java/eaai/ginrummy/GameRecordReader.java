@@ -0,0 +1,309 @@
+package eaai.ginrummy;
+
+import ginrummy.Card;
+import ginrummy.GameEventListener;
+import ginrummy.GinRummyUtil;
+import ginrummy.TextGameEventListener;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Stack;
+
+import static eaai.ginrummy.GameRecordWriter.*;
+
+/**
+ * Reads a binary game record stream, as written by {@link GameRecordWriter},
+ * and replays the recorded events of each game to a game event listener. The
+ * deal and every face-down draw are regenerated from the recorded shuffle
+ * seed, and hands, piles and melds are tracked exactly as the game does, so a
+ * {@link TextGameEventListener} reproduces the verbose game text (less any
+ * agent output).
+ * <p>
+ * The main method renders the records of a tournament archive as text, e.g.,
+ * <pre>
+ * java -cp vermouth.jar eaai.ginrummy.GameRecordReader run.zip [0-0v1.rec]
+ * </pre>
+ */
+public class GameRecordReader {
+
+	/* */
+	private final DataInputStream in;
+
+	/* identifiers of the most recently read game */
+	private int match = -1, game = -1;
+
+	/**
+	 * Creates a reader for the given record stream, verifying the stream
+	 * header.
+	 *
+	 * @param in the record stream
+	 */
+	public GameRecordReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		if(this.in.readInt() != MAGIC) {
+			throw new IOException("not a game record stream");
+		}
+	}
+
+	/**
+	 * Returns the match identifier of the most recently read game.
+	 *
+	 * @return the match identifier of the most recently read game
+	 */
+	public int getMatch() {
+		return match;
+	}
+
+	/**
+	 * Returns the game (or round) number of the most recently read game.
+	 *
+	 * @return the game number of the most recently read game
+	 */
+	public int getGame() {
+		return game;
+	}
+
+	/*
+	 */
+	private int peek() throws IOException {
+		in.mark(1);
+		int b = in.read();
+		in.reset();
+		return b;
+	}
+
+	/*
+	 */
+	private Card card() throws IOException {
+		int id = in.readUnsignedByte();
+		return id == NO_CARD ? null : Card.getCard(id);
+	}
+
+	/*
+	 */
+	private ArrayList<ArrayList<Card>> melds() throws IOException {
+		int count = in.readUnsignedByte();
+		ArrayList<ArrayList<Card>> melds = new ArrayList<>(count);
+		for(int m = 0; m < count; m += 1) {
+			int size = in.readUnsignedByte();
+			ArrayList<Card> meld = new ArrayList<>(size);
+			for(int c = 0; c < size; c += 1) { meld.add(card()); }
+			melds.add(meld);
+		}
+		return melds;
+	}
+
+	/**
+	 * Reads the start of the next game of the stream. The game's events must
+	 * then be read with {@link #readGame(GameEventListener)}.
+	 *
+	 * @return false if the end of the stream was reached, true otherwise
+	 */
+	public boolean nextGame() throws IOException {
+		int b = in.read();
+		if(b < 0) { return false; }
+		if(b >> 1 != GAME) { throw new IOException("expected start of game"); }
+		match = in.readInt();
+		game  = in.readInt();
+		return true;
+	}
+
+	/**
+	 * Reads the next game of the stream, replaying its events to the given
+	 * listener.
+	 *
+	 * @param listener the listener to replay events to
+	 * @return false if the end of the stream was reached, true otherwise
+	 */
+	public boolean next(GameEventListener listener) throws IOException {
+		if(!nextGame()) { return false; }
+		readGame(listener);
+		return true;
+	}
+
+	/**
+	 * Reads the events of the game started by {@link #nextGame()}, replaying
+	 * them to the given listener. A game ends with its winner, a draw, a forfeit, or
+	 * (should the game have been aborted) the start of the next game.
+	 *
+	 * @param listener the listener to replay events to
+	 */
+	public void readGame(GameEventListener listener) throws IOException {
+		int[] scores = new int[2];
+		List<ArrayList<Card>> hands = new ArrayList<>();
+		hands.add(new ArrayList<>());
+		hands.add(new ArrayList<>());
+		Stack<Card> deck = null;
+		Stack<Card> discards = new Stack<>();
+		Card firstFaceUp = null;
+		ArrayList<ArrayList<Card>> knockMelds = null;
+		ArrayList<Card> unmelded = null;
+
+		while(true) {
+			int b = peek();
+			if(b < 0 || b >> 1 == GAME) { return; }
+			in.readByte();
+			int p = b & 1;
+			switch(b >> 1) {
+				case HAND: {
+					int seed = in.readInt();
+					deck = Card.getShuffle(seed);
+					hands.get(0).clear();
+					hands.get(1).clear();
+					for(int i = 0; i < 20; i += 1) { hands.get(i % 2).add(deck.pop()); }
+					listener.dealt(0, hands.get(0));
+					listener.dealt(1, hands.get(1));
+					listener.started(seed, p);
+					discards.clear();
+					discards.push(deck.pop());
+					firstFaceUp = discards.peek();
+					listener.faceUp(firstFaceUp);
+					knockMelds = null;
+					break;
+				}
+				case DECLINE:
+					listener.declined(p, firstFaceUp);
+					break;
+				case DRAW_FACE_UP:
+				case DRAW_FACE_DOWN: {
+					boolean faceUp = b >> 1 == DRAW_FACE_UP;
+					Card card = faceUp ? discards.pop() : deck.pop();
+					listener.drew(p, card, faceUp);
+					hands.get(p).add(card);
+					break;
+				}
+				case DISCARD: {
+					Card card = card();
+					hands.get(p).remove(card);
+					discards.push(card);
+					listener.discarded(p, card, hands.get(p));
+					break;
+				}
+				case ILLEGAL_DISCARD:
+					listener.illegalDiscard(p, card());
+					return;
+				case ILLEGAL_MELDS:
+					listener.illegalMelds(p, melds());
+					return;
+				case EXCESS_DEADWOOD: {
+					ArrayList<ArrayList<Card>> melds = melds();
+					listener.excessDeadwood(p, melds, GinRummyUtil.getDeadwoodPoints(melds, hands.get(p)));
+					return;
+				}
+				case TIMEOUT:
+					listener.timedOut(p);
+					return;
+				case KNOCK:
+					knockMelds = melds();
+					listener.knocked(p, knockMelds, GinRummyUtil.getDeadwoodPoints(knockMelds, hands.get(p)), hands.get(p));
+					break;
+				case MELD: {
+					ArrayList<ArrayList<Card>> melds = melds();
+					long bitstring = GinRummyUtil.cardsToBitstring(hands.get(p));
+					for(ArrayList<Card> meld : melds) { bitstring &= ~GinRummyUtil.cardsToBitstring(meld); }
+					unmelded = GinRummyUtil.bitstringToCards(bitstring);
+					listener.melded(p, melds);
+					break;
+				}
+				case LAYOFF: {
+					Card card = card();
+					ArrayList<Card> meld = knockMelds.get(in.readUnsignedByte());
+					listener.laidOff(p, card, meld);
+					unmelded.remove(card);
+					meld.add(card);
+					break;
+				}
+				case DEADWOOD:
+					listener.deadwood(p, GinRummyUtil.getDeadwoodPoints(unmelded), unmelded);
+					break;
+				case SCORE_GIN: {
+					int deadwood = in.readUnsignedByte();
+					scores[p] += GinRummyUtil.GIN_BONUS + deadwood;
+					listener.scoredGin(p, deadwood);
+					break;
+				}
+				case SCORE_KNOCK: {
+					int difference = in.readUnsignedByte();
+					scores[p] += difference;
+					listener.scoredKnock(p, difference);
+					break;
+				}
+				case SCORE_UNDERCUT: {
+					int difference = in.readUnsignedByte();
+					scores[p] += GinRummyUtil.UNDERCUT_BONUS + difference;
+					listener.scoredUndercut(p, difference);
+					break;
+				}
+				case CANCEL:
+					listener.cancelled();
+					break;
+				case SCORES:
+					listener.scores(scores.clone());
+					break;
+				case CAP:
+					listener.capped(in.readUnsignedShort());
+					break;
+				case WIN:
+					listener.won(p);
+					return;
+				case DRAW:
+					listener.drawn();
+					return;
+				default:
+					throw new IOException(String.format("unknown record opcode 0x%02X", b >> 1));
+			}
+		}
+	}
+
+	/*
+	 */
+	private static void render(Path path) throws IOException {
+		try(InputStream stream = Files.newInputStream(path)) {
+			GameRecordReader reader = new GameRecordReader(stream);
+			TextGameEventListener text = new TextGameEventListener(System.out);
+			while(reader.nextGame()) {
+				System.out.printf("=== %s match %d game %d ===\n", path.getFileName(), reader.getMatch(), reader.getGame());
+				reader.readGame(text);
+			}
+		}
+	}
+
+	/**
+	 * Renders the game records of a tournament archive as human-readable
+	 * text. The first argument is the archive; further arguments name the
+	 * record entries to render, with all records rendered by default.
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("usage: java -cp vermouth.jar eaai.ginrummy.GameRecordReader <archive.zip> [record ...]");
+			System.exit(1);
+		}
+
+		URI uri = URI.create("jar:" + Paths.get(args[0]).toUri());
+		try(FileSystem fs = FileSystems.newFileSystem(uri, new HashMap<String, String>())) {
+			List<Path> records = new ArrayList<>();
+			if(args.length > 1) {
+				for(int a = 1; a < args.length; a += 1) { records.add(fs.getPath(args[a])); }
+			}
+			else {
+				try(DirectoryStream<Path> entries = Files.newDirectoryStream(fs.getPath("/"), "*.rec")) {
+					for(Path entry : entries) { records.add(entry); }
+				}
+				Collections.sort(records);
+			}
+			for(Path record : records) { render(record); }
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package eaai.ginrummy;
+
+import ginrummy.Card;
+import ginrummy.GameEventListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+
+/**
+ * A game event listener writing a compact binary record of every game played
+ * to a channel, typically one stream per match. Each hand is recorded by its
+ * shuffle seed and starting player, after which most actions take one or two
+ * bytes: an opcode (with the acting player in the lowest bit) and, where it
+ * cannot be derived from the deal, a card id. Melds are recorded as card ids
+ * in the order the agent gave them.
+ * <p>
+ * Records are buffered and written to the channel in large blocks, so the cost
+ * per game is a handful of buffer puts. A {@link GameRecordReader} regenerates
+ * the events (and so the human-readable text) of a record on demand.
+ */
+public class GameRecordWriter implements GameEventListener, Closeable {
+
+	/* stream header, "GRR" and the format version */
+	static final int MAGIC = 0x47525201;
+
+	/* opcodes, shifted left one bit to hold the acting player */
+	static final int GAME            = 0x01;
+	static final int HAND            = 0x02;
+	static final int DECLINE         = 0x03;
+	static final int DRAW_FACE_UP    = 0x04;
+	static final int DRAW_FACE_DOWN  = 0x05;
+	static final int DISCARD         = 0x06;
+	static final int ILLEGAL_DISCARD = 0x07;
+	static final int ILLEGAL_MELDS   = 0x08;
+	static final int EXCESS_DEADWOOD = 0x09;
+	static final int KNOCK           = 0x0A;
+	static final int MELD            = 0x0B;
+	static final int LAYOFF          = 0x0C;
+	static final int DEADWOOD        = 0x0D;
+	static final int SCORE_GIN       = 0x0E;
+	static final int SCORE_KNOCK     = 0x0F;
+	static final int SCORE_UNDERCUT  = 0x10;
+	static final int CANCEL          = 0x11;
+	static final int SCORES          = 0x12;
+	static final int WIN             = 0x13;
+	static final int TIMEOUT         = 0x14;
+	static final int CAP             = 0x15;
+	static final int DRAW            = 0x16;
+
+	/* card id written for a missing (null) card */
+	static final int NO_CARD = 0xFF;
+
+	/* */
+	private final WritableByteChannel channel;
+
+	/* */
+	private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+	/* melds of the knocking player, against which layoffs are indexed */
+	private ArrayList<ArrayList<Card>> knockMelds;
+
+	/**
+	 * Creates a writer recording games to the given channel, writing the
+	 * stream header immediately.
+	 *
+	 * @param channel the channel records are written to
+	 */
+	public GameRecordWriter(WritableByteChannel channel) throws IOException {
+		this.channel = channel;
+		buffer.putInt(MAGIC);
+	}
+
+	/**
+	 * Marks the start of a new game within the stream. Each game must begin
+	 * with this call, before the game is played.
+	 *
+	 * @param match the match identifier
+	 * @param game the game (or round) number within the match
+	 */
+	public void startGame(int match, int game) {
+		reserve(9);
+		buffer.put((byte)(GAME << 1));
+		buffer.putInt(match);
+		buffer.putInt(game);
+	}
+
+	/*
+	 */
+	private void reserve(int bytes) {
+		if(buffer.remaining() < bytes) { flush(); }
+	}
+
+	/*
+	 */
+	private void op(int op, int playerNum) {
+		reserve(2);
+		buffer.put((byte)(op << 1 | playerNum));
+	}
+
+	/*
+	 */
+	private void op(int op, int playerNum, Card card) {
+		reserve(3);
+		buffer.put((byte)(op << 1 | playerNum));
+		buffer.put((byte)(card == null ? NO_CARD : card.getId()));
+	}
+
+	/*
+	 */
+	private void op(int op, int playerNum, ArrayList<ArrayList<Card>> melds) {
+		int size = 2;
+		for(ArrayList<Card> meld : melds) { size += 1 + meld.size(); }
+		reserve(size);
+		buffer.put((byte)(op << 1 | playerNum));
+		buffer.put((byte)melds.size());
+		for(ArrayList<Card> meld : melds) {
+			buffer.put((byte)meld.size());
+			for(Card card : meld) { buffer.put((byte)(card == null ? NO_CARD : card.getId())); }
+		}
+	}
+
+	/**
+	 * Writes all buffered records to the underlying channel.
+	 */
+	public void flush() {
+		try {
+			buffer.flip();
+			while(buffer.hasRemaining()) { channel.write(buffer); }
+			buffer.clear();
+		}
+		catch(IOException except) {
+			throw new UncheckedIOException(except);
+		}
+	}
+
+	/**
+	 * Writes all buffered records and closes the underlying channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		channel.close();
+	}
+
+	@Override
+	public void started(int seed, int startingPlayerNum) {
+		reserve(5);
+		buffer.put((byte)(HAND << 1 | startingPlayerNum));
+		buffer.putInt(seed);
+		knockMelds = null;
+	}
+
+	@Override
+	public void declined(int playerNum, Card card) {
+		op(DECLINE, playerNum);
+	}
+
+	@Override
+	public void drew(int playerNum, Card card, boolean faceUp) {
+		op(faceUp ? DRAW_FACE_UP : DRAW_FACE_DOWN, playerNum);
+	}
+
+	@Override
+	public void discarded(int playerNum, Card card, ArrayList<Card> hand) {
+		op(DISCARD, playerNum, card);
+	}
+
+	@Override
+	public void illegalDiscard(int playerNum, Card card) {
+		op(ILLEGAL_DISCARD, playerNum, card);
+	}
+
+	@Override
+	public void illegalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		op(ILLEGAL_MELDS, playerNum, melds);
+	}
+
+	@Override
+	public void excessDeadwood(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood) {
+		op(EXCESS_DEADWOOD, playerNum, melds);
+	}
+
+	@Override
+	public void timedOut(int playerNum) {
+		op(TIMEOUT, playerNum);
+	}
+
+	@Override
+	public void knocked(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood, ArrayList<Card> hand) {
+		op(KNOCK, playerNum, melds);
+		knockMelds = melds;
+	}
+
+	@Override
+	public void melded(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		op(MELD, playerNum, melds);
+	}
+
+	@Override
+	public void laidOff(int playerNum, Card card, ArrayList<Card> meld) {
+		int index = 0;
+		while(knockMelds.get(index) != meld) { index += 1; }
+		op(LAYOFF, playerNum, card);
+		buffer.put((byte)index);
+	}
+
+	@Override
+	public void deadwood(int playerNum, int deadwood, ArrayList<Card> unmelded) {
+		op(DEADWOOD, playerNum);
+	}
+
+	@Override
+	public void scoredGin(int playerNum, int opponentDeadwood) {
+		op(SCORE_GIN, playerNum);
+		buffer.put((byte)opponentDeadwood);
+	}
+
+	@Override
+	public void scoredKnock(int playerNum, int difference) {
+		op(SCORE_KNOCK, playerNum);
+		buffer.put((byte)difference);
+	}
+
+	@Override
+	public void scoredUndercut(int playerNum, int difference) {
+		op(SCORE_UNDERCUT, playerNum);
+		buffer.put((byte)difference);
+	}
+
+	@Override
+	public void cancelled() {
+		op(CANCEL, 0);
+	}
+
+	@Override
+	public void scores(int[] scores) {
+		op(SCORES, 0);
+	}
+
+	@Override
+	public void capped(int handsPlayed) {
+		reserve(3);
+		buffer.put((byte)(CAP << 1));
+		buffer.putShort((short)handsPlayed);
+	}
+
+	@Override
+	public void won(int winner) {
+		op(WIN, winner);
+	}
+
+	@Override
+	public void drawn() {
+		op(DRAW, 0);
+	}
+}
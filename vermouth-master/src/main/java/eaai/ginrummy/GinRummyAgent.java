@@ -2,16 +2,38 @@ package eaai.ginrummy;
 
 import com.opencsv.CSVWriter;
 import com.sun.management.ThreadMXBean;
+import eaai.ginrummy.util.CPUWatchdog;
+import eaai.ginrummy.util.ThreadPrintStream;
 import ginrummy.Card;
+import ginrummy.GinRummyBitPlayer;
 import ginrummy.GinRummyPlayer;
+import ginrummy.GinRummyTurn;
+import ginrummy.GinRummyTurnAdapter;
+import ginrummy.GinRummyTurnPlayer;
+import ginrummy.PonderingGinRummyPlayer;
 import java.lang.management.ManagementFactory;
 import java.io.PrintStream;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
 
 /**
  */
-public class GinRummyAgent implements GinRummyPlayer {
+public class GinRummyAgent implements GinRummyTurnPlayer {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(GinRummyAgent.class);
+
+	/* long-lived background threads on which pondering players ponder */
+	private static final ExecutorService PONDER = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "ponder");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	/*
 	 */
@@ -25,6 +47,21 @@ public class GinRummyAgent implements GinRummyPlayer {
 	 */
 	private final CSVWriter writer;
 
+	/* the player, as a player of batched turns */
+	private final GinRummyTurnPlayer turnPlayer;
+
+	/* opponent agent, pondering while this agent decides */
+	private GinRummyAgent opponent = null;
+
+	/* remaining CPU time bank for the game, in nanoseconds; negative if unlimited */
+	private long timeBank = -1;
+
+	/* number and total CPU time, in nanoseconds, of measured calls */
+	private long calls = 0, callTime = 0;
+
+	/* live metrics recording the decision times of the agent, or null */
+	private TournamentMetrics metrics = null;
+
 	/**
 	 */
 	public final GinRummyPlayer player;
@@ -41,26 +78,187 @@ public class GinRummyAgent implements GinRummyPlayer {
 	 */
 	public GinRummyAgent(GinRummyPlayer player, int id, CSVWriter writer, PrintStream out, PrintStream err) {
 		this.player = player;
+		this.turnPlayer = GinRummyTurnAdapter.of(player);
 		this.id = id;
 		this.writer = writer;
 		this.out = out;
 		this.err = err;
 	}
 
+	/**
+	 * Returns the index of the agent in the tournament.
+	 *
+	 * @return the index
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Sets the CPU time bank of the agent for the game. Every call is charged
+	 * its thread CPU time against the bank, with a {@link CPUWatchdog}
+	 * interrupting a call which exhausts the bank; the call then throws a
+	 * {@link TimeBankExceededException} on return, forfeiting the game. A
+	 * {@link RemoteGinRummyPlayer} exhausting the bank does not return: its
+	 * JVM is killed and replaced, and the call throws at once.
+	 *
+	 * @param timeBank the time bank, in nanoseconds, or a negative value for
+	 * an unlimited time bank
+	 */
+	public void setTimeBank(long timeBank) {
+		this.timeBank = timeBank;
+	}
+
+	/**
+	 * Returns the remaining CPU time bank of the agent for the game.
+	 *
+	 * @return the remaining time bank, in nanoseconds; negative if unlimited
+	 */
+	public long getTimeBank() {
+		return timeBank;
+	}
+
+	/**
+	 * Returns the number of measured calls made to the agent.
+	 *
+	 * @return the number of calls
+	 */
+	public long getCalls() {
+		return calls;
+	}
+
+	/**
+	 * Returns the total CPU time of the measured calls made to the agent, as
+	 * reported in the statistics (i.e., not including pondering).
+	 *
+	 * @return the total CPU time, in nanoseconds
+	 */
+	public long getCallTime() {
+		return callTime;
+	}
+
+	/**
+	 * Sets the live metrics of the tournament, to which the CPU time of each
+	 * decision of the agent is reported.
+	 *
+	 * @param metrics the metrics, or null
+	 */
+	public void setMetrics(TournamentMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the opponent of the agent for the game. Should the opponent's
+	 * player be a {@link PonderingGinRummyPlayer}, it ponders in the
+	 * background during each decision of this agent, with its pondering CPU
+	 * time reported separately (as "ponder") and not charged to its time bank.
+	 *
+	 * @param opponent the opponent agent
+	 */
+	public void setOpponent(GinRummyAgent opponent) {
+		this.opponent = opponent;
+	}
+
+	/*
+	 */
+	private Future<Long> ponderStart() {
+		if(!(player instanceof PonderingGinRummyPlayer)) { return null; }
+		PonderingGinRummyPlayer ponderer = (PonderingGinRummyPlayer)player;
+		return PONDER.submit(() -> {
+			PrintStream out = swapOut(this.out), err = swapErr(this.err);
+			long time = monitor.getCurrentThreadCpuTime();
+			ponderer.ponderStart();
+			time = monitor.getCurrentThreadCpuTime() - time;
+			swapOut(out); swapErr(err);
+			return time;
+		});
+	}
+
+	/*
+	 */
+	private void ponderStop(Future<Long> ponder) {
+		if(ponder == null) { return; }
+		((PonderingGinRummyPlayer)player).ponderStop();
+		try {
+			long time = ponder.get();
+			if(writer != null) {
+				writer.writeNext(new String[] { "ponder", Integer.toString(id), Long.toString(time) });
+			}
+		}
+		catch(InterruptedException | ExecutionException except) {
+			LOG.warn("player {} failed while pondering", id, except);
+		}
+	}
+
+	/*
+	 */
+	private Future<Long> opponentPonderStart() {
+		return opponent == null ? null : opponent.ponderStart();
+	}
+
+	/*
+	 * stops the pondering of the opponent; decisions call it in a finally
+	 * block, so that the opponent does not ponder on through a failed
+	 * decision (e.g., into forfeit handling)
+	 */
+	private void opponentPonderStop(Future<Long> ponder) {
+		if(opponent != null) { opponent.ponderStop(ponder); }
+	}
+
+	/*
+	 * the CPU time of a call started at the given thread CPU time, or, for a
+	 * player timing its own calls (e.g., in its own JVM), as it measured it
+	 */
+	private long elapsed(long start) {
+		if(player instanceof TimedGinRummyPlayer) { return ((TimedGinRummyPlayer)player).drainCallTime(); }
+		return monitor.getThreadCpuTime(Thread.currentThread().getId()) - start;
+	}
+
+	/*
+	 * arms the watch of a call on the calling thread, or, for a player in its
+	 * own JVM, limits the call there; the seat of a context player is not
+	 * watched, as its thread may compute the decisions of other tables, and is
+	 * charged its share of each batch on return
+	 */
+	private CPUWatchdog.Watch watch() {
+		if(player instanceof RemoteGinRummyPlayer) { ((RemoteGinRummyPlayer)player).setLimit(timeBank); }
+		return timeBank < 0 || player instanceof GinRummyContextDispatcher.Seat ? null : CPUWatchdog.get().watch(timeBank);
+	}
+
+	/*
+	 * whether the call of a player in its own JVM exceeded its limit, its
+	 * JVM having been replaced
+	 */
+	private boolean expired() {
+		return player instanceof RemoteGinRummyPlayer && ((RemoteGinRummyPlayer)player).drainExpired();
+	}
+
+	/*
+	 */
+	private void charge(CPUWatchdog.Watch watch, String method, long time) {
+		calls += 1;
+		callTime += time;
+		if(metrics != null && TournamentMetrics.isDecision(method)) { metrics.decision(id, time); }
+		if(timeBank < 0) { return; }
+		if(watch != null) { watch.close(); }
+		timeBank -= time;
+		if(expired() || timeBank < 0 || (watch != null && watch.isExpired())) {
+			long overrun = -timeBank;
+			timeBank = 0;
+			throw new TimeBankExceededException(this, method, overrun);
+		}
+	}
+
 	/*
 	 */
 	private static PrintStream swapOut(PrintStream out) {
-		PrintStream old = System.out;
-		System.setOut(out);
-		return old;
+		return ThreadPrintStream.setOut(out);
 	}
 
 	/*
 	 */
 	private static PrintStream swapErr(PrintStream err) {
-		PrintStream old = System.err;
-		System.setErr(err);
-		return old;
+		return ThreadPrintStream.setErr(err);
 	}
 
 	/**
@@ -72,13 +270,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.startGame(playerNum, startingPlayerNum, cards);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "startGame", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "startGame", time);
 	}
 
 	/**
@@ -89,13 +289,22 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public boolean willDrawFaceUpCard(Card card) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
-		boolean ret = player.willDrawFaceUpCard(card);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		boolean ret;
+		try {
+			ret = player.willDrawFaceUpCard(card);
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
 		if(writer != null) {
 			writer.writeNext(new String[] { "willDrawFaceUpCard", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "willDrawFaceUpCard", time);
 		return ret;
 	}
 
@@ -109,13 +318,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportDraw(int playerNum, Card drawnCard) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportDraw(playerNum, drawnCard);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportDraw", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportDraw", time);
 	}
 
 	/**
@@ -127,13 +338,22 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public Card getDiscard() {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
-		Card ret = player.getDiscard();
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		Card ret;
+		try {
+			ret = player.getDiscard();
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
 		if(writer != null) {
 			writer.writeNext(new String[] { "getDiscard", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "getDiscard", time);
 		return ret;
 	}
 
@@ -146,13 +366,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportDiscard(int playerNum, Card discardedCard) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportDiscard(playerNum, discardedCard);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportDiscard", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportDiscard", time);
 	}
 
 	/**
@@ -165,13 +387,22 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public ArrayList<ArrayList<Card>> getFinalMelds() {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
-		ArrayList<ArrayList<Card>> ret = player.getFinalMelds();
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		ArrayList<ArrayList<Card>> ret;
+		try {
+			ret = player.getFinalMelds();
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
 		if(writer != null) {
 			writer.writeNext(new String[] { "getFinalMelds", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "getFinalMelds", time);
 		return ret;
 	}
 
@@ -183,13 +414,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportFinalMelds(playerNum, melds);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportFinalMelds", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportFinalMelds", time);
 	}
 
 	/**
@@ -199,13 +432,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportScores(int[] scores) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportScores(scores);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportScores", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportScores", time);
 	}
 
 	/**
@@ -217,13 +452,15 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportLayoff(playerNum, layoffCard, opponentMeld);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportLayoff", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportLayoff", time);
 	}
 
 	/**
@@ -234,13 +471,341 @@ public class GinRummyAgent implements GinRummyPlayer {
 	@Override
 	public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
 		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
 		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
 		player.reportFinalHand(playerNum, hand);
-		time = monitor.getThreadCpuTime(Thread.currentThread().getId()) - time;
+		time = elapsed(time);
 		if(writer != null) {
 			writer.writeNext(new String[] { "reportFinalHand", Integer.toString(id), Long.toString(time) });
 		}
 		swapOut(out); swapErr(err);
+		charge(watch, "reportFinalHand", time);
+	}
+
+	/**
+	 * Report the events of a batched turn and return whether or not player will draw the given face-up card.
+	 * The CPU time of the turn, including its reports, is measured as a single call.
+	 */
+	@Override
+	public boolean willDrawFaceUpCard(GinRummyTurn turn, Card card) {
+		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
+		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+		boolean ret;
+		try {
+			ret = turnPlayer.willDrawFaceUpCard(turn, card);
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
+		if(writer != null) {
+			writer.writeNext(new String[] { "willDrawFaceUpCard", Integer.toString(id), Long.toString(time) });
+		}
+		swapOut(out); swapErr(err);
+		charge(watch, "willDrawFaceUpCard", time);
+		return ret;
+	}
+
+	/**
+	 * Report the events of a batched turn and return the player's discarded card. The CPU time of the turn,
+	 * including its reports, is measured as a single call.
+	 */
+	@Override
+	public Card getDiscard(GinRummyTurn turn) {
+		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
+		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+		Card ret;
+		try {
+			ret = turnPlayer.getDiscard(turn);
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
+		if(writer != null) {
+			writer.writeNext(new String[] { "getDiscard", Integer.toString(id), Long.toString(time) });
+		}
+		swapOut(out); swapErr(err);
+		charge(watch, "getDiscard", time);
+		return ret;
+	}
+
+	/**
+	 * Report the events of a batched turn and return null if not knocking, or the player's final melds. The CPU
+	 * time of the turn, including its reports, is measured as a single call.
+	 */
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds(GinRummyTurn turn) {
+		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		Future<Long> ponder = opponentPonderStart();
+		CPUWatchdog.Watch watch = watch();
+		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+		ArrayList<ArrayList<Card>> ret;
+		try {
+			ret = turnPlayer.getFinalMelds(turn);
+			time = elapsed(time);
+		}
+		finally {
+					opponentPonderStop(ponder);
+		}
+		if(writer != null) {
+			writer.writeNext(new String[] { "getFinalMelds", Integer.toString(id), Long.toString(time) });
+		}
+		swapOut(out); swapErr(err);
+		charge(watch, "getFinalMelds", time);
+		return ret;
+	}
+
+	/**
+	 * Report the remaining events of a hand, measured as a single call.
+	 */
+	@Override
+	public void endHand(GinRummyTurn turn) {
+		PrintStream out = swapOut(this.out), err = swapErr(this.err);
+		CPUWatchdog.Watch watch = watch();
+		long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+		turnPlayer.endHand(turn);
+		time = elapsed(time);
+		if(writer != null) {
+			writer.writeNext(new String[] { "endHand", Integer.toString(id), Long.toString(time) });
+		}
+		swapOut(out); swapErr(err);
+		charge(watch, "endHand", time);
+	}
+
+	/**
+	 * Returns the agent as a GinRummyBitPlayer, for a player implementing
+	 * GinRummyBitPlayer (e.g., through a GinRummyBitAdapter): GinRummyGame
+	 * then reports to the player in ids and bitstrings, without copying or
+	 * converting to lists, with each call measured as for the GinRummyPlayer
+	 * methods.
+	 *
+	 * @return the agent, as a GinRummyPlayer and GinRummyBitPlayer
+	 * @throws IllegalStateException if the player is not a GinRummyBitPlayer
+	 */
+	public GinRummyPlayer asBitPlayer() {
+		if(!(player instanceof GinRummyBitPlayer)) { throw new IllegalStateException("player is not a GinRummyBitPlayer"); }
+		return new BitSeat((GinRummyBitPlayer)player);
+	}
+
+	/*
+	 * the agent, calling its player through the GinRummyBitPlayer methods
+	 */
+	private class BitSeat implements GinRummyPlayer, GinRummyBitPlayer {
+		/* */
+		private final GinRummyBitPlayer bitPlayer;
+
+		/*
+		 */
+		private BitSeat(GinRummyBitPlayer bitPlayer) {
+			this.bitPlayer = bitPlayer;
+		}
+
+		@Override
+		public void startGame(int playerNum, int startingPlayerNum, long hand) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.startGame(playerNum, startingPlayerNum, hand);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "startGame", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "startGame", time);
+		}
+
+		@Override
+		public boolean willDrawFaceUpCard(int card) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			Future<Long> ponder = opponentPonderStart();
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			boolean ret;
+			try {
+				ret = bitPlayer.willDrawFaceUpCard(card);
+				time = elapsed(time);
+			}
+			finally {
+							opponentPonderStop(ponder);
+			}
+			if(writer != null) {
+				writer.writeNext(new String[] { "willDrawFaceUpCard", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "willDrawFaceUpCard", time);
+			return ret;
+		}
+
+		@Override
+		public void reportDraw(int playerNum, int card) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.reportDraw(playerNum, card);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "reportDraw", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "reportDraw", time);
+		}
+
+		@Override
+		public int getDiscardId() {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			Future<Long> ponder = opponentPonderStart();
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			int ret;
+			try {
+				ret = bitPlayer.getDiscardId();
+				time = elapsed(time);
+			}
+			finally {
+							opponentPonderStop(ponder);
+			}
+			if(writer != null) {
+				writer.writeNext(new String[] { "getDiscard", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "getDiscard", time);
+			return ret;
+		}
+
+		@Override
+		public void reportDiscard(int playerNum, int card) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.reportDiscard(playerNum, card);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "reportDiscard", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "reportDiscard", time);
+		}
+
+		@Override
+		public long[] getFinalMeldBitstrings() {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			Future<Long> ponder = opponentPonderStart();
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			long[] ret;
+			try {
+				ret = bitPlayer.getFinalMeldBitstrings();
+				time = elapsed(time);
+			}
+			finally {
+				opponentPonderStop(ponder);
+			}
+			if(writer != null) {
+				writer.writeNext(new String[] { "getFinalMelds", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "getFinalMelds", time);
+			return ret;
+		}
+
+		@Override
+		public void reportFinalMelds(int playerNum, long[] melds) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.reportFinalMelds(playerNum, melds);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "reportFinalMelds", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "reportFinalMelds", time);
+		}
+
+		@Override
+		public void reportLayoff(int playerNum, int card, long opponentMeld) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.reportLayoff(playerNum, card, opponentMeld);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "reportLayoff", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "reportLayoff", time);
+		}
+
+		@Override
+		public void reportFinalHand(int playerNum, long hand) {
+			PrintStream out = swapOut(GinRummyAgent.this.out), err = swapErr(GinRummyAgent.this.err);
+			CPUWatchdog.Watch watch = watch();
+			long time = monitor.getThreadCpuTime(Thread.currentThread().getId());
+			bitPlayer.reportFinalHand(playerNum, hand);
+			time = elapsed(time);
+			if(writer != null) {
+				writer.writeNext(new String[] { "reportFinalHand", Integer.toString(id), Long.toString(time) });
+			}
+			swapOut(out); swapErr(err);
+			charge(watch, "reportFinalHand", time);
+		}
+
+		// GinRummyPlayer methods, measured by the agent
+
+		@Override
+		public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+			GinRummyAgent.this.startGame(playerNum, startingPlayerNum, cards);
+		}
+
+		@Override
+		public boolean willDrawFaceUpCard(Card card) {
+			return GinRummyAgent.this.willDrawFaceUpCard(card);
+		}
+
+		@Override
+		public void reportDraw(int playerNum, Card drawnCard) {
+			GinRummyAgent.this.reportDraw(playerNum, drawnCard);
+		}
+
+		@Override
+		public Card getDiscard() {
+			return GinRummyAgent.this.getDiscard();
+		}
+
+		@Override
+		public void reportDiscard(int playerNum, Card discardedCard) {
+			GinRummyAgent.this.reportDiscard(playerNum, discardedCard);
+		}
+
+		@Override
+		public ArrayList<ArrayList<Card>> getFinalMelds() {
+			return GinRummyAgent.this.getFinalMelds();
+		}
+
+		@Override
+		public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+			GinRummyAgent.this.reportFinalMelds(playerNum, melds);
+		}
+
+		@Override
+		public void reportScores(int[] scores) {
+			GinRummyAgent.this.reportScores(scores);
+		}
+
+		@Override
+		public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+			GinRummyAgent.this.reportLayoff(playerNum, layoffCard, opponentMeld);
+		}
+
+		@Override
+		public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+			GinRummyAgent.this.reportFinalHand(playerNum, hand);
+		}
 	}
 
 }
@@ -0,0 +1,336 @@
+package eaai.ginrummy;
+
+import com.sun.management.ThreadMXBean;
+import ginrummy.Card;
+import ginrummy.GinRummyContext;
+import ginrummy.GinRummyContextPlayer;
+import ginrummy.GinRummyDecision;
+import ginrummy.GinRummyGame;
+import ginrummy.SimpleGinRummyContextPlayer;
+import ginrummy.SimpleGinRummyPlayer;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Serves the games of a single {@link GinRummyContextPlayer} object through
+ * per-table GinRummyPlayer seats, each with a context of its own. All calls to
+ * the player are serialized; decisions are collected across the tables in a
+ * hand and passed to {@link GinRummyContextPlayer#decideBatch(List)} together.
+ * <p>
+ * A decision is dispatched once every table in a hand has a decision pending,
+ * or once the first pending decision has waited for the linger time, so a
+ * table whose game has stalled (or ended by forfeit) delays the others by at
+ * most the linger time. With a single table, every decision is dispatched
+ * immediately. The CPU time of a batch is shared equally by its decisions,
+ * each table being charged the share of its own decision whichever thread
+ * dispatched the batch.
+ */
+public class GinRummyContextDispatcher {
+	/* */
+	private final ThreadMXBean monitor = ((ThreadMXBean) (ManagementFactory.getThreadMXBean()));
+
+	/* */
+	private final GinRummyContextPlayer player;
+
+	/* longest wait for further decisions, in nanoseconds */
+	private final long linger;
+
+	/* decisions not yet dispatched */
+	private final List<GinRummyDecision> pending = new ArrayList<>();
+
+	/* CPU time shares of the decisions dispatched, until taken by their tables (kept here rather than on the decisions, which the player may modify) */
+	private final Map<GinRummyDecision, Long> shares = new HashMap<>();
+
+	/* number of contexts created */
+	private int contexts = 0;
+
+	/* number of tables within a hand */
+	private int active = 0;
+
+	/* number of batches dispatched, and of decisions within them */
+	private long batches = 0, decisions = 0;
+
+	/**
+	 * Creates a dispatcher for the given player, with a linger time of one
+	 * millisecond.
+	 *
+	 * @param player the context player
+	 */
+	public GinRummyContextDispatcher(GinRummyContextPlayer player) {
+		this(player, 1000000);
+	}
+
+	/**
+	 * Creates a dispatcher for the given player.
+	 *
+	 * @param player the context player
+	 * @param linger the longest wait for further decisions to batch, in
+	 * nanoseconds
+	 */
+	public GinRummyContextDispatcher(GinRummyContextPlayer player, long linger) {
+		this.player = player;
+		this.linger = linger;
+	}
+
+	/**
+	 * Opens a new table, with a context of its own.
+	 *
+	 * @return the GinRummyPlayer seat of the table
+	 */
+	public synchronized Seat open() {
+		return new Seat(new GinRummyContext(contexts++));
+	}
+
+	/**
+	 * Returns the mean number of decisions per batch so far.
+	 *
+	 * @return the mean batch size, or 0 if no batch has been dispatched
+	 */
+	public synchronized double getMeanBatchSize() {
+		return batches == 0 ? 0 : (double)decisions / batches;
+	}
+
+	/*
+	 * waits until the given decision has been made, dispatching the pending
+	 * decisions once all active tables have one (or upon lingering), and
+	 * returns the CPU time of the decision
+	 */
+	private synchronized long decide(GinRummyDecision decision) {
+		pending.add(decision);
+		notifyAll();
+		long deadline = System.nanoTime() + linger;
+		boolean interrupted = false;
+		while(!shares.containsKey(decision)) {
+			if(!pending.contains(decision)) { throw new IllegalStateException(String.format("decision batch for %s failed", decision.getContext())); }
+			long remaining = deadline - System.nanoTime();
+			if(pending.size() >= active || remaining <= 0) {
+				List<GinRummyDecision> batch = new ArrayList<>(pending);
+				pending.clear();
+				long time = monitor.getCurrentThreadCpuTime();
+				player.decideBatch(batch);
+				time = monitor.getCurrentThreadCpuTime() - time;
+				batches += 1;
+				decisions += batch.size();
+				for(GinRummyDecision d : batch) {
+					if(!d.isDecided()) { throw new IllegalStateException(String.format("decision for %s not made by decideBatch", d.getContext())); }
+				}
+				for(GinRummyDecision d : batch) { shares.put(d, time / batch.size()); }
+				notifyAll();
+				break;
+			}
+			try { wait(remaining / 1000000, (int)(remaining % 1000000)); }
+			catch(InterruptedException except) { interrupted = true; }
+		}
+		// the CPU time watchdog may interrupt a wait; leave it to the caller
+		if(interrupted) { Thread.currentThread().interrupt(); }
+		return shares.remove(decision);
+	}
+
+	/**
+	 * Plays games at several tables at once, each on its own thread, between a
+	 * table of a SimpleGinRummyContextPlayer and a SimpleGinRummyPlayer, and
+	 * reports the wins of the context player and the mean batch size.
+	 *
+	 * @param args the number of tables and of games per table (default 4 and
+	 * 250)
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int tables = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+		GinRummyContextDispatcher dispatcher = new GinRummyContextDispatcher(new SimpleGinRummyContextPlayer());
+		AtomicIntegerArray wins = new AtomicIntegerArray(2);
+		List<Thread> threads = new ArrayList<>();
+		long start = System.currentTimeMillis();
+		for(int t = 0; t < tables; t += 1) {
+			Seat seat = dispatcher.open();
+			Thread thread = new Thread(() -> {
+				try(Seat table = seat) {
+					GinRummyGame game = new GinRummyGame(table, new SimpleGinRummyPlayer());
+					for(int g = 0; g < games; g += 1) {
+						int[] scores = game.play();
+						wins.incrementAndGet(scores[0] > scores[1] ? 0 : 1);
+					}
+				}
+			}, "table-" + t);
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads) { thread.join(); }
+		System.out.printf("%d games played at %d tables in %d ms.\n", tables * games, tables, System.currentTimeMillis() - start);
+		System.out.printf("Games Won: context player:%d, simple player:%d.\n", wins.get(0), wins.get(1));
+		System.out.printf("Mean batch size: %.2f decisions.\n", dispatcher.getMeanBatchSize());
+	}
+
+	/**
+	 * A table of the dispatcher, playing as an ordinary GinRummyPlayer.
+	 */
+	public class Seat implements TimedGinRummyPlayer, Closeable {
+		/* */
+		private final GinRummyContext context;
+
+		/* whether the table is within a hand */
+		private boolean inHand = false;
+
+		/* CPU time of calls since the last drain, in nanoseconds */
+		private long callTime = 0;
+
+		/*
+		 */
+		private Seat(GinRummyContext context) {
+			this.context = context;
+		}
+
+		/**
+		 * Returns the context of the table.
+		 *
+		 * @return the context
+		 */
+		public GinRummyContext getContext() {
+			return context;
+		}
+
+		@Override
+		public long drainCallTime() {
+			long time = callTime;
+			callTime = 0;
+			return time;
+		}
+
+		/**
+		 * Ends the hand of the table, if within one. A game ended by forfeit
+		 * reports no scores, so its table is otherwise counted as within a
+		 * hand (delaying the decisions of the other tables) until reused.
+		 */
+		public void endHand() {
+			hand(false);
+		}
+
+		/*
+		 */
+		private void hand(boolean inHand) {
+			synchronized(GinRummyContextDispatcher.this) {
+				if(this.inHand == inHand) { return; }
+				this.inHand = inHand;
+				active += inHand ? 1 : -1;
+				GinRummyContextDispatcher.this.notifyAll();
+			}
+		}
+
+		/*
+		 */
+		private GinRummyDecision decide(int type, Card card) {
+			GinRummyDecision decision = new GinRummyDecision(type, context, card);
+			callTime += GinRummyContextDispatcher.this.decide(decision);
+			return decision;
+		}
+
+		/*
+		 */
+		private long start() {
+			return monitor.getCurrentThreadCpuTime();
+		}
+
+		/*
+		 */
+		private void stop(long start) {
+			callTime += monitor.getCurrentThreadCpuTime() - start;
+		}
+
+		@Override
+		public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+			hand(true);
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.startGame(context, playerNum, startingPlayerNum, cards);
+				stop(start);
+			}
+		}
+
+		@Override
+		public boolean willDrawFaceUpCard(Card card) {
+			return decide(GinRummyDecision.DRAW, card).getDrawFaceUp();
+		}
+
+		@Override
+		public void reportDraw(int playerNum, Card drawnCard) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportDraw(context, playerNum, drawnCard);
+				stop(start);
+			}
+		}
+
+		@Override
+		public Card getDiscard() {
+			return decide(GinRummyDecision.DISCARD, null).getDiscard();
+		}
+
+		@Override
+		public void reportDiscard(int playerNum, Card discardedCard) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportDiscard(context, playerNum, discardedCard);
+				stop(start);
+			}
+		}
+
+		@Override
+		public ArrayList<ArrayList<Card>> getFinalMelds() {
+			return decide(GinRummyDecision.MELDS, null).getMelds();
+		}
+
+		@Override
+		public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportFinalMelds(context, playerNum, melds);
+				stop(start);
+			}
+		}
+
+		@Override
+		public void reportScores(int[] scores) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportScores(context, scores);
+				stop(start);
+			}
+			hand(false);
+		}
+
+		@Override
+		public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportLayoff(context, playerNum, layoffCard, opponentMeld);
+				stop(start);
+			}
+		}
+
+		@Override
+		public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+			synchronized(GinRummyContextDispatcher.this) {
+				long start = start();
+				player.reportFinalHand(context, playerNum, hand);
+				stop(start);
+			}
+		}
+
+		/**
+		 * Closes the table, informing the player that its context is no longer
+		 * in use.
+		 */
+		@Override
+		public void close() {
+			hand(false);
+			synchronized(GinRummyContextDispatcher.this) {
+				player.closeContext(context);
+			}
+		}
+	}
+}
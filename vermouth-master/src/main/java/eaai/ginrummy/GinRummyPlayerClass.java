@@ -20,6 +20,7 @@
 package eaai.ginrummy;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.io.File;
 import java.net.JarURLConnection;
@@ -28,13 +29,22 @@ import java.net.URLClassLoader;
 import java.net.URLConnection;
 import java.net.URI;
 import java.net.MalformedURLException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import ginrummy.GinRummyBitAdapter;
+import ginrummy.GinRummyBitPlayer;
+import ginrummy.GinRummyContextPlayer;
 import ginrummy.GinRummyPlayer;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 /**
  * A container class and validation logic for loading GinRummyPlayer derived
- * classes at runtime through reflection.
+ * classes (or GinRummyContextPlayer and GinRummyBitPlayer classes) at
+ * runtime through reflection.
  *
  * @author Jason Hiebel
  * @version 1.0
@@ -47,17 +57,30 @@ public class GinRummyPlayerClass {
 	/* base class file path */
 	private final String path;
 
-	/* loaded GinRummyPlayer class */
-	private final Class<? extends GinRummyPlayer> player;
+	/* loaded GinRummyPlayer, GinRummyContextPlayer or GinRummyBitPlayer class */
+	private final Class<?> player;
+
+	/* the specification the class was loaded from */
+	private String spec;
+
+	/* child JVM options if instances are isolated, null otherwise */
+	private String isolation = null;
+
+	/* the jar the class was loaded from, or null if loaded from a directory */
+	private Path jar = null;
+
+	/* content hash of the class, computed on first use */
+	private String hash = null;
 
 	/**
 	 * Initialize the GinRummyPlayerClass with the loaded GinRummyPlayer class
 	 * file and the associated path to the class file.
 	 *
 	 * @param path base class file path
-	 * @param player loaded GinRummyPlayer class
+	 * @param player loaded GinRummyPlayer, GinRummyContextPlayer or
+	 * GinRummyBitPlayer class
 	 */
-	public GinRummyPlayerClass(String path, Class<? extends GinRummyPlayer> player) {
+	public GinRummyPlayerClass(String path, Class<?> player) {
 		this.path = path;
 		this.player = player;
 	}
@@ -79,13 +102,51 @@ public class GinRummyPlayerClass {
 	}
 
 	/**
-	 * Returns a new instance of the loaded GinRummyPlayer class.
+	 * Sets whether new instances are isolated, each running in its own child
+	 * JVM (see {@link RemoteGinRummyPlayer}) rather than in this JVM.
+	 *
+	 * @param jvmOptions the child JVM options, separated by whitespace (e.g.,
+	 * "-Xmx512m -XX:+UseSerialGC"), or null for instances in this JVM
+	 */
+	public void setIsolation(String jvmOptions) {
+		this.isolation = jvmOptions;
+	}
+
+	/**
+	 * Returns whether new instances are isolated in their own child JVM.
+	 *
+	 * @return true if new instances are isolated
+	 */
+	public boolean isIsolated() {
+		return isolation != null;
+	}
+
+	/**
+	 * Returns whether the loaded class is a GinRummyContextPlayer class, whose
+	 * instances can each serve many games at once.
+	 *
+	 * @return true if the loaded class is a GinRummyContextPlayer class
+	 */
+	public boolean isContextPlayer() {
+		return GinRummyContextPlayer.class.isAssignableFrom(player);
+	}
+
+	/**
+	 * Returns a new instance of the loaded GinRummyPlayer class, or, if
+	 * isolated, a remote player hosting a new instance in a child JVM. For a
+	 * GinRummyContextPlayer class, the instance is the single table of a
+	 * dispatcher for a new instance of the class; for a class implementing
+	 * only GinRummyBitPlayer, it is adapted by a GinRummyBitAdapter.
 	 *
 	 * @return a new instance of the loaded GinRummyPlayer class
 	 */
 	public GinRummyPlayer newInstance() {
+		if(isolation != null) { return new RemoteGinRummyPlayer(spec, isolation); }
+		if(isContextPlayer()) { return new GinRummyContextDispatcher(newContextInstance()).open(); }
 		try {
-			return player.newInstance();
+			Object instance = player.newInstance();
+			if(!(instance instanceof GinRummyPlayer)) { return new GinRummyBitAdapter((GinRummyBitPlayer)instance); }
+			return (GinRummyPlayer)instance;
 		}
 		catch(InstantiationException|IllegalAccessException except) {
 			LOG.fatal("could not instantiate player", except);
@@ -94,6 +155,65 @@ public class GinRummyPlayerClass {
 		return null;
 	}
 
+	/**
+	 * Returns a new instance of the loaded GinRummyContextPlayer class, in
+	 * this JVM.
+	 *
+	 * @return a new instance of the loaded GinRummyContextPlayer class
+	 */
+	public GinRummyContextPlayer newContextInstance() {
+		try {
+			return (GinRummyContextPlayer)player.getDeclaredConstructor().newInstance();
+		}
+		catch(ReflectiveOperationException except) {
+			LOG.fatal("could not instantiate player", except);
+			System.exit(1);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a content hash of the class: the SHA-256 digest of the class
+	 * name and the bytes of its jar, or, for a class loaded from a directory,
+	 * of the class files under the directory (and their paths). Any change to
+	 * the agent's code changes the hash; data files of an agent loaded from a
+	 * directory are not included.
+	 *
+	 * @return the hash, as 64 hexadecimal digits
+	 */
+	public synchronized String hash() {
+		if(hash != null) { return hash; }
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(player.getName().getBytes(StandardCharsets.UTF_8));
+			if(jar != null) {
+				digest.update(Files.readAllBytes(jar));
+			}
+			else {
+				Path root = Paths.get(path);
+				List<Path> classes;
+				try(Stream<Path> files = Files.walk(root)) {
+					classes = files.filter(file -> file.toString().endsWith(".class") && Files.isRegularFile(file)).sorted().collect(Collectors.toList());
+				}
+				for(Path file : classes) {
+					digest.update(root.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+					digest.update(Files.readAllBytes(file));
+				}
+			}
+			StringBuilder hex = new StringBuilder();
+			for(byte b : digest.digest()) { hex.append(String.format("%02x", b)); }
+			hash = hex.toString();
+		}
+		catch(IOException except) {
+			LOG.fatal("could not read the player's code to hash it", except);
+			System.exit(1);
+		}
+		catch(NoSuchAlgorithmException except) {
+			throw new IllegalStateException("SHA-256 is unavailable", except);
+		}
+		return hash;
+	}
+
 	/*
 	 */
 	@Override
@@ -103,12 +223,13 @@ public class GinRummyPlayerClass {
 
 	/**
 	 * Verifies the loaded class as a GinRummyPlayer class instance. Checks
-	 * that the loaded class is derived from GinRummyPlayer and has a default
-	 * (empty) constructor.
+	 * that the loaded class is derived from GinRummyPlayer (or
+	 * GinRummyContextPlayer or GinRummyBitPlayer) and has a default (empty)
+	 * constructor.
 	 *
-	 * @return a verified instance of the loaded class, cast as a GinRummyPlayer
+	 * @return the verified loaded class
 	 */
-	public static Class<? extends GinRummyPlayer> verify(Class<?> player) {
+	public static Class<?> verify(Class<?> player) {
 		LOG.debug("{} ({} / {}) available.",
 			player,
 			player.getCanonicalName(),
@@ -120,7 +241,9 @@ public class GinRummyPlayerClass {
 			player.getConstructor();
 			LOG.debug("default (no argument) constructor found.");
 
-			// verify class cast and return cast
+			// verify class cast
+			if(GinRummyContextPlayer.class.isAssignableFrom(player)) { return player; }
+			if(GinRummyBitPlayer.class.isAssignableFrom(player)) { return player; }
 			return player.asSubclass(GinRummyPlayer.class);
 		}
 		catch(NoSuchMethodException except) {
@@ -157,8 +280,10 @@ public class GinRummyPlayerClass {
 			LOG.trace("class loader established");
 
 			String name = Paths.get(connection.getJarFileURL().getPath()).toAbsolutePath().normalize().toString();
-			Class<? extends GinRummyPlayer> player = verify(loader.loadClass(connection.getEntryName()));
-			return new GinRummyPlayerClass(name, player);
+			Class<?> player = verify(loader.loadClass(connection.getEntryName()));
+			GinRummyPlayerClass playerClass = new GinRummyPlayerClass(name, player);
+			playerClass.jar = Paths.get(name);
+			return playerClass;
 		}
 		catch(IOException except) {
 			LOG.fatal("could not open the specified jar!", except);
@@ -194,7 +319,7 @@ public class GinRummyPlayerClass {
 			LOG.trace("class loader established");
 
 			String name = String.format("%s", path.getParent().toString());
-			Class<? extends GinRummyPlayer> player = verify(loader.loadClass(path.getFileName().toString()));
+			Class<?> player = verify(loader.loadClass(path.getFileName().toString()));
 			return new GinRummyPlayerClass(name, player);
 		}
 		catch(IOException except) {
@@ -230,6 +355,7 @@ public class GinRummyPlayerClass {
 					throw new MalformedURLException(String.format("unknown protocol %s", url.getProtocol()));
 			}
 
+			player.spec = file;
 			LOG.info("player {} loaded.", player);
 			return player;
 		}
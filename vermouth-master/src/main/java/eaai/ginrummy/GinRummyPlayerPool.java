@@ -0,0 +1,161 @@
+package eaai.ginrummy;
+
+import ginrummy.GinRummyPlayer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * A bounded pool of instances of a single GinRummyPlayer class. Instances are
+ * created lazily through {@link GinRummyPlayerClass#newInstance()} as they are
+ * first needed, up to the pool size, and are reused once released. With a pool
+ * size of one, every match shares a single instance (the tournament default);
+ * larger pools let matches involving the same agent run concurrently, each
+ * with an instance of its own. For a GinRummyContextPlayer class, the
+ * instances are instead tables of a single shared player object, which
+ * receives the decisions of concurrent matches in batches.
+ * <p>
+ * Pools are safe for use by multiple threads; acquiring an instance blocks
+ * while all instances are in use.
+ */
+public class GinRummyPlayerPool implements Closeable {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(GinRummyPlayerPool.class);
+
+	/* */
+	private final GinRummyPlayerClass type;
+
+	/* */
+	private final int size;
+
+	/* dispatcher shared by all instances of a context player, null otherwise */
+	private final GinRummyContextDispatcher dispatcher;
+
+	/* instances not in use */
+	private final ArrayDeque<GinRummyPlayer> idle = new ArrayDeque<>();
+
+	/* all instances created */
+	private final List<GinRummyPlayer> instances = new ArrayList<>();
+
+	/* number of instances created or being created */
+	private int created = 0;
+
+	/**
+	 * Creates an empty pool of at most the given number of instances.
+	 *
+	 * @param type the player class
+	 * @param size the maximum number of instances
+	 */
+	public GinRummyPlayerPool(GinRummyPlayerClass type, int size) {
+		if(size < 1) { throw new IllegalArgumentException("pool size must be positive"); }
+		this.type = type;
+		this.size = size;
+		this.dispatcher = type.isContextPlayer() && !type.isIsolated() ? new GinRummyContextDispatcher(type.newContextInstance()) : null;
+	}
+
+	/**
+	 * Returns the player class of the pool.
+	 *
+	 * @return the player class
+	 */
+	public GinRummyPlayerClass getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the maximum number of instances of the pool.
+	 *
+	 * @return the maximum number of instances
+	 */
+	public int size() {
+		return size;
+	}
+
+	/*
+	 */
+	private GinRummyPlayer create() {
+		GinRummyPlayer player = null;
+		try {
+			player = dispatcher != null ? dispatcher.open() : type.newInstance();
+			return player;
+		}
+		finally {
+			synchronized(this) {
+				if(player == null) { created -= 1; notifyAll(); }
+				else { instances.add(player); }
+			}
+		}
+	}
+
+	/**
+	 * Creates instances up to the given count ahead of their first use, e.g.,
+	 * to keep agent construction (and class loading, or JVM start-up for
+	 * isolated agents) out of the first games.
+	 *
+	 * @param count the number of instances to have created, capped at the pool
+	 * size
+	 */
+	public void prewarm(int count) {
+		while(true) {
+			synchronized(this) {
+				if(created >= Math.min(count, size)) { return; }
+				created += 1;
+			}
+			GinRummyPlayer player = create();
+			synchronized(this) {
+				idle.push(player);
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Acquires an instance, reusing an idle instance if there is one, creating
+	 * an instance if the pool is not full, and otherwise waiting for an
+	 * instance to be released.
+	 *
+	 * @return an instance for the exclusive use of the caller until released
+	 */
+	public GinRummyPlayer acquire() {
+		synchronized(this) {
+			while(idle.isEmpty() && created >= size) {
+				try { wait(); }
+				catch(InterruptedException except) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while waiting for a player instance", except);
+				}
+			}
+			if(!idle.isEmpty()) { return idle.pop(); }
+			created += 1;
+		}
+		return create();
+	}
+
+	/**
+	 * Returns an acquired instance to the pool.
+	 *
+	 * @param player the instance
+	 */
+	public synchronized void release(GinRummyPlayer player) {
+		idle.push(player);
+		notifyAll();
+	}
+
+	/**
+	 * Closes every closeable instance (e.g., isolated agents, or the tables of
+	 * a context player) created by the pool.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		for(GinRummyPlayer player : instances) {
+			if(player instanceof Closeable) { ((Closeable)player).close(); }
+		}
+		instances.clear();
+		idle.clear();
+		if(dispatcher != null) { LOG.info("{} decided in batches of {} decisions on average", type, String.format("%.2f", dispatcher.getMeanBatchSize())); }
+	}
+}
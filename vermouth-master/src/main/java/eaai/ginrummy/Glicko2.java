@@ -0,0 +1,204 @@
+package eaai.ginrummy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Glicko-2 ratings of a set of players (Glickman, "Example of the Glicko-2
+ * system"), updated once per rating period from the games of the period.
+ * Besides its rating, each player has a rating deviation (RD), the
+ * uncertainty of its rating, which shrinks as the player plays and grows
+ * while it does not, and a volatility, the degree of expected fluctuation of
+ * its rating, which grows when its results are erratic.
+ * <p>
+ * Ratings start at 1000 (rather than Glicko's 1500, to match the Elo
+ * rankings and Bradley-Terry ratings of the tournament) with an RD of 350 and
+ * a volatility of 0.06; the system constant tau, which constrains changes in
+ * volatility, is 0.5.
+ */
+public class Glicko2 implements Serializable {
+	/* */
+	private static final long serialVersionUID = 1L;
+
+	/** initial rating, deviation and volatility */
+	public static final double RATING = 1000, DEVIATION = 350, VOLATILITY = 0.06;
+
+	/* system constant, conversion to the Glicko-2 scale, and convergence tolerance of the volatility */
+	private static final double TAU = 0.5, SCALE = 400 / Math.log(10), EPSILON = 1e-6;
+
+	/* */
+	private final int players;
+
+	/* ratings and deviations, on the Glicko-2 scale, and volatilities */
+	private final double[] mu, phi, sigma;
+
+	/* games of the current period: the opponent and score of each game of each player */
+	private final List<List<double[]>> period = new ArrayList<>();
+
+	/**
+	 * Creates the initial ratings of the given number of players.
+	 *
+	 * @param players the number of players
+	 */
+	public Glicko2(int players) {
+		this.players = players;
+		this.mu = new double[players];
+		this.phi = new double[players];
+		this.sigma = new double[players];
+		for(int p = 0; p < players; p += 1) {
+			phi[p] = DEVIATION / SCALE;
+			sigma[p] = VOLATILITY;
+			period.add(new ArrayList<>());
+		}
+	}
+
+	/**
+	 * Adds the result of a game to the current rating period.
+	 *
+	 * @param p0 the first player
+	 * @param p1 the second player
+	 * @param score the score of the first player (1 for a win, 0 for a loss,
+	 * 1/2 for a draw)
+	 */
+	public synchronized void add(int p0, int p1, double score) {
+		period.get(p0).add(new double[] { p1, score });
+		period.get(p1).add(new double[] { p0, 1 - score });
+	}
+
+	/**
+	 * Ends the current rating period, updating every player from its games
+	 * of the period against the ratings of its opponents at the start of the
+	 * period. The deviation of a player without games grows by its
+	 * volatility.
+	 */
+	public synchronized void update() {
+		double[] mu = this.mu.clone(), phi = this.phi.clone(), sigma = this.sigma.clone();
+		for(int p = 0; p < players; p += 1) {
+			List<double[]> games = period.get(p);
+			if(games.isEmpty()) {
+				this.phi[p] = Math.sqrt(phi[p] * phi[p] + sigma[p] * sigma[p]);
+				continue;
+			}
+			// estimated variance of the rating from the games, and the estimated improvement
+			double variance = 0, improvement = 0;
+			for(double[] game : games) {
+				int o = (int)game[0];
+				double g = g(phi[o]), e = 1 / (1 + Math.exp(-g * (mu[p] - mu[o])));
+				variance += g * g * e * (1 - e);
+				improvement += g * (game[1] - e);
+			}
+			double v = 1 / variance, delta = v * improvement;
+			this.sigma[p] = volatility(phi[p], sigma[p], v, delta);
+			double pre = Math.sqrt(phi[p] * phi[p] + this.sigma[p] * this.sigma[p]);
+			this.phi[p] = 1 / Math.sqrt(1 / (pre * pre) + 1 / v);
+			this.mu[p] = mu[p] + this.phi[p] * this.phi[p] * improvement;
+			games.clear();
+		}
+	}
+
+	/*
+	 * the weight of a game against an opponent of the given deviation
+	 */
+	private static double g(double phi) {
+		return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+	}
+
+	/*
+	 * the new volatility of a player, by the Illinois algorithm
+	 */
+	private static double volatility(double phi, double sigma, double v, double delta) {
+		double a = Math.log(sigma * sigma);
+		double A = a, B;
+		if(delta * delta > phi * phi + v) {
+			B = Math.log(delta * delta - phi * phi - v);
+		}
+		else {
+			int k = 1;
+			while(f(a - k * TAU, a, phi, v, delta) < 0) { k += 1; }
+			B = a - k * TAU;
+		}
+		double fA = f(A, a, phi, v, delta), fB = f(B, a, phi, v, delta);
+		while(Math.abs(B - A) > EPSILON) {
+			double C = A + (A - B) * fA / (fB - fA), fC = f(C, a, phi, v, delta);
+			if(fC * fB <= 0) {
+				A = B;
+				fA = fB;
+			}
+			else {
+				fA /= 2;
+			}
+			B = C;
+			fB = fC;
+		}
+		return Math.exp(A / 2);
+	}
+
+	/*
+	 * the function whose root is the log of the new squared volatility
+	 */
+	private static double f(double x, double a, double phi, double v, double delta) {
+		double ex = Math.exp(x), d = phi * phi + v + ex;
+		return ex * (delta * delta - phi * phi - v - ex) / (2 * d * d) - (x - a) / (TAU * TAU);
+	}
+
+	/**
+	 * Returns the ratings of the players.
+	 *
+	 * @return the ratings, on the Elo scale
+	 */
+	public synchronized double[] ratings() {
+		double[] ratings = new double[players];
+		for(int p = 0; p < players; p += 1) { ratings[p] = RATING + SCALE * mu[p]; }
+		return ratings;
+	}
+
+	/**
+	 * Returns the rating deviations of the players.
+	 *
+	 * @return the deviations, in Elo points
+	 */
+	public synchronized double[] deviations() {
+		double[] deviations = new double[players];
+		for(int p = 0; p < players; p += 1) { deviations[p] = SCALE * phi[p]; }
+		return deviations;
+	}
+
+	/**
+	 * Returns the volatilities of the players.
+	 *
+	 * @return the volatilities
+	 */
+	public synchronized double[] volatilities() {
+		return sigma.clone();
+	}
+
+	/**
+	 * Checks the ratings against the worked example of Glickman's paper: a
+	 * player rated 1500 (RD 200) who beats a player rated 1400 (RD 30) and
+	 * loses to players rated 1550 (RD 100) and 1700 (RD 300) is rated 1464.05
+	 * (RD 151.52, volatility 0.05999) after the period, to the precision of
+	 * the paper. Exits with status 1 if the ratings differ.
+	 *
+	 * @param args unused
+	 */
+	public static void main(String[] args) {
+		double[][] example = { { 1500, 200 }, { 1400, 30 }, { 1550, 100 }, { 1700, 300 } };
+		Glicko2 glicko = new Glicko2(example.length);
+		for(int p = 0; p < example.length; p += 1) {
+			glicko.mu[p] = (example[p][0] - RATING) / SCALE;
+			glicko.phi[p] = example[p][1] / SCALE;
+		}
+		glicko.add(0, 1, 1);
+		glicko.add(0, 2, 0);
+		glicko.add(0, 3, 0);
+		glicko.update();
+
+		double rating = glicko.ratings()[0], deviation = glicko.deviations()[0], volatility = glicko.volatilities()[0];
+		System.out.printf("rating %.2f, RD %.2f, volatility %.6f (expected 1464.05, 151.52, 0.05999)\n", rating, deviation, volatility);
+		if(Math.abs(rating - 1464.05) > 0.01 || Math.abs(deviation - 151.52) > 0.01 || Math.abs(volatility - 0.05999) > 0.00001) {
+			System.err.println("Glicko-2 ratings differ from Glickman's example");
+			System.exit(1);
+		}
+	}
+}
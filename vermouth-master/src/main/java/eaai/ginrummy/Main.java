@@ -23,6 +23,8 @@ import ginrummy.GinRummyGame;
 import ginrummy.GinRummyPlayer;
 import eaai.ginrummy.util.StubPrintStream;
 import eaai.ginrummy.util.FileMap;
+import eaai.ginrummy.util.Journal;
+import eaai.ginrummy.util.SPRT;
 import java.io.PrintStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -67,6 +69,182 @@ public class Main {
 			.desc("output game details")
 			.build());
 
+		opt.addOption(Option.builder("r")
+			.longOpt("record")
+			.desc("write a binary game record stream for each match")
+			.build());
+
+		opt.addOption(Option.builder("b")
+			.longOpt("batch")
+			.desc("deliver game events to every agent in batched turns, one measured call per decision")
+			.build());
+
+		opt.addOption(Option.builder("i")
+			.longOpt("isolate")
+			.hasArg()
+			.optionalArg(true)
+			.argName("jvm options")
+			.desc("run each agent instance in its own child JVM, with the given JVM options (e.g., \"-Xmx512m\")")
+			.build());
+
+		opt.addOption(Option.builder("p")
+			.longOpt("pool")
+			.hasArg()
+			.argName("n")
+			.desc("maximum number of instances of each agent (default the number of threads, shared by all of its matches)")
+			.build());
+
+		opt.addOption(Option.builder("pw")
+			.longOpt("prewarm")
+			.desc("create all agent instances before the first game")
+			.build());
+
+		opt.addOption(Option.builder("wu")
+			.longOpt("warmup")
+			.hasArg()
+			.argName("games")
+			.desc("number of unmeasured warm-up games played by each agent instance before the tournament (default 0)")
+			.build());
+
+		opt.addOption(Option.builder("wt")
+			.longOpt("warmuptolerance")
+			.hasArg()
+			.argName("pct")
+			.desc("continue warm-up until the mean call time changes by at most pct percent between games, up to 4 times the warm-up games")
+			.build());
+
+		opt.addOption(Option.builder("sp")
+			.longOpt("sprt")
+			.hasArg()
+			.argName("h0:h1")
+			.desc("end each match once a sequential probability ratio test decides between the hypotheses that the first agent is h0 or h1 Elo stronger (or, given as percentages, that its expected score is h0% or h1%)")
+			.build());
+
+		opt.addOption(Option.builder("sa")
+			.longOpt("sprtalpha")
+			.hasArg()
+			.argName("alpha")
+			.desc("probability of the test accepting h1 when h0 holds (default 0.05)")
+			.build());
+
+		opt.addOption(Option.builder("sb")
+			.longOpt("sprtbeta")
+			.hasArg()
+			.argName("beta")
+			.desc("probability of the test accepting h0 when h1 holds (default 0.05)")
+			.build());
+
+		opt.addOption(Option.builder("ad")
+			.longOpt("adaptive")
+			.desc("pair the agents of each Elo round by expected information, at most one game per agent, rather than in a full round robin")
+			.build());
+
+		opt.addOption(Option.builder("gl")
+			.longOpt("glicko")
+			.desc("rank the agents of an Elo tournament by Glicko-2, each round being a rating period, reporting rating deviations and volatilities in rounds.csv")
+			.build());
+
+		opt.addOption(Option.builder("cd")
+			.longOpt("converged")
+			.hasArg()
+			.argName("rd")
+			.desc("with --glicko, do not pair agents whose rating deviations are both below rd, ending the tournament once all are (default 0, disabled)")
+			.build());
+
+		opt.addOption(Option.builder("st")
+			.longOpt("stability")
+			.hasArg()
+			.argName("elo")
+			.desc("end an Elo tournament once the average rankings keep their order and change by less than elo points for 3 consecutive rounds (default 0, disabled)")
+			.build());
+
+		opt.addOption(Option.builder("ck")
+			.longOpt("checkpoint")
+			.hasArg()
+			.argName("s")
+			.desc("journal results and checkpoint the tournament state beside the output archive at most every s seconds (0 after every match or round)")
+			.build());
+
+		opt.addOption(Option.builder("rs")
+			.longOpt("resume")
+			.desc("resume the tournament of the given identifier from its last checkpoint")
+			.build());
+
+		opt.addOption(Option.builder("cs")
+			.longOpt("costs")
+			.hasArg()
+			.argName("archive")
+			.desc("estimate the cost of each agent from the stats.csv of a previous tournament of the same agents (an archive or the file), and start the longest matches first")
+			.build());
+
+		opt.addOption(Option.builder("sl")
+			.longOpt("split")
+			.desc("split matches estimated to take more than a quarter of the work per thread into chunks of games, dealt from their own seeds (requires costs, from --costs or --warmup)")
+			.build());
+
+		opt.addOption(Option.builder("ca")
+			.longOpt("cache")
+			.hasArg()
+			.argName("dir")
+			.desc("reuse the results of matches stored in the given directory, keyed by the content hashes of their agents, the seed and the game settings, and store the matches played (one-vs-all and round-robin tournaments; requires a seed)")
+			.build());
+
+		opt.addOption(Option.builder("co")
+			.longOpt("coordinator")
+			.hasArg()
+			.argName("port")
+			.desc("dispatch the matches of a one-vs-all or round-robin tournament to worker processes connecting on the given port, rather than playing them")
+			.build());
+
+		opt.addOption(Option.builder("cb")
+			.longOpt("bind")
+			.hasArg()
+			.argName("address")
+			.desc("address the coordinator listens on for workers (default the loopback address; e.g., 0.0.0.0 for all interfaces, on trusted networks only)")
+			.build());
+
+		opt.addOption(Option.builder("wk")
+			.longOpt("worker")
+			.hasArg()
+			.argName("host:port")
+			.desc("play matches for the coordinator at host:port, which must be given the same tournament options, rather than running the tournament")
+			.build());
+
+		opt.addOption(Option.builder("ls")
+			.longOpt("lease")
+			.hasArg()
+			.argName("s")
+			.desc("time a worker may go unheard from before its matches are dispatched to other workers (default 30 seconds)")
+			.build());
+
+		opt.addOption(Option.builder("sg")
+			.longOpt("stall")
+			.hasArg()
+			.argName("s")
+			.desc("time a match of a worker may go without completing a game before the worker gives up its matches to other workers (default none, leaving hung agents to the time bank)")
+			.build());
+
+		opt.addOption(Option.builder("mp")
+			.longOpt("metricsport")
+			.hasArg()
+			.argName("port")
+			.desc("serve live metrics of the tournament in the Prometheus text format at http://localhost:<port>/metrics (they are always published over JMX)")
+			.build());
+
+		opt.addOption(Option.builder("bs")
+			.longOpt("bootstrap")
+			.hasArg()
+			.argName("n")
+			.desc("number of bootstrap replicates of the 95% confidence intervals of the win rates, ratings and ranks written to ci.csv (default 1000, 0 to disable)")
+			.build());
+
+		opt.addOption(Option.builder("t")
+			.longOpt("threads")
+			.hasArg()
+			.argName("n")
+			.desc("number of games played concurrently (default 1); the pool size defaults to the same number")
+			.build());
+
 		opt.addOption(Option.builder("l")
 			.longOpt("log")
 			.hasArg()
@@ -95,8 +273,20 @@ public class Main {
 				.longOpt("elo")
 				.argName("elo")
 				.desc("run a Elo-scored competition between the competitors")
+				.build())
+			.addOption(Option.builder("sw")
+				.longOpt("swiss")
+				.argName("swiss")
+				.desc("run a Swiss-system competition, pairing competitors of similar standing who have not met")
 				.build()));
 
+		opt.addOption(Option.builder("sr")
+			.longOpt("swissrounds")
+			.hasArg()
+			.argName("rounds")
+			.desc("number of rounds of a Swiss-system competition (default log2 of the number of competitors, rounded up)")
+			.build());
+
 		/* specify competition parameters */
 		opt.addOption(Option.builder("id")
 			.longOpt("identifier")
@@ -120,6 +310,27 @@ public class Main {
 			.desc("number of games to evaluate per match")
 			.build());
 
+		opt.addOption(Option.builder("tb")
+			.longOpt("timebank")
+			.hasArg()
+			.argName("ms")
+			.desc("per-game CPU time bank of each agent, in milliseconds; exhausting it forfeits the game (default unlimited)")
+			.build());
+
+		opt.addOption(Option.builder("mh")
+			.longOpt("maxhands")
+			.hasArg()
+			.argName("hands")
+			.desc("maximum number of hands per game; a game reaching it is won on score or drawn (default unlimited)")
+			.build());
+
+		opt.addOption(Option.builder("mmh")
+			.longOpt("maxmatchhands")
+			.hasArg()
+			.argName("hands")
+			.desc("maximum number of hands per match; no further games are played once reached (default unlimited)")
+			.build());
+
 		/* specify competitor agents */
 		opt.addOption(Option.builder("a")
 			.longOpt("agents")
@@ -132,6 +343,15 @@ public class Main {
 		return opt;
 	}
 
+	/*
+	 * the expected score of an sprt hypothesis, given as an Elo difference or
+	 * as a percentage (e.g., "55%")
+	 */
+	private static double expectedScore(String hypothesis) {
+		if(hypothesis.endsWith("%")) { return Double.parseDouble(hypothesis.substring(0, hypothesis.length() - 1)) / 100; }
+		return SPRT.expectedScore(Double.parseDouble(hypothesis));
+	}
+
 	/**
 	 */
 	public static void main(String[] args) throws ParseException, ClassNotFoundException, InstantiationException, IllegalAccessException {
@@ -154,6 +374,7 @@ public class Main {
 			if(cmd.hasOption("1v")) { type = "1v"; }
 			if(cmd.hasOption("rr")) { type = "rr"; }
 			if(cmd.hasOption("el")) { type = "el"; }
+			if(cmd.hasOption("sw")) { type = "sw"; }
 			switch(type) {
 				default:   LOG.warn("no competition type specified, setting one-vs-all as default");
 				case "1v": LOG.info("competition type: one-vs-all");
@@ -162,17 +383,169 @@ public class Main {
 					break;
 				case "el": LOG.info("competition type: elo");
 					break;
+				case "sw": LOG.info("competition type: swiss");
+					break;
 			}
 
 			/* competition parameters */
 			String identifier = cmd.getOptionValue("id", (new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss-SSS")).format(new Date()));
 			int games = Integer.parseInt(cmd.getOptionValue("g", "1"));
 			boolean verbose = cmd.hasOption("v");
-			LOG.info("competition parameters: id ({}), rounds ({}), verbose ({})", identifier, games, verbose);
+			boolean record = cmd.hasOption("r");
+			boolean batched = cmd.hasOption("b");
+			long timeBank = Long.parseLong(cmd.getOptionValue("tb", "-1"));
+			int maxHands = Integer.parseInt(cmd.getOptionValue("mh", "0"));
+			int maxMatchHands = Integer.parseInt(cmd.getOptionValue("mmh", "0"));
+			int threads = Integer.parseInt(cmd.getOptionValue("t", "1"));
+			boolean adaptive = cmd.hasOption("ad");
+			double stability = Double.parseDouble(cmd.getOptionValue("st", "0"));
+			boolean glicko = cmd.hasOption("gl");
+			double convergedDeviation = Double.parseDouble(cmd.getOptionValue("cd", "0"));
+			if(convergedDeviation > 0 && !glicko) {
+				LOG.fatal("rating convergence requires Glicko-2 ratings");
+				System.exit(1);
+			}
+			SPRT sprt = null;
+			if(cmd.hasOption("sp")) {
+				String[] hypotheses = cmd.getOptionValue("sp").split(":");
+				if(hypotheses.length != 2) {
+					LOG.error("sprt hypotheses must be given as h0:h1");
+					System.exit(1);
+				}
+				double alpha = Double.parseDouble(cmd.getOptionValue("sa", "0.05"));
+				double beta = Double.parseDouble(cmd.getOptionValue("sb", "0.05"));
+				try {
+					sprt = new SPRT(expectedScore(hypotheses[0]), expectedScore(hypotheses[1]), alpha, beta);
+				}
+				catch(IllegalArgumentException except) {
+					LOG.error("invalid sprt parameters!", except);
+					System.exit(1);
+				}
+			}
+			int poolSize = Integer.parseInt(cmd.getOptionValue("p", Integer.toString(threads)));
+			boolean prewarm = cmd.hasOption("pw");
+			int warmup = Integer.parseInt(cmd.getOptionValue("wu", "0"));
+			double warmupTolerance = Double.parseDouble(cmd.getOptionValue("wt", "0"));
+			LOG.info("competition parameters: id ({}), rounds ({}), verbose ({}), record ({}), batched ({}), time bank ({} ms), hand limits ({} per game, {} per match), pool ({}, prewarm {}), warm-up ({} games, {}% tolerance), threads ({}), sprt ({}), adaptive ({}, stability {}), glicko ({}, converged {})", identifier, games, verbose, record, batched, timeBank, maxHands, maxMatchHands, poolSize, prewarm, warmup, warmupTolerance, threads, sprt, adaptive, stability, glicko, convergedDeviation);
+
+			/* cost-aware scheduling */
+			double[] costs = null;
+			if(cmd.hasOption("cs")) {
+				try {
+					costs = CostEstimate.fromStats(Paths.get(cmd.getOptionValue("cs")), cmd.getOptionValues("a").length);
+					LOG.info("estimated agent costs ({} us per hand)", Arrays.stream(costs).mapToObj(cost -> String.format("%.1f", cost / 1e3)).collect(Collectors.joining(", ")));
+				}
+				catch(IOException except) {
+					LOG.fatal("failed to read agent costs", except);
+					System.exit(1);
+				}
+			}
+			boolean split = cmd.hasOption("sl");
+			if(split && (sprt != null || maxMatchHands > 0)) {
+				LOG.fatal("matches cannot be split with a sequential test or a match hand limit, which span the whole match");
+				System.exit(1);
+			}
+
+			/* result cache, whose matches are dealt from seeds derived from the seed of the tournament */
+			if(cmd.hasOption("ca")) {
+				if(!"1v".equals(type) && !"rr".equals(type)) {
+					LOG.fatal("only the matches of one-vs-all and round-robin tournaments can be cached");
+					System.exit(1);
+				}
+				if(!cmd.hasOption("s")) {
+					LOG.fatal("caching match results requires a seed, from which the seed of each pairing is derived");
+					System.exit(1);
+				}
+				if(split || verbose || record) {
+					LOG.fatal("split matches, verbose output and game records are not supported with a result cache");
+					System.exit(1);
+				}
+			}
+
+			/* distributed tournaments, whose workers must agree on the settings affecting the games */
+			String settings = String.format("%s %d %s, time bank %d, hand limits %d/%d, batched %b, sprt %s", type, games, String.join(" ", cmd.getOptionValues("a")), timeBank, maxHands, maxMatchHands, batched, sprt);
+			if(cmd.hasOption("co") || cmd.hasOption("wk")) {
+				if(!"1v".equals(type) && !"rr".equals(type)) {
+					LOG.fatal("only one-vs-all and round-robin tournaments can be distributed");
+					System.exit(1);
+				}
+				if(cmd.hasOption("co") && cmd.hasOption("wk")) {
+					LOG.fatal("a process is either the coordinator or a worker");
+					System.exit(1);
+				}
+				if(verbose || record || warmup > 0) {
+					LOG.fatal("verbose output, game records and warm-up are not supported in distributed tournaments");
+					System.exit(1);
+				}
+			}
+			if(cmd.hasOption("sg") && !cmd.hasOption("wk")) {
+				LOG.fatal("only a worker gives up stalled matches");
+				System.exit(1);
+			}
+			if(cmd.hasOption("cb") && !cmd.hasOption("co")) {
+				LOG.fatal("only a coordinator listens on a bind address");
+				System.exit(1);
+			}
+			Worker worker = null;
+			if(cmd.hasOption("wk")) {
+				String[] address = cmd.getOptionValue("wk").split(":");
+				if(address.length != 2) {
+					LOG.fatal("the coordinator must be given as host:port");
+					System.exit(1);
+				}
+				worker = new Worker(address[0], Integer.parseInt(address[1]), settings, Long.parseLong(cmd.getOptionValue("sg", "0")) * 1000);
+			}
+			Coordinator coordinator = null;
+			if(cmd.hasOption("co")) {
+				try {
+					InetAddress address = cmd.hasOption("cb") ? InetAddress.getByName(cmd.getOptionValue("cb")) : InetAddress.getLoopbackAddress();
+					coordinator = new Coordinator(address, Integer.parseInt(cmd.getOptionValue("co")), settings, Long.parseLong(cmd.getOptionValue("ls", "30")) * 1000);
+				}
+				catch(IOException except) {
+					LOG.fatal("failed to listen for workers", except);
+					System.exit(1);
+				}
+			}
+
+			/* checkpoint journal, and the partial archive of a resumed tournament */
+			Journal journal = null;
+			if(worker == null && (cmd.hasOption("ck") || cmd.hasOption("rs"))) {
+				// chunks are cut by the costs and threads, and measured costs differ between runs
+				if(split && warmup > 0) {
+					LOG.fatal("split matches cannot be checkpointed with costs measured during warm-up, which differ between runs");
+					System.exit(1);
+				}
+				// every setting affecting the games or the schedule, so that a resumed tournament plays as the interrupted one did
+				String chunks = split ? String.format("split (threads %d, costs %s)", threads, Arrays.toString(costs)) : "unsplit";
+				String signature = String.format("%s, seed %s, adaptive %b, stability %s, glicko %b, converged %s, swiss rounds %s, cached %b, %s", settings, cmd.getOptionValue("s", "none"), adaptive, stability, glicko, convergedDeviation, cmd.getOptionValue("sr", "0"), cmd.hasOption("ca"), chunks);
+				Path journalPath = Paths.get(String.format("./%s.ckpt", identifier));
+				try {
+					if(cmd.hasOption("rs")) {
+						if(!cmd.hasOption("id")) {
+							LOG.fatal("resuming requires the identifier of the tournament");
+							System.exit(1);
+						}
+						journal = Journal.resume(journalPath, signature);
+						Path archivePath = Paths.get(String.format("./%s.zip", identifier));
+						if(Files.exists(archivePath)) {
+							Path partialPath = Paths.get(String.format("./%s.zip.partial", identifier));
+							LOG.info("moving the archive of the interrupted tournament to {}", partialPath);
+							Files.move(archivePath, partialPath, StandardCopyOption.REPLACE_EXISTING);
+						}
+					}
+					else {
+						journal = Journal.create(journalPath, signature);
+					}
+				}
+				catch(IOException except) {
+					LOG.fatal("failed to open checkpoint journal", except);
+					System.exit(1);
+				}
+			}
 
-			/* */
+			/* workers write no output archive */
 			try {
-				FileMap.create(identifier);
+				if(worker == null) { FileMap.create(identifier); }
 			}
 			catch(IOException except) {
 				LOG.fatal("failed to create experiment data file", except);
@@ -187,22 +560,94 @@ public class Main {
 				random = new Random(seed);
 			}
 
-			GinRummyGame.setPlayVerbose(cmd.hasOption("v"));
-
 			/* competitors */
 			List<GinRummyPlayerClass> agents = Arrays.stream(cmd.getOptionValues("a"))
 				.map(path -> GinRummyPlayerClass.from(path))
 				.collect(Collectors.toList());
+			if(cmd.hasOption("i")) {
+				String jvmOptions = cmd.getOptionValue("i", "");
+				LOG.info("isolating agents in child JVMs with options ({})", jvmOptions);
+				agents.forEach(agent -> agent.setIsolation(jvmOptions));
+			}
+
+			ResultCache cache = null;
+			if(cmd.hasOption("ca") && worker == null) {
+				try {
+					String rules = String.format("time bank %d, hand limits %d/%d, batched %b, sprt %s", timeBank, maxHands, maxMatchHands, batched, sprt);
+					cache = new ResultCache(Paths.get(cmd.getOptionValue("ca")), rules, Long.parseLong(cmd.getOptionValue("s"), 16), agents.stream().map(GinRummyPlayerClass::hash).collect(Collectors.toList()));
+				}
+				catch(IOException except) {
+					LOG.fatal("failed to open the result cache", except);
+					System.exit(1);
+				}
+			}
 
 			/* tournament */
+			Tournament tournament = null;
 			switch(type) {
-				case "1v" : new OneAllTournament     (agents, games, cmd.hasOption("v"), random).run(); break;
-			 	case "rr" : new RoundRobinTournament (agents, games, cmd.hasOption("v"), random).run(); break;
-				case "el" : new EloTournament        (agents, games, cmd.hasOption("v"), random).run(); break;
+				case "1v" : tournament = new OneAllTournament     (agents, games, cmd.hasOption("v"), random); break;
+			 	case "rr" : tournament = new RoundRobinTournament (agents, games, cmd.hasOption("v"), random); break;
+				case "el" : tournament = new EloTournament        (agents, games, cmd.hasOption("v"), random); break;
+				case "sw" : tournament = new SwissTournament      (agents, games, Integer.parseInt(cmd.getOptionValue("sr", "0")), cmd.hasOption("v"), random); break;
+			}
+			tournament.setRecord(cmd.hasOption("r"));
+			tournament.setBatched(batched);
+			tournament.setTimeBank(timeBank);
+			tournament.setMaxHands(maxHands);
+			tournament.setMaxMatchHands(maxMatchHands);
+			tournament.setPoolSize(poolSize);
+			tournament.setPrewarm(prewarm);
+			tournament.setWarmup(warmup);
+			tournament.setWarmupTolerance(warmupTolerance);
+			tournament.setThreads(threads);
+			tournament.setSprt(sprt);
+			tournament.setAdaptive(adaptive);
+			tournament.setStability(stability);
+			tournament.setGlicko(glicko);
+			tournament.setConvergedDeviation(convergedDeviation);
+			tournament.setJournal(journal, Long.parseLong(cmd.getOptionValue("ck", "0")));
+			tournament.setCosts(costs);
+			tournament.setSplit(split);
+			tournament.setCoordinator(coordinator);
+			tournament.setWorker(worker);
+			tournament.setCache(cache);
+
+			/* live metrics, which workers leave to the coordinator */
+			TournamentMetrics metrics = null;
+			if(worker == null) {
+				metrics = new TournamentMetrics(agents.stream().map(GinRummyPlayerClass::toString).collect(Collectors.toList()));
+				metrics.register();
+				if(cmd.hasOption("mp")) {
+					try {
+						metrics.serve(Integer.parseInt(cmd.getOptionValue("mp")));
+					}
+					catch(IOException except) {
+						LOG.fatal("failed to serve metrics", except);
+						System.exit(1);
+					}
+				}
+			}
+			tournament.setMetrics(metrics);
+			tournament.run();
+			if(metrics != null) { metrics.close(); }
+
+			/* confidence intervals of the results */
+			int replicates = Integer.parseInt(cmd.getOptionValue("bs", "1000"));
+			if(worker == null && replicates > 0) {
+				try {
+					Bootstrap.write(FileMap.get().getPath("games.csv"), FileMap.get().getPath("ci.csv"), agents.size(), replicates, .95, threads, random.nextLong());
+				}
+				catch(IOException except) {
+					LOG.error("failed to bootstrap confidence intervals", except);
+				}
 			}
 
 			try {
+				if(coordinator != null) { coordinator.close(); }
+				if(worker != null) { return; }
 				FileMap.get().close();
+				// the archive is complete, so the journal is no longer needed
+				if(journal != null) { journal.delete(); }
 			}
 			catch(IOException except) {
 				LOG.fatal("failed to close experiment data file", except);
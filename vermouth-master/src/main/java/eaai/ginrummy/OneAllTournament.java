@@ -20,9 +20,13 @@
 package eaai.ginrummy;
 
 import com.opencsv.CSVWriter;
-import ginrummy.GinRummyGame;
+import ginrummy.CompositeGameEventListener;
+import ginrummy.GameEventListener;
 import ginrummy.GinRummyPlayer;
+import ginrummy.TextGameEventListener;
 import eaai.ginrummy.util.FileMap;
+import eaai.ginrummy.util.SPRT;
+import eaai.ginrummy.util.ThreadPrintStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
@@ -32,7 +36,6 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -64,48 +67,36 @@ public class OneAllTournament extends Tournament {
 	 */
 	public void run() {
 		try {
-			LOG.debug("generating GinRummyPlayer instances");
-			List<GinRummyPlayer> players = classes.stream()
-				.map(c -> c.newInstance())
-				.collect(Collectors.toList());
+			LOG.debug("generating GinRummyPlayer pools");
+			List<GinRummyPlayerPool> pools = createPools(classes);
+			MatchPlayer player = (match, output) -> match(pools, match, output);
+			if(worker != null) {
+				serveMatches(player);
+				closePools(pools);
+				return;
+			}
+			warmUp(pools);
 
-			Path gamesPath = FileMap.get().getPath("games.csv");
-			CSVWriter gamesWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(gamesPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			gamesWriter.writeNext(new String[] { "MATCH", "GAME", "PLAYER", "SCORE", "WIN" });
+			CSVWriter gamesWriter = openCSV("games.csv", "MATCH", "GAME", "PLAYER", "SCORE", "WIN", "HANDS", "CAPPED");
+			CSVWriter statsWriter = openCSV("stats.csv", "METHOD", "PLAYER", "TIME");
 
-			Path statsPath = FileMap.get().getPath("stats.csv");
-			CSVWriter statsWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(statsPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
-			statsWriter.writeNext(new String[] { "METHOD", "PLAYER", "TIME" });
+			Schedule restored = (Schedule)restore();
+			Schedule schedule = restored != null ? restored : new Schedule(random, pools.size() - 1);
 
+			// matches completed before the checkpoint are skipped, their rows having been replayed
+			List<Match> matches = new ArrayList<>();
 			int m = 0;
-			for(int p = 1; p < players.size(); p += 1, m += 1) {
-				LOG.info("starting match [{}]{} vs [{}]{}", 0, classes.get(0), p, classes.get(p));
-				int wins = 0;
-				for(int g = 0; g < rounds; g += 1) {
-					PrintStream gameStream = System.out;
-					if(verbose) {
-						Path gamePath = FileMap.get().getPath(String.format("%d-%dv%d-game%d.txt", m, 0, p, g));
-						gameStream = new PrintStream(Files.newOutputStream(gamePath, StandardOpenOption.CREATE_NEW));
-					}
-					PrintStream out = System.out; System.setOut(gameStream);
-					PrintStream err = System.err; System.setErr(gameStream);
-
-					GinRummyAgent agent0 = new GinRummyAgent(players.get(0), 0, statsWriter, gameStream, gameStream);
-					GinRummyAgent agent1 = new GinRummyAgent(players.get(p), p, statsWriter, gameStream, gameStream);
-					GinRummyGame game = new GinRummyGame(agent0, agent1);
-					int[] scores = game.play();
-
-					System.setOut(out);
-					System.setErr(err);
-					gameStream.close();
-
-					gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(0), Integer.toString(scores[0]), Integer.toString(scores[0] > scores[1] ? 1 : 0) });
-					gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(p), Integer.toString(scores[1]), Integer.toString(scores[0] < scores[1] ? 1 : 0) });
-					wins += scores[0] > scores[1] ? 1 : 0;
-					LOG.info("game {} final scores [{}, {}]", g, scores[0], scores[1]);
-				}
-				LOG.info("match [{}]{} ({} wins) vs [{}]{} ({} wins)", 0, classes.get(0), wins, p, classes.get(p), rounds - wins);
+			for(int p = 1; p < pools.size(); p += 1, m += 1) {
+				if(m < schedule.completed) { continue; }
+				matches.add(new Match(matches.size(), m, 0, p, schedule.seeds[m], 0, rounds));
 			}
+			executeMatches(matches, player, gamesWriter, statsWriter, match -> {
+				schedule.completed += 1;
+				checkpoint(schedule);
+			});
+
+			reportLimits();
+			closePools(pools);
 
 			gamesWriter.close();
 			statsWriter.close();
@@ -115,4 +106,59 @@ public class OneAllTournament extends Tournament {
 			System.exit(1);
 		}
 	}
+
+	/*
+	 * plays the games of a match between the first agent and another agent (or
+	 * of a chunk of its games), acquiring an instance of each agent for the
+	 * duration of the match
+	 */
+	private Output match(List<GinRummyPlayerPool> pools, Match match, Output output) throws IOException {
+		int m = match.match, p = match.p1;
+		Random random = new Random(match.seed);
+		LOG.info("starting match [{}]{} vs [{}]{}", 0, classes.get(0), p, classes.get(p));
+		GameRecordWriter recordWriter = openRecord(match.games == rounds ? String.format("%d-%dv%d.rec", m, 0, p) : String.format("%d-%dv%d-g%d.rec", m, 0, p, match.first));
+		GinRummyPlayer player0 = pools.get(0).acquire();
+		GinRummyPlayer player1 = pools.get(p).acquire();
+		int wins = 0, losses = 0, matchHands = 0;
+		SPRT test = newSprt();
+		for(int g = match.first; g < match.first + match.games; g += 1) {
+			int limit = handLimit(matchHands);
+			if(limit < 0) {
+				LOG.warn("match hand limit reached after {} of {} games", g, rounds);
+				break;
+			}
+			PrintStream gameStream = output.console;
+			if(verbose) {
+				Path gamePath = FileMap.get().getPath(String.format("%d-%dv%d-game%d.txt", m, 0, p, g));
+				gameStream = new PrintStream(Files.newOutputStream(gamePath, StandardOpenOption.CREATE_NEW));
+			}
+			PrintStream out = ThreadPrintStream.setOut(gameStream);
+			PrintStream err = ThreadPrintStream.setErr(gameStream);
+
+			GinRummyAgent agent0 = new GinRummyAgent(player0, 0, output.statsWriter, gameStream, gameStream);
+			GinRummyAgent agent1 = new GinRummyAgent(player1, p, output.statsWriter, gameStream, gameStream);
+			if(recordWriter != null) { recordWriter.startGame(m, g); }
+			GameEventListener listener = CompositeGameEventListener.of(verbose ? new TextGameEventListener(gameStream) : null, recordWriter);
+			Result result = play(agent0, agent1, listener, limit, random);
+			int[] scores = result.scores;
+			matchHands += result.hands;
+
+			ThreadPrintStream.setOut(out);
+			ThreadPrintStream.setErr(err);
+			if(gameStream != output.console) { gameStream.close(); }
+
+			output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(0), Integer.toString(scores[0]), Integer.toString(scores[0] > scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+			output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(p), Integer.toString(scores[1]), Integer.toString(scores[0] < scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+			wins += scores[0] > scores[1] ? 1 : 0;
+			losses += scores[0] < scores[1] ? 1 : 0;
+			LOG.info("game {} final scores [{}, {}]", g, scores[0], scores[1]);
+			if(sprtDecided(test, scores)) { break; }
+		}
+		if(test != null && test.decision() == SPRT.UNDECIDED) { LOG.info("sprt undecided after {} games (llr {})", test.games(), String.format("%.4f", test.llr())); }
+		pools.get(0).release(player0);
+		pools.get(p).release(player1);
+		if(recordWriter != null) { recordWriter.close(); }
+		LOG.info("match [{}]{} ({} wins) vs [{}]{} ({} wins)", 0, classes.get(0), wins, p, classes.get(p), losses);
+		return output;
+	}
 }
@@ -0,0 +1,317 @@
+package eaai.ginrummy;
+
+import ginrummy.Card;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static eaai.ginrummy.AgentProtocol.*;
+
+/**
+ * A GinRummyPlayer whose agent runs in its own child JVM, hosted by an
+ * {@link AgentShim} and called over the child's stdin and stdout (see
+ * {@link AgentProtocol}). Each child has its own heap and garbage collector,
+ * configured by the given JVM options, so one agent's memory use, pauses and
+ * static state cannot affect any other agent or the tournament.
+ * <p>
+ * The agent's output during each call is written to this JVM's System.out,
+ * as for an in-process agent. The child measures the thread CPU time of each
+ * call, which is available through {@link #drainCallTime()}.
+ * <p>
+ * Each call may be given a CPU time limit (the remaining time bank of the
+ * agent), which the child watches as the call runs. A call exceeding its
+ * limit is not waited for: the child JVM is killed and replaced by a fresh
+ * one hosting a new instance of the agent, and the call returns a
+ * placeholder result (false, the first card, or an empty list of melds) with
+ * {@link #drainExpired()} true, upon which the game is forfeited.
+ */
+public class RemoteGinRummyPlayer implements TimedGinRummyPlayer, Closeable {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(RemoteGinRummyPlayer.class);
+
+	/* child JVM command */
+	private final List<String> command = new ArrayList<>();
+
+	/* */
+	private Process process;
+
+	/* */
+	private DataInputStream in;
+
+	/* */
+	private DataOutputStream out;
+
+	/* request payload */
+	private final ByteArrayOutputStream request = new ByteArrayOutputStream();
+
+	/* */
+	private final DataOutputStream args = new DataOutputStream(request);
+
+	/* response payload */
+	private byte[] response = new byte[256];
+
+	/* child CPU time of calls since the last drain, in nanoseconds */
+	private long callTime = 0;
+
+	/* CPU time limit of the following calls, negative if unlimited */
+	private long limit = -1;
+
+	/* whether a call exceeded its limit since the last drain */
+	private boolean expired = false;
+
+	/**
+	 * Starts a child JVM hosting a new instance of the given agent.
+	 *
+	 * @param spec the agent specification, as for the --agents option
+	 * @param jvmOptions options for the child JVM (e.g., "-Xmx512m"),
+	 * separated by whitespace
+	 */
+	public RemoteGinRummyPlayer(String spec, String jvmOptions) {
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if(jvmOptions != null && !jvmOptions.trim().isEmpty()) { command.addAll(Arrays.asList(jvmOptions.trim().split("\\s+"))); }
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(AgentShim.class.getName());
+		command.add(spec);
+		start();
+	}
+
+	/*
+	 * starts the child JVM, and waits for the agent to be instantiated
+	 */
+	private void start() {
+		LOG.debug("starting agent process {}", command);
+		try {
+			process = new ProcessBuilder(command)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+			in = new DataInputStream(new BufferedInputStream(process.getInputStream(), 1 << 16));
+			out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream(), 1 << 16));
+			receive(); // the agent has been instantiated
+		}
+		catch(IOException except) {
+			throw new UncheckedIOException("could not start agent process", except);
+		}
+	}
+
+	/**
+	 * Returns the child CPU time of all calls since the previous drain.
+	 *
+	 * @return the child CPU time, in nanoseconds
+	 */
+	@Override
+	public long drainCallTime() {
+		long time = callTime;
+		callTime = 0;
+		return time;
+	}
+
+	/**
+	 * Sets the CPU time limit of the following calls.
+	 *
+	 * @param limit the limit, in nanoseconds, or a negative value for no limit
+	 */
+	public void setLimit(long limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns whether a call exceeded its limit since the previous drain (its
+	 * result then being a placeholder).
+	 *
+	 * @return true if a call exceeded its limit
+	 */
+	public boolean drainExpired() {
+		boolean ret = expired;
+		expired = false;
+		return ret;
+	}
+
+	/*
+	 */
+	private DataOutputStream begin(int opcode) throws IOException {
+		request.reset();
+		args.writeByte(opcode);
+		args.writeLong(limit);
+		return args;
+	}
+
+	/*
+	 */
+	private DataInputStream call() {
+		try {
+			out.writeInt(request.size());
+			request.writeTo(out);
+			out.flush();
+			return receive();
+		}
+		catch(IOException except) {
+			throw new UncheckedIOException("agent process failed", except);
+		}
+	}
+
+	/*
+	 */
+	private DataInputStream receive() throws IOException {
+		int length = in.readInt();
+		if(response.length < length) { response = new byte[Math.max(length, 2 * response.length)]; }
+		in.readFully(response, 0, length);
+		DataInputStream payload = new DataInputStream(new ByteArrayInputStream(response, 0, length));
+
+		int status = payload.readUnsignedByte();
+		callTime += payload.readLong();
+		if(status == EXPIRED) { return restart(); }
+		int output = payload.readInt();
+		if(output > 0) {
+			System.out.write(response, 1 + 8 + 4, output);
+			System.out.flush();
+			payload.skipBytes(output);
+		}
+		if(status == FAILED) { throw new IllegalStateException("agent failed: " + payload.readUTF()); }
+		return payload;
+	}
+
+	/*
+	 * kills the child JVM, whose call exceeded its limit, and starts a fresh
+	 * one, returning a placeholder result for the call
+	 */
+	private DataInputStream restart() throws IOException {
+		LOG.warn("agent process exceeded its CPU time limit, restarting it");
+		expired = true;
+		process.destroyForcibly();
+		try { process.waitFor(); }
+		catch(InterruptedException except) { Thread.currentThread().interrupt(); }
+		long time = callTime;
+		start();
+		callTime = time; // not charging the new instance's construction
+		return new DataInputStream(new ByteArrayInputStream(new byte[1]));
+	}
+
+	/**
+	 * Closes the child's stdin, upon which it exits, and waits for it.
+	 */
+	@Override
+	public void close() throws IOException {
+		out.close();
+		try { process.waitFor(); }
+		catch(InterruptedException except) { process.destroy(); }
+	}
+
+	@Override
+	public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+		try {
+			DataOutputStream args = begin(START_GAME);
+			args.writeByte(playerNum);
+			args.writeByte(startingPlayerNum);
+			writeCards(args, cards);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(Card card) {
+		try {
+			writeCard(begin(WILL_DRAW), card);
+			return call().readBoolean();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportDraw(int playerNum, Card drawnCard) {
+		try {
+			DataOutputStream args = begin(REPORT_DRAW);
+			args.writeByte(playerNum);
+			writeCard(args, drawnCard);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public Card getDiscard() {
+		try {
+			begin(GET_DISCARD);
+			return readCard(call());
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportDiscard(int playerNum, Card discardedCard) {
+		try {
+			DataOutputStream args = begin(REPORT_DISCARD);
+			args.writeByte(playerNum);
+			writeCard(args, discardedCard);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds() {
+		try {
+			begin(GET_FINAL_MELDS);
+			return readMelds(call());
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		try {
+			DataOutputStream args = begin(REPORT_FINAL_MELDS);
+			args.writeByte(playerNum);
+			writeMelds(args, melds);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportScores(int[] scores) {
+		try {
+			DataOutputStream args = begin(REPORT_SCORES);
+			args.writeInt(scores[0]);
+			args.writeInt(scores[1]);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		try {
+			DataOutputStream args = begin(REPORT_LAYOFF);
+			args.writeByte(playerNum);
+			writeCard(args, layoffCard);
+			writeCards(args, opponentMeld);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+
+	@Override
+	public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+		try {
+			DataOutputStream args = begin(REPORT_FINAL_HAND);
+			args.writeByte(playerNum);
+			writeCards(args, hand);
+			call();
+		}
+		catch(IOException except) { throw new UncheckedIOException(except); }
+	}
+}
@@ -0,0 +1,206 @@
+package eaai.ginrummy;
+
+import eaai.ginrummy.util.StubPrintStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.cli.*;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * A decision-corpus replay benchmark. The game records of one or more
+ * tournament archives (see {@link GameRecordWriter}) form a corpus of real
+ * game positions; each agent under test is fed, seat by seat, the identical
+ * sequence of {@link ginrummy.GinRummyPlayer} calls the recorded game made,
+ * without opponents or a tournament. The per-call CPU time and, for
+ * decisions, the agreement with the recorded decision are reported per
+ * method, giving a fast and deterministic regression check of an agent build
+ * against the build that played the recorded games.
+ * <pre>
+ * java -cp vermouth.jar eaai.ginrummy.ReplayBenchmark --corpus run.zip --player 0 --agents 'file:./MyGinRummyPlayer'
+ * </pre>
+ */
+public class ReplayBenchmark {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(ReplayBenchmark.class);
+
+	/* record entry names, M-XvY.rec or M-XvY-gG.rec (one-vs-all and round robin, the latter a chunk of a split match) or XvY.rec (elo) */
+	private static final Pattern RECORD = Pattern.compile("(?:\\d+-)?(\\d+)v(\\d+)(?:-g\\d+)?\\.rec");
+
+	/* a recorded match stream and the player ids of its seats */
+	private static class Record {
+		final String name;
+		final byte[] data;
+		final int[] players;
+
+		Record(String name, byte[] data, int[] players) {
+			this.name = name;
+			this.data = data;
+			this.players = players;
+		}
+	}
+
+	/**
+	 * Per-method call times and decision agreement of a replay.
+	 */
+	public static class Statistics implements SeatReplayer.Observer {
+		/* */
+		private final long[][] times = new long[SeatReplayer.METHODS.length][1024];
+
+		/* */
+		private final int[] calls = new int[SeatReplayer.METHODS.length];
+
+		/* */
+		private final int[] agreements = new int[SeatReplayer.METHODS.length];
+
+		@Override
+		public void call(int method, long time, boolean agrees) {
+			if(calls[method] == times[method].length) { times[method] = Arrays.copyOf(times[method], 2 * calls[method]); }
+			times[method][calls[method]++] = time;
+			if(agrees) { agreements[method] += 1; }
+		}
+
+		/**
+		 * Prints a table of call counts, agreement and latency percentiles (in
+		 * microseconds) for each method.
+		 *
+		 * @param out the stream to print to
+		 */
+		public void print(PrintStream out) {
+			out.printf("%-20s %9s %8s %10s %10s %10s %10s %10s\n", "METHOD", "CALLS", "AGREE", "MEAN", "P50", "P90", "P99", "MAX");
+			for(int m = 0; m < SeatReplayer.METHODS.length; m += 1) {
+				if(calls[m] == 0) { continue; }
+				long[] sorted = Arrays.copyOf(times[m], calls[m]);
+				Arrays.sort(sorted);
+				double mean = Arrays.stream(sorted).average().orElse(0);
+				boolean decision = m == SeatReplayer.WILL_DRAW || m == SeatReplayer.GET_DISCARD || m == SeatReplayer.GET_FINAL_MELDS;
+				out.printf("%-20s %9d %8s %10.1f %10.1f %10.1f %10.1f %10.1f\n",
+					SeatReplayer.METHODS[m], calls[m],
+					decision ? String.format("%.2f%%", 100. * agreements[m] / calls[m]) : "-",
+					mean / 1e3, percentile(sorted, .5) / 1e3, percentile(sorted, .9) / 1e3, percentile(sorted, .99) / 1e3, sorted[sorted.length - 1] / 1e3);
+			}
+		}
+
+		/*
+		 */
+		private static double percentile(long[] sorted, double p) {
+			return sorted[Math.min(sorted.length - 1, (int)Math.floor(p * sorted.length))];
+		}
+	}
+
+	/* */
+	private static Options generateOptions() {
+		Options opt = new Options();
+
+		opt.addOption(Option.builder("c")
+			.longOpt("corpus")
+			.argName("archives")
+			.desc("tournament archives containing game records")
+			.hasArgs()
+			.required()
+			.build());
+
+		opt.addOption(Option.builder("a")
+			.longOpt("agents")
+			.argName("agents")
+			.desc("agent classfile specifications to replay")
+			.hasArgs()
+			.required()
+			.build());
+
+		opt.addOption(Option.builder("p")
+			.longOpt("player")
+			.argName("id")
+			.desc("replay only the seats of the given recorded player id")
+			.hasArg()
+			.build());
+
+		opt.addOption(Option.builder("n")
+			.longOpt("repeat")
+			.argName("n")
+			.desc("replay the corpus n times, reporting only the last (default 1)")
+			.hasArg()
+			.build());
+
+		return opt;
+	}
+
+	/*
+	 */
+	private static List<Record> load(String archive) throws IOException {
+		List<Record> records = new ArrayList<>();
+		URI uri = URI.create("jar:" + Paths.get(archive).toUri());
+		try(FileSystem fs = FileSystems.newFileSystem(uri, new HashMap<String, String>())) {
+			try(DirectoryStream<Path> entries = Files.newDirectoryStream(fs.getPath("/"), "*.rec")) {
+				for(Path entry : entries) {
+					Matcher matcher = RECORD.matcher(entry.getFileName().toString());
+					if(!matcher.matches()) { continue; }
+					int[] players = { Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) };
+					records.add(new Record(archive + "!" + entry, Files.readAllBytes(entry), players));
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Replays the given corpus for an agent class, returning the call
+	 * statistics of the replay.
+	 */
+	private static Statistics replay(GinRummyPlayerClass agent, List<Record> corpus, int player) throws IOException {
+		Statistics statistics = new Statistics();
+		for(Record record : corpus) {
+			for(int seat = 0; seat < 2; seat += 1) {
+				if(player >= 0 && record.players[seat] != player) { continue; }
+				LOG.debug("replaying {} seat {}", record.name, seat);
+				SeatReplayer replayer = new SeatReplayer(agent.newInstance(), seat, statistics);
+				GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(record.data));
+				while(reader.next(replayer)) { }
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 */
+	public static void main(String[] args) throws ParseException, IOException {
+		CommandLine cmd = new DefaultParser().parse(generateOptions(), args);
+		int player = Integer.parseInt(cmd.getOptionValue("p", "-1"));
+		int repeat = Integer.parseInt(cmd.getOptionValue("n", "1"));
+
+		List<Record> corpus = new ArrayList<>();
+		for(String archive : cmd.getOptionValues("c")) { corpus.addAll(load(archive)); }
+		LOG.info("loaded {} game record streams", corpus.size());
+
+		PrintStream out = System.out, err = System.err;
+		for(String spec : cmd.getOptionValues("a")) {
+			GinRummyPlayerClass agent = GinRummyPlayerClass.from(spec);
+			Statistics statistics = null;
+			System.setOut(new StubPrintStream());
+			System.setErr(new StubPrintStream());
+			try {
+				for(int r = 0; r < repeat; r += 1) { statistics = replay(agent, corpus, player); }
+			}
+			finally {
+				System.setOut(out);
+				System.setErr(err);
+			}
+			out.printf("%s\n", agent);
+			statistics.print(out);
+		}
+	}
+}
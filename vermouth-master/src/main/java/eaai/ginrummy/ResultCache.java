@@ -0,0 +1,225 @@
+package eaai.ginrummy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * A local store of match results, content-addressed by everything that
+ * determines the games of a match: the content hashes of its agents (see
+ * {@link GinRummyPlayerClass#hash()}), by seat, the seed of its games, its
+ * number of games, the settings of the tournament affecting the games (time
+ * bank, hand limits, batching, early stopping), and the version of the game
+ * rules. A tournament reuses the rows of a stored match in place of playing
+ * it, so a league re-run with one new agent only plays the matches of that
+ * agent.
+ * <p>
+ * So that a pairing is dealt the same games whatever the other agents of the
+ * tournament, the seed of a match is derived from the seed of the tournament
+ * and the hashes of its agents, rather than drawn in schedule order. Each
+ * match is stored in its own file, written atomically, so concurrent or
+ * interrupted tournaments never leave a partial result behind.
+ */
+public class ResultCache {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(ResultCache.class);
+
+	/** version of the game rules, to be changed with any change to the game engine affecting results */
+	public static final String RULES = "1";
+
+	/* */
+	private final Path directory;
+
+	/* settings of the tournament affecting the games */
+	private final String settings;
+
+	/* seed of the tournament */
+	private final long seed;
+
+	/* content hashes of the agents, in order */
+	private final List<String> hashes;
+
+	/* number of matches reused and stored */
+	private int hits = 0, stores = 0;
+
+	/**
+	 * Opens the store in the given directory, creating it if necessary.
+	 *
+	 * @param directory the directory
+	 * @param settings the settings of the tournament affecting the games
+	 * @param seed the seed of the tournament
+	 * @param hashes the content hashes of the agents, in order
+	 */
+	public ResultCache(Path directory, String settings, long seed, List<String> hashes) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.settings = settings;
+		this.seed = seed;
+		this.hashes = new ArrayList<>(hashes);
+	}
+
+	/**
+	 * Returns the seed of the games of a pairing: the leading bytes of the
+	 * SHA-256 digest of the seed of the tournament and the hashes of the
+	 * agents, by seat.
+	 *
+	 * @param p0 the agent in seat 0
+	 * @param p1 the agent in seat 1
+	 * @return the seed
+	 */
+	public long seed(int p0, int p1) {
+		return ByteBuffer.wrap(digest(Long.toString(seed), hashes.get(p0), hashes.get(p1))).getLong();
+	}
+
+	/**
+	 * Reads the stored result of a match, with its rows rewritten for the
+	 * match id and agents of the given match.
+	 *
+	 * @param match the match, whose seed is that of its pairing
+	 * @return the result, or null if the match is not stored (or its file is
+	 * unreadable)
+	 */
+	public Entry load(Tournament.Match match) {
+		Path path = path(match);
+		if(!Files.exists(path)) { return null; }
+		Entry stored;
+		try(ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			stored = (Entry)in.readObject();
+		}
+		catch(IOException | ClassNotFoundException | ClassCastException except) {
+			LOG.warn("ignoring unreadable cached result {}: {}", path, except.toString());
+			return null;
+		}
+		List<String[]> games = new ArrayList<>(), stats = new ArrayList<>();
+		for(String[] row : stored.games) {
+			String[] copy = row.clone();
+			copy[0] = Integer.toString(match.match);
+			copy[2] = remap(copy[2], stored, match);
+			games.add(copy);
+		}
+		for(String[] row : stored.stats) {
+			String[] copy = row.clone();
+			copy[1] = remap(copy[1], stored, match);
+			stats.add(copy);
+		}
+		synchronized(this) { hits += 1; }
+		return new Entry(match.match, match.p0, match.p1, games, stats, stored.counts);
+	}
+
+	/**
+	 * Stores the result of a match, replacing any stored result.
+	 *
+	 * @param match the match, whose seed is that of its pairing
+	 * @param games the games.csv rows of the match
+	 * @param stats the stats.csv rows of the match
+	 * @param counts the counts of games played, ended by the hand limit, and
+	 * drawn
+	 */
+	public void store(Tournament.Match match, List<String[]> games, List<String[]> stats, int[] counts) throws IOException {
+		Path path = path(match);
+		Path temp = Files.createTempFile(directory, "result", ".tmp");
+		try {
+			try(ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeObject(new Entry(match.match, match.p0, match.p1, games, stats, counts));
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+		synchronized(this) { stores += 1; }
+	}
+
+	/**
+	 * Returns the number of matches reused from the store.
+	 *
+	 * @return the number of matches
+	 */
+	public synchronized int hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of matches stored.
+	 *
+	 * @return the number of matches
+	 */
+	public synchronized int stores() {
+		return stores;
+	}
+
+	/*
+	 * the file of a match, named by the digest of its key
+	 */
+	private Path path(Tournament.Match match) {
+		byte[] key = digest(RULES, settings, Long.toString(match.seed), Integer.toString(match.games), hashes.get(match.p0), hashes.get(match.p1));
+		StringBuilder hex = new StringBuilder();
+		for(byte b : key) { hex.append(String.format("%02x", b)); }
+		return directory.resolve(hex.append(".result").toString());
+	}
+
+	/*
+	 * the agent of a stored row, rewritten for the agents of the match
+	 */
+	private static String remap(String player, Entry stored, Tournament.Match match) {
+		if(player.equals(Integer.toString(stored.p0))) { return Integer.toString(match.p0); }
+		if(player.equals(Integer.toString(stored.p1))) { return Integer.toString(match.p1); }
+		return player;
+	}
+
+	/*
+	 * the SHA-256 digest of the given parts, each terminated by a newline
+	 */
+	private static byte[] digest(String... parts) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for(String part : parts) { digest.update((part + "\n").getBytes(StandardCharsets.UTF_8)); }
+			return digest.digest();
+		}
+		catch(NoSuchAlgorithmException except) {
+			throw new IllegalStateException("SHA-256 is unavailable", except);
+		}
+	}
+
+	/**
+	 * The stored result of a match: the match id and agents it was played as,
+	 * and its rows and game counts.
+	 */
+	public static class Entry implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/** match id and agents, by seat, the rows were written for */
+		public final int match, p0, p1;
+
+		/** games.csv and stats.csv rows of the match */
+		public final List<String[]> games, stats;
+
+		/** counts of games played, ended by the hand limit, and drawn */
+		public final int[] counts;
+
+		/**
+		 */
+		public Entry(int match, int p0, int p1, List<String[]> games, List<String[]> stats, int[] counts) {
+			this.match = match;
+			this.p0 = p0;
+			this.p1 = p1;
+			this.games = games;
+			this.stats = stats;
+			this.counts = counts;
+		}
+	}
+}
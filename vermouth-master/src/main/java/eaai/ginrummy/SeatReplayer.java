@@ -0,0 +1,286 @@
+package eaai.ginrummy;
+
+import com.sun.management.ThreadMXBean;
+import ginrummy.Card;
+import ginrummy.GameEventListener;
+import ginrummy.GinRummyPlayer;
+import ginrummy.GinRummyUtil;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Stack;
+
+/**
+ * A game event listener which, fed the events of a recorded game (see
+ * {@link GameRecordReader}), issues to a player the exact sequence of
+ * {@link GinRummyPlayer} calls the game issued to the player in one seat. At
+ * each decision (willDrawFaceUpCard, getDiscard and getFinalMelds) the
+ * player's answer is timed and compared to the recorded decision; the game
+ * then continues as recorded regardless of the answer.
+ */
+public class SeatReplayer implements GameEventListener {
+
+	/* decision and call method indices, see METHODS */
+	public static final int START_GAME = 0, WILL_DRAW = 1, REPORT_DRAW = 2, GET_DISCARD = 3, REPORT_DISCARD = 4,
+		GET_FINAL_MELDS = 5, REPORT_FINAL_MELDS = 6, REPORT_SCORES = 7, REPORT_LAYOFF = 8, REPORT_FINAL_HAND = 9;
+
+	/**
+	 * method names, indexed as above
+	 */
+	public static final String[] METHODS = {
+		"startGame", "willDrawFaceUpCard", "reportDraw", "getDiscard", "reportDiscard",
+		"getFinalMelds", "reportFinalMelds", "reportScores", "reportLayoff", "reportFinalHand"
+	};
+
+	/**
+	 * A consumer of replayed call timings and decision outcomes.
+	 */
+	public interface Observer {
+		/**
+		 * Observes a single replayed call.
+		 *
+		 * @param method the method index
+		 * @param time the thread CPU time of the call, in nanoseconds
+		 * @param agrees for decisions, whether the answer matched the record;
+		 * always true for reports
+		 */
+		void call(int method, long time, boolean agrees);
+	}
+
+	/* */
+	private final ThreadMXBean monitor = ((ThreadMXBean) (ManagementFactory.getThreadMXBean()));
+
+	/* */
+	private final GinRummyPlayer player;
+
+	/* */
+	private final int seat;
+
+	/* */
+	private final Observer observer;
+
+	/* replayed game state, tracked as the game does */
+	private final ArrayList<ArrayList<Card>> hands = new ArrayList<>();
+	private final Stack<Card> discards = new Stack<>();
+	private Card firstFaceUp;
+	private int turnsTaken;
+	private ArrayList<Card> dealt;
+
+	/* whether the seat owes a getFinalMelds decision after its discard */
+	private boolean knockPending = false;
+
+	/* whether the seat owes its final melds to a knocking opponent */
+	private boolean meldPending = false;
+
+	/* whether a knock has been reported in the current hand */
+	private boolean knocked = false;
+
+	/**
+	 * Creates a replayer issuing the calls of the given seat to the given
+	 * player.
+	 *
+	 * @param player the player to replay calls to
+	 * @param seat the replayed seat (0/1)
+	 * @param observer the consumer of call timings and outcomes
+	 */
+	public SeatReplayer(GinRummyPlayer player, int seat, Observer observer) {
+		this.player = player;
+		this.seat = seat;
+		this.observer = observer;
+		hands.add(new ArrayList<>());
+		hands.add(new ArrayList<>());
+	}
+
+	/*
+	 */
+	private long now() {
+		return monitor.getCurrentThreadCpuTime();
+	}
+
+	/*
+	 */
+	private static HashSet<Long> meldSet(ArrayList<ArrayList<Card>> melds) {
+		if(melds == null) { return null; }
+		HashSet<Long> set = new HashSet<>();
+		for(ArrayList<Card> meld : melds) { set.add(GinRummyUtil.cardsToBitstring(meld)); }
+		return set;
+	}
+
+	/*
+	 */
+	@SuppressWarnings("unchecked")
+	private static ArrayList<ArrayList<Card>> copy(ArrayList<ArrayList<Card>> melds) {
+		ArrayList<ArrayList<Card>> copy = new ArrayList<>();
+		for(ArrayList<Card> meld : melds) { copy.add((ArrayList<Card>)meld.clone()); }
+		return copy;
+	}
+
+	/*
+	 */
+	private void finalMelds(ArrayList<ArrayList<Card>> recorded) {
+		long time = now();
+		ArrayList<ArrayList<Card>> melds = player.getFinalMelds();
+		time = now() - time;
+		boolean agrees = recorded == null ? melds == null : melds != null && meldSet(recorded).equals(meldSet(melds));
+		observer.call(GET_FINAL_MELDS, time, agrees);
+	}
+
+	/*
+	 */
+	private void resolveKnock(ArrayList<ArrayList<Card>> recorded) {
+		if(knockPending) {
+			knockPending = false;
+			finalMelds(recorded);
+		}
+	}
+
+	/*
+	 */
+	private void report(int method, Runnable call) {
+		long time = now();
+		call.run();
+		time = now() - time;
+		observer.call(method, time, true);
+	}
+
+	/*
+	 */
+	private void drawDecision(Card faceUpCard, boolean recorded) {
+		long time = now();
+		boolean drawFaceUp = player.willDrawFaceUpCard(faceUpCard);
+		time = now() - time;
+		observer.call(WILL_DRAW, time, drawFaceUp == recorded);
+	}
+
+	@Override
+	public void dealt(int playerNum, ArrayList<Card> hand) {
+		hands.get(playerNum).clear();
+		hands.get(playerNum).addAll(hand);
+		if(playerNum == seat) { dealt = new ArrayList<>(hand); }
+	}
+
+	@Override
+	public void started(int seed, int startingPlayerNum) {
+		Card[] cards = dealt.toArray(new Card[dealt.size()]);
+		report(START_GAME, () -> player.startGame(seat, startingPlayerNum, cards));
+		turnsTaken = 0;
+		knockPending = false;
+		meldPending = false;
+		knocked = false;
+	}
+
+	@Override
+	public void faceUp(Card card) {
+		discards.clear();
+		discards.push(card);
+		firstFaceUp = card;
+	}
+
+	@Override
+	public void declined(int playerNum, Card card) {
+		resolveKnock(null);
+		if(playerNum == seat) { drawDecision(card, false); }
+		turnsTaken += 1;
+	}
+
+	@Override
+	public void drew(int playerNum, Card card, boolean faceUp) {
+		resolveKnock(null);
+		if(playerNum == seat && !discards.isEmpty() && !(turnsTaken == 2 && discards.peek() == firstFaceUp)) {
+			drawDecision(discards.peek(), faceUp);
+		}
+		if(faceUp) { discards.pop(); }
+		hands.get(playerNum).add(card);
+		Card reported = (playerNum == seat || faceUp) ? card : null;
+		report(REPORT_DRAW, () -> player.reportDraw(playerNum, reported));
+	}
+
+	@Override
+	public void discarded(int playerNum, Card card, ArrayList<Card> hand) {
+		if(playerNum == seat) {
+			long time = now();
+			Card discard = player.getDiscard();
+			time = now() - time;
+			observer.call(GET_DISCARD, time, discard == card);
+		}
+		hands.get(playerNum).remove(card);
+		discards.push(card);
+		report(REPORT_DISCARD, () -> player.reportDiscard(playerNum, card));
+		knockPending = playerNum == seat;
+		turnsTaken += 1;
+	}
+
+	@Override
+	public void illegalDiscard(int playerNum, Card card) {
+		if(playerNum == seat) {
+			long time = now();
+			Card discard = player.getDiscard();
+			time = now() - time;
+			observer.call(GET_DISCARD, time, discard == card);
+		}
+	}
+
+	@Override
+	public void illegalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		if(!knocked) {
+			// the knocking player melded illegally, before any melds were reported
+			resolveKnock(melds);
+			return;
+		}
+		if(meldPending) {
+			meldPending = false;
+			finalMelds(melds);
+		}
+		// the game reports the opponent's melds to both players before checking them
+		ArrayList<ArrayList<Card>> copy = copy(melds);
+		report(REPORT_FINAL_MELDS, () -> player.reportFinalMelds(playerNum, copy));
+	}
+
+	@Override
+	public void excessDeadwood(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood) {
+		resolveKnock(melds);
+	}
+
+	@Override
+	public void knocked(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood, ArrayList<Card> hand) {
+		resolveKnock(melds);
+		ArrayList<ArrayList<Card>> copy = copy(melds);
+		report(REPORT_FINAL_MELDS, () -> player.reportFinalMelds(playerNum, copy));
+		meldPending = playerNum != seat;
+		knocked = true;
+	}
+
+	@Override
+	public void melded(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		if(meldPending) {
+			meldPending = false;
+			finalMelds(melds);
+		}
+		ArrayList<ArrayList<Card>> copy = copy(melds);
+		report(REPORT_FINAL_MELDS, () -> player.reportFinalMelds(playerNum, copy));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void laidOff(int playerNum, Card card, ArrayList<Card> meld) {
+		ArrayList<Card> copy = (ArrayList<Card>)meld.clone();
+		report(REPORT_LAYOFF, () -> player.reportLayoff(playerNum, card, copy));
+	}
+
+	@Override
+	public void cancelled() {
+		resolveKnock(null);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void scores(int[] scores) {
+		for(int p = 0; p < 2; p += 1) {
+			int playerNum = p;
+			ArrayList<Card> hand = (ArrayList<Card>)hands.get(p).clone();
+			report(REPORT_FINAL_HAND, () -> player.reportFinalHand(playerNum, hand));
+		}
+		int[] copy = scores.clone();
+		report(REPORT_SCORES, () -> player.reportScores(copy));
+	}
+}
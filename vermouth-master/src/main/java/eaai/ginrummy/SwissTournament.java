@@ -0,0 +1,326 @@
+package eaai.ginrummy;
+
+import com.opencsv.CSVWriter;
+import ginrummy.CompositeGameEventListener;
+import ginrummy.GameEventListener;
+import ginrummy.GinRummyPlayer;
+import ginrummy.TextGameEventListener;
+import eaai.ginrummy.util.FileMap;
+import eaai.ginrummy.util.SPRT;
+import eaai.ginrummy.util.ThreadPrintStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * A Swiss-system tournament: over a number of rounds (by default the base 2
+ * logarithm of the number of agents, rounded up), each agent plays a match
+ * against an agent of similar standing which it has not yet met. A match won
+ * (by games won) earns a point, a drawn match half a point; an agent left
+ * unpaired in a round with an odd number of agents receives a bye worth a
+ * point, at most once where possible. Agents take the first seat of a match
+ * as evenly as possible.
+ */
+public class SwissTournament extends Tournament {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(SwissTournament.class);
+
+	/* search steps of the pairing without rematches before allowing them */
+	private static final int PAIRING_STEPS = 1000000;
+
+	/* */
+	private final List<GinRummyPlayerClass> classes;
+
+	/* games per match */
+	private final int rounds;
+
+	/* number of Swiss rounds */
+	private final int swissRounds;
+
+	/* */
+	private final boolean verbose;
+
+	/**
+	 */
+	public SwissTournament(List<GinRummyPlayerClass> classes, int rounds, int swissRounds, boolean verbose, Random random) {
+		super(random);
+		this.classes = classes;
+		this.rounds = rounds;
+		this.swissRounds = swissRounds > 0 ? swissRounds : defaultRounds(classes.size());
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Returns the default number of rounds for the given number of agents,
+	 * the base 2 logarithm rounded up.
+	 *
+	 * @param agents the number of agents
+	 * @return the number of rounds
+	 */
+	public static int defaultRounds(int agents) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(agents - 1, 1)));
+	}
+
+	/**
+	 */
+	public void run() {
+		try {
+			LOG.debug("generating GinRummyPlayer pools");
+			List<GinRummyPlayerPool> pools = createPools(classes);
+			warmUp(pools);
+			int n = pools.size();
+
+			SwissState restored = (SwissState)restore();
+			SwissState state = restored != null ? restored : new SwissState(n, random);
+			double[] points = state.points;
+			boolean[][] met = state.met;
+			boolean[] byes = state.byes;
+			int[] seats = state.seats;
+			List<List<Integer>> opponents = state.opponents;
+			List<Integer> order = state.order;
+
+			CSVWriter playerWriter = openCSV("players.csv", "ID", "NAME");
+			if(restored == null) {
+				for(int p = 0; p < n; p += 1) { playerWriter.writeNext(new String[] { Integer.toString(p), classes.get(p).name() }); }
+			}
+
+			CSVWriter standingWriter = openCSV("standings.csv", "ROUND", "PLAYER", "POINTS", "BUCHHOLZ");
+
+			CSVWriter gamesWriter = openCSV("games.csv", "MATCH", "GAME", "PLAYER", "SCORE", "WIN", "HANDS", "CAPPED");
+
+			CSVWriter statsWriter = openCSV("stats.csv", "METHOD", "PLAYER", "TIME");
+
+			if(metrics != null) { metrics.plan((long)(swissRounds - state.round + 1) * (n / 2) * rounds); }
+			for(int r = state.round; r <= swissRounds; r += 1) {
+				order.sort(Comparator.comparingDouble((Integer p) -> -points[p]));
+				List<Integer> paired = new ArrayList<>(order);
+				if(paired.size() % 2 == 1) {
+					int bye = paired.get(paired.size() - 1);
+					for(int i = paired.size() - 1; i >= 0; i -= 1) {
+						if(!byes[paired.get(i)]) { bye = paired.get(i); break; }
+					}
+					paired.remove(Integer.valueOf(bye));
+					byes[bye] = true;
+					points[bye] += 1;
+					LOG.info("round {} bye to [{}]{}", r, bye, classes.get(bye));
+				}
+
+				List<int[]> pairs = new ArrayList<>();
+				if(!pair(paired, met, false, new boolean[n], pairs, new int[] { PAIRING_STEPS })) {
+					LOG.warn("round {} cannot be paired without rematches", r);
+					pairs.clear();
+					pair(paired, met, true, new boolean[n], pairs, new int[] { Integer.MAX_VALUE });
+				}
+
+				List<Job<Outcome>> jobs = new ArrayList<>();
+				for(int[] pair : pairs) {
+					// the agent which has taken the first seat less often takes it
+					int p0 = seats[pair[0]] <= seats[pair[1]] ? pair[0] : pair[1];
+					int p1 = p0 == pair[0] ? pair[1] : pair[0];
+					seats[p0] += 1;
+					seats[p1] -= 1;
+					met[p0][p1] = met[p1][p0] = true;
+					opponents.get(p0).add(p1);
+					opponents.get(p1).add(p0);
+
+					int match = state.match++;
+					long seed = random.nextLong();
+					jobs.add(() -> match(pools, match, p0, p1, new Random(seed), new Output(gamesWriter, statsWriter)));
+				}
+				execute(jobs, outcome -> {
+					double s0 = outcome.wins > outcome.losses ? 1 : outcome.wins == outcome.losses ? .5 : 0;
+					points[outcome.p0] += s0;
+					points[outcome.p1] += 1 - s0;
+					outcome.output.commit(gamesWriter, statsWriter);
+				});
+
+				for(int p = 0; p < n; p += 1) {
+					double buchholz = opponents.get(p).stream().mapToDouble(o -> points[o]).sum();
+					standingWriter.writeNext(new String[] { Integer.toString(r), Integer.toString(p), Double.toString(points[p]), Double.toString(buchholz) });
+				}
+				LOG.info("round {} points {}", r, Arrays.toString(points));
+				state.round = r + 1;
+				checkpoint(state);
+			}
+
+			// final standings by points, then by the points of the opponents met
+			List<Integer> standings = IntStream.range(0, n).boxed()
+				.sorted(Comparator.comparingDouble((Integer p) -> -points[p])
+					.thenComparingDouble(p -> -opponents.get(p).stream().mapToDouble(o -> points[o]).sum()))
+				.collect(Collectors.toList());
+			for(int rank = 0; rank < standings.size(); rank += 1) {
+				int p = standings.get(rank);
+				LOG.info("final standing {}: [{}]{} ({} points)", rank + 1, p, classes.get(p), points[p]);
+			}
+
+			reportLimits();
+			closePools(pools);
+
+			playerWriter.close();
+			standingWriter.close();
+			gamesWriter.close();
+			statsWriter.close();
+		}
+		catch(IOException except) {
+			LOG.fatal("could not write game files", except);
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * the state of the tournament between rounds, checkpointed after each
+	 */
+	private static class SwissState implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* the next round, and the id of its first match */
+		private int round = 1, match = 0;
+
+		/* */
+		private final double[] points;
+
+		/* whether each pair of agents has met */
+		private final boolean[][] met;
+
+		/* whether each agent has had a bye */
+		private final boolean[] byes;
+
+		/* first seats taken less second seats taken, per agent */
+		private final int[] seats;
+
+		/* */
+		private final List<List<Integer>> opponents;
+
+		/* order of standing, the initial order being random */
+		private final List<Integer> order;
+
+		/*
+		 */
+		private SwissState(int agents, Random random) {
+			points = new double[agents];
+			met = new boolean[agents][agents];
+			byes = new boolean[agents];
+			seats = new int[agents];
+			opponents = IntStream.range(0, agents).mapToObj(p -> new ArrayList<Integer>()).collect(Collectors.toCollection(ArrayList::new));
+			order = IntStream.range(0, agents).boxed().collect(Collectors.toCollection(ArrayList::new));
+			Collections.shuffle(order, random);
+		}
+	}
+
+	/*
+	 * pairs the agents in order of standing by backtracking search, each
+	 * unpaired agent being paired with the nearest unpaired agent below it
+	 * which it has not met (unless rematches are allowed); fails once the
+	 * search exceeds its steps
+	 */
+	private static boolean pair(List<Integer> order, boolean[][] met, boolean rematches, boolean[] paired, List<int[]> pairs, int[] steps) {
+		int i = 0;
+		while(i < order.size() && paired[order.get(i)]) { i += 1; }
+		if(i == order.size()) { return true; }
+		int a = order.get(i);
+		for(int j = i + 1; j < order.size(); j += 1) {
+			int b = order.get(j);
+			if(paired[b] || (met[a][b] && !rematches)) { continue; }
+			if(--steps[0] < 0) { return false; }
+			paired[a] = paired[b] = true;
+			pairs.add(new int[] { a, b });
+			if(pair(order, met, rematches, paired, pairs, steps)) { return true; }
+			pairs.remove(pairs.size() - 1);
+			paired[a] = paired[b] = false;
+		}
+		return false;
+	}
+
+	/*
+	 * the outcome of a match
+	 */
+	private class Outcome {
+		/* */
+		private final int p0, p1;
+
+		/* games won by each agent */
+		private final int wins, losses;
+
+		/* */
+		private final Output output;
+
+		/*
+		 */
+		private Outcome(int p0, int p1, int wins, int losses, Output output) {
+			this.p0 = p0;
+			this.p1 = p1;
+			this.wins = wins;
+			this.losses = losses;
+			this.output = output;
+		}
+	}
+
+	/*
+	 * plays the games of a match, acquiring an instance of each agent for the
+	 * duration of the match
+	 */
+	private Outcome match(List<GinRummyPlayerPool> pools, int m, int p0, int p1, Random random, Output output) throws IOException {
+		LOG.info("starting match [{}]{} vs [{}]{}", p0, classes.get(p0), p1, classes.get(p1));
+		GameRecordWriter recordWriter = openRecord(String.format("%d-%dv%d.rec", m, p0, p1));
+		// acquire in index order, as other matches may hold instances of either agent
+		GinRummyPlayer player0 = p0 < p1 ? pools.get(p0).acquire() : null;
+		GinRummyPlayer player1 = pools.get(p1).acquire();
+		if(player0 == null) { player0 = pools.get(p0).acquire(); }
+		int wins = 0, losses = 0, matchHands = 0;
+		SPRT test = newSprt();
+		for(int g = 0; g < rounds; g += 1) {
+			int limit = handLimit(matchHands);
+			if(limit < 0) {
+				LOG.warn("match hand limit reached after {} of {} games", g, rounds);
+				break;
+			}
+			PrintStream gameStream = output.console;
+			if(verbose) {
+				Path gamePath = FileMap.get().getPath(String.format("%d-%dv%d-game%d.txt", m, p0, p1, g));
+				gameStream = new PrintStream(Files.newOutputStream(gamePath, StandardOpenOption.CREATE_NEW));
+			}
+			PrintStream out = ThreadPrintStream.setOut(gameStream);
+			PrintStream err = ThreadPrintStream.setErr(gameStream);
+
+			GinRummyAgent agent0 = new GinRummyAgent(player0, p0, output.statsWriter, gameStream, gameStream);
+			GinRummyAgent agent1 = new GinRummyAgent(player1, p1, output.statsWriter, gameStream, gameStream);
+			if(recordWriter != null) { recordWriter.startGame(m, g); }
+			GameEventListener listener = CompositeGameEventListener.of(verbose ? new TextGameEventListener(gameStream) : null, recordWriter);
+			Result result = play(agent0, agent1, listener, limit, random);
+			int[] scores = result.scores;
+			matchHands += result.hands;
+
+			ThreadPrintStream.setOut(out);
+			ThreadPrintStream.setErr(err);
+			if(gameStream != output.console) { gameStream.close(); }
+
+			output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(p0), Integer.toString(scores[0]), Integer.toString(scores[0] > scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+			output.gamesWriter.writeNext(new String[] { Integer.toString(m), Integer.toString(g), Integer.toString(p1), Integer.toString(scores[1]), Integer.toString(scores[0] < scores[1] ? 1 : 0), Integer.toString(result.hands), Integer.toString(result.capped ? 1 : 0) });
+			wins += scores[0] > scores[1] ? 1 : 0;
+			losses += scores[0] < scores[1] ? 1 : 0;
+			LOG.info("game {} final scores [{}, {}]", g, scores[0], scores[1]);
+			if(sprtDecided(test, scores)) { break; }
+		}
+		if(test != null && test.decision() == SPRT.UNDECIDED) { LOG.info("sprt undecided after {} games (llr {})", test.games(), String.format("%.4f", test.llr())); }
+		pools.get(p0).release(player0);
+		pools.get(p1).release(player1);
+		if(recordWriter != null) { recordWriter.close(); }
+		LOG.info("match [{}]{} ({} wins) vs [{}]{} ({} wins)", p0, classes.get(p0), wins, p1, classes.get(p1), losses);
+		return new Outcome(p0, p1, wins, losses, output);
+	}
+}
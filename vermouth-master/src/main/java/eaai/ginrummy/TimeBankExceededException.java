@@ -0,0 +1,32 @@
+package eaai.ginrummy;
+
+/**
+ * Thrown by a {@link GinRummyAgent} once its CPU time bank for the current
+ * game is exhausted. The agent forfeits the game.
+ */
+public class TimeBankExceededException extends RuntimeException {
+	/* */
+	private static final long serialVersionUID = 1L;
+
+	/* */
+	private final GinRummyAgent agent;
+
+	/**
+	 * @param agent the agent whose time bank was exhausted
+	 * @param method the call during which the time bank was exhausted
+	 * @param overrun the CPU time used beyond the time bank, in nanoseconds
+	 */
+	public TimeBankExceededException(GinRummyAgent agent, String method, long overrun) {
+		super(String.format("time bank exceeded by %.3f ms in %s", overrun / 1e6, method));
+		this.agent = agent;
+	}
+
+	/**
+	 * Returns the agent whose time bank was exhausted.
+	 *
+	 * @return the agent whose time bank was exhausted
+	 */
+	public GinRummyAgent getAgent() {
+		return agent;
+	}
+}
@@ -0,0 +1,18 @@
+package eaai.ginrummy;
+
+import ginrummy.GinRummyPlayer;
+
+/**
+ * A GinRummyPlayer which measures the CPU time of its own calls, rather than
+ * having it measured on the calling thread, e.g., because its agent runs in
+ * another JVM ({@link RemoteGinRummyPlayer}) or its decisions are computed in
+ * batches shared with other games ({@link GinRummyContextDispatcher}).
+ */
+public interface TimedGinRummyPlayer extends GinRummyPlayer {
+	/**
+	 * Returns the CPU time of all calls since the previous drain.
+	 *
+	 * @return the CPU time, in nanoseconds
+	 */
+	public long drainCallTime();
+}
@@ -19,9 +19,41 @@
  */
 package eaai.ginrummy;
 
-import ginrummy.GinRummyPlayer;
+import com.opencsv.CSVWriter;
+import eaai.ginrummy.util.CSVBuffer;
+import eaai.ginrummy.util.FileMap;
+import eaai.ginrummy.util.Journal;
+import eaai.ginrummy.util.SPRT;
+import eaai.ginrummy.util.StubPrintStream;
+import eaai.ginrummy.util.ThreadPrintStream;
+import ginrummy.BatchingGinRummyPlayer;
+import ginrummy.GameEventListener;
+import ginrummy.GinRummyBitPlayer;
 import ginrummy.GinRummyGame;
+import ginrummy.GinRummyPlayer;
+import ginrummy.GinRummyTurnPlayer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -32,8 +64,309 @@ public abstract class Tournament {
 	protected static final Logger LOG = LogManager.getLogger(Tournament.class);
 
 	/**
+	 * random number generator of the tournament (restored on resumption)
+	 */
+	protected Random random;
+
+	/**
+	 * whether binary game records are written for each match
+	 */
+	protected boolean record = false;
+
+	/**
+	 * whether all agents, rather than only those implementing
+	 * GinRummyTurnPlayer, receive game events in batched turns
+	 */
+	protected boolean batched = false;
+
+	/**
+	 * per-game CPU time bank of each agent, in nanoseconds; negative if
+	 * unlimited
+	 */
+	protected long timeBank = -1;
+
+	/**
+	 * number of worker threads games are played on
+	 */
+	protected int threads = 1;
+
+	/**
+	 * maximum number of instances per agent, and whether they are all created
+	 * before the tournament
+	 */
+	protected int poolSize = 1;
+	protected boolean prewarm = false;
+
+	/**
+	 * number of warm-up games per agent instance, and the tolerance (percent)
+	 * on the change in mean call time between warm-up games
+	 */
+	protected int warmup = 0;
+	protected double warmupTolerance = 0;
+
+	/**
+	 * maximum number of hands per game and per match; 0 if unlimited
+	 */
+	protected int maxHands = 0, maxMatchHands = 0;
+
+	/**
+	 * sequential test stopping each match once decided; null if every match
+	 * plays all of its games
+	 */
+	protected SPRT sprt = null;
+
+	/**
+	 * whether Elo rounds pair agents adaptively rather than in a full round
+	 * robin, and the change in average rankings (Elo points) within which the
+	 * rankings are considered stable, ending the tournament; 0 if disabled
+	 */
+	protected boolean adaptive = false;
+	protected double stability = 0;
+
+	/**
+	 * whether Elo rounds rank agents by Glicko-2 rather than fixed-K Elo, and
+	 * the rating deviation (Elo points) below which an agent's rating is
+	 * considered converged; 0 if disabled
+	 */
+	protected boolean glicko = false;
+	protected double convergedDeviation = 0;
+
+	/**
+	 * estimated CPU time of each agent per hand (nanoseconds), from warm-up
+	 * or a previous tournament, or null if unknown; whether long matches are
+	 * split into chunks of games
+	 */
+	protected double[] costs = null;
+	protected boolean split = false;
+
+	/**
+	 * counts of games played, ended by the hand limit, and drawn
+	 */
+	protected int gamesPlayed = 0, gamesCapped = 0, gamesDrawn = 0;
+
+	/**
+	 * checkpoint journal, or null; minimum time between checkpoints, in
+	 * milliseconds, and time of the last checkpoint
+	 */
+	protected Journal journal = null;
+	protected long checkpointInterval = 0;
+	private long lastCheckpoint = 0;
+
+	/**
+	 * coordinator the matches are dispatched to, or null if they are played
+	 * locally; worker playing the matches of a coordinator, or null
+	 */
+	protected Coordinator coordinator = null;
+	protected Worker worker = null;
+
+	/**
+	 * live metrics of the tournament, or null
+	 */
+	protected TournamentMetrics metrics = null;
+
+	/**
+	 * store of match results reused in place of playing matches, or null
+	 */
+	protected ResultCache cache = null;
+
+	/* game counts of the job running on each thread */
+	private final ThreadLocal<int[]> jobCounts = new ThreadLocal<>();
+
+	/**
+	 * A unit of work of a tournament (e.g., a match, or a single game), run by
+	 * the execution engine on a worker thread.
+	 */
+	protected interface Job<T> {
+		T run() throws IOException;
+	}
+
+	/**
+	 * The consumer of job results, called on the tournament thread in the
+	 * order the jobs were submitted.
+	 */
+	protected interface Commit<T> {
+		void accept(T result) throws IOException;
+	}
+
+	/**
+	 * The CSV rows and console output of a job. When games are played on
+	 * worker threads, they are buffered until the job is committed; otherwise
+	 * they are written directly.
+	 */
+	protected class Output {
+		/** games.csv rows of the job */
+		public final CSVWriter gamesWriter;
+
+		/** stats.csv rows of the job */
+		public final CSVWriter statsWriter;
+
+		/** console output of the job (the agents' output, unless verbose) */
+		public final PrintStream console;
+
+		/* */
+		private final ByteArrayOutputStream buffer;
+
+		/**
+		 * Creates the output of a job writing to the given files.
+		 *
+		 * @param gamesFile the games.csv writer
+		 * @param statsFile the stats.csv writer
+		 */
+		public Output(CSVWriter gamesFile, CSVWriter statsFile) {
+			if(threads <= 1) {
+				gamesWriter = gamesFile;
+				statsWriter = statsFile;
+				console = System.out;
+				buffer = null;
+			}
+			else {
+				gamesWriter = new CSVBuffer();
+				statsWriter = new CSVBuffer();
+				buffer = new ByteArrayOutputStream();
+				console = new PrintStream(buffer, true);
+			}
+		}
+
+		/**
+		 * Writes the buffered rows and console output of the job to the given
+		 * files and the console.
+		 *
+		 * @param gamesFile the games.csv writer
+		 * @param statsFile the stats.csv writer
+		 */
+		public void commit(CSVWriter gamesFile, CSVWriter statsFile) throws IOException {
+			if(buffer == null) { return; }
+			((CSVBuffer)gamesWriter).drainTo(gamesFile);
+			((CSVBuffer)statsWriter).drainTo(statsFile);
+			buffer.writeTo(System.out);
+			System.out.flush();
+			buffer.reset();
+		}
+	}
+
+	/**
+	 * A checkpoint of the tournament state: the state common to all
+	 * tournaments, and the state of the tournament type (e.g., its position in
+	 * the schedule and its rankings).
+	 */
+	private static class Snapshot implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* */
+		private final Random random;
+
+		/* */
+		private final int gamesPlayed, gamesCapped, gamesDrawn;
+
+		/* */
+		private final Serializable state;
+
+		/*
+		 */
+		private Snapshot(Random random, int gamesPlayed, int gamesCapped, int gamesDrawn, Serializable state) {
+			this.random = random;
+			this.gamesPlayed = gamesPlayed;
+			this.gamesCapped = gamesCapped;
+			this.gamesDrawn = gamesDrawn;
+			this.state = state;
+		}
+	}
+
+	/**
+	 * The checkpoint state of a tournament of independent matches: the seed
+	 * of each match, drawn before the first, and the number of matches
+	 * completed.
 	 */
-	protected final Random random;
+	protected static class Schedule implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/** seeds of the matches, in order */
+		public final long[] seeds;
+
+		/** number of matches completed */
+		public int completed = 0;
+
+		/**
+		 * Creates the schedule of the given number of matches.
+		 *
+		 * @param random the random number generator the seeds are drawn from
+		 * @param matches the number of matches
+		 */
+		public Schedule(Random random, int matches) {
+			this.seeds = new long[matches];
+			for(int m = 0; m < matches; m += 1) { seeds[m] = random.nextLong(); }
+		}
+	}
+
+	/**
+	 * A match of a tournament of independent matches, or a chunk of the games
+	 * of a match, as dispatched to a worker thread or a worker: its position
+	 * in the list of matches being executed, its match id, its agents, the
+	 * seed of its games, and its range of games.
+	 */
+	protected static class Match implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/** position of the match in the matches being executed */
+		public final int index;
+
+		/** match id, as written to games.csv */
+		public final int match;
+
+		/** agents of the match, by seat */
+		public final int p0, p1;
+
+		/** seed of the random number generator of the games */
+		public final long seed;
+
+		/** first game, and number of games */
+		public final int first, games;
+
+		/**
+		 */
+		public Match(int index, int match, int p0, int p1, long seed, int first, int games) {
+			this.index = index;
+			this.match = match;
+			this.p0 = p0;
+			this.p1 = p1;
+			this.seed = seed;
+			this.first = first;
+			this.games = games;
+		}
+	}
+
+	/**
+	 * The player of the matches of a tournament, writing the results of a
+	 * match to the given output.
+	 */
+	protected interface MatchPlayer {
+		Output play(Match match, Output output) throws IOException;
+	}
+
+	/**
+	 * The outcome of a single game.
+	 */
+	protected static class Result {
+		/** final scores, indexed by seat */
+		public final int[] scores;
+
+		/** number of hands dealt, including cancelled and forfeited hands */
+		public final int hands;
+
+		/** whether the game ended by reaching the hand limit */
+		public final boolean capped;
+
+		/**
+		 */
+		public Result(int[] scores, int hands, boolean capped) {
+			this.scores = scores;
+			this.hands = hands;
+			this.capped = capped;
+		}
+	}
 
 	/**
 	 */
@@ -41,16 +374,820 @@ public abstract class Tournament {
 		this.random = random;
 	}
 
+	/**
+	 * Sets whether a binary game record stream is written to the output
+	 * archive for each match.
+	 *
+	 * @param record whether game records are written
+	 */
+	public void setRecord(boolean record) {
+		this.record = record;
+	}
+
+	/**
+	 * Sets the number of worker threads games are played on. With a single
+	 * thread (the default), games are played one at a time on the tournament
+	 * thread; with more, independent games and matches are played
+	 * concurrently, with results written in the same order regardless.
+	 *
+	 * @param threads the number of worker threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(threads, 1);
+	}
+
+	/**
+	 * Sets the maximum number of instances of each agent. With a single
+	 * instance (the default), every match of an agent uses the same instance.
+	 *
+	 * @param poolSize the maximum number of instances of each agent
+	 */
+	public void setPoolSize(int poolSize) {
+		this.poolSize = Math.max(poolSize, 1);
+	}
+
+	/**
+	 * Sets whether all instances of each agent are created before the
+	 * tournament starts, rather than on first use.
+	 *
+	 * @param prewarm whether instances are created before the tournament
+	 */
+	public void setPrewarm(boolean prewarm) {
+		this.prewarm = prewarm;
+	}
+
+	/**
+	 * Sets the number of unmeasured warm-up games played by every agent
+	 * instance before the tournament, letting the JIT compile the agent's code
+	 * so that the tournament statistics reflect steady-state call times.
+	 *
+	 * @param warmup the number of warm-up games per instance
+	 */
+	public void setWarmup(int warmup) {
+		this.warmup = Math.max(warmup, 0);
+	}
+
+	/**
+	 * Sets the tolerance on call time stability for warm-up. With a positive
+	 * tolerance, warm-up continues past the given number of games until the
+	 * mean call time of a game is within the tolerance of the previous game's,
+	 * for at most four times the given number of games.
+	 *
+	 * @param warmupTolerance the tolerance, in percent, or 0 to play exactly
+	 * the given number of warm-up games
+	 */
+	public void setWarmupTolerance(double warmupTolerance) {
+		this.warmupTolerance = Math.max(warmupTolerance, 0);
+	}
+
+	/**
+	 * Sets the estimated cost of each agent, by which matches are scheduled
+	 * longest first. Costs measured in warm-up take the place of the given
+	 * costs.
+	 *
+	 * @param costs the estimated CPU time of each agent per hand, or null if
+	 * matches are scheduled in order
+	 */
+	public void setCosts(double[] costs) {
+		this.costs = costs;
+	}
+
+	/**
+	 * Sets whether matches estimated to take more than a quarter of the work
+	 * per thread are split into chunks of games, which are played
+	 * concurrently. The games of a split match are dealt from a seed per
+	 * chunk, and so differ from those of the unsplit match.
+	 *
+	 * @param split whether long matches are split
+	 */
+	public void setSplit(boolean split) {
+		this.split = split;
+	}
+
+	/**
+	 * Sets the coordinator the matches of the tournament are dispatched to,
+	 * rather than being played on the worker threads.
+	 *
+	 * @param coordinator the coordinator, or null to play matches locally
+	 */
+	public void setCoordinator(Coordinator coordinator) {
+		this.coordinator = coordinator;
+	}
+
+	/**
+	 * Sets the worker through which the tournament plays the matches of a
+	 * coordinator, in place of running the tournament.
+	 *
+	 * @param worker the worker, or null to run the tournament
+	 */
+	public void setWorker(Worker worker) {
+		this.worker = worker;
+	}
+
+	/**
+	 * Sets the live metrics of the tournament, to which its progress and the
+	 * games and decisions of its agents are reported.
+	 *
+	 * @param metrics the metrics, or null
+	 */
+	public void setMetrics(TournamentMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the store of match results of the tournament. Matches of
+	 * independent-match tournaments are then dealt from the seed of their
+	 * pairing (see {@link ResultCache#seed}), stored matches are reused
+	 * rather than played, and played matches are stored.
+	 *
+	 * @param cache the store, or null to play every match
+	 */
+	public void setCache(ResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Sets the checkpoint journal of the tournament. CSV files opened with
+	 * openCSV are journaled, and the tournament state is checkpointed at most
+	 * once per interval; a resumed journal restores its last checkpoint.
+	 *
+	 * @param journal the journal, or null for no checkpoints
+	 * @param checkpointInterval the minimum time between checkpoints, in
+	 * seconds, or 0 to checkpoint after every match (or round)
+	 */
+	public void setJournal(Journal journal, long checkpointInterval) {
+		this.journal = journal;
+		this.checkpointInterval = Math.max(checkpointInterval, 0) * 1000;
+	}
+
+	/**
+	 * Opens a CSV file in the output archive, writing its header. When
+	 * resuming, the rows written up to the last checkpoint are written in
+	 * place of the header.
+	 *
+	 * @param name the name of the file
+	 * @param header the header row
+	 * @return the writer
+	 */
+	protected CSVWriter openCSV(String name, String... header) throws IOException {
+		Path path = FileMap.get().getPath(name);
+		PrintWriter output = new PrintWriter(Files.newOutputStream(path, StandardOpenOption.CREATE_NEW));
+		if(journal != null) { return journal.writer(name, output, header); }
+		CSVWriter writer = new CSVWriter(output, ',', '\0', '\\', "\n");
+		writer.writeNext(header);
+		return writer;
+	}
+
+	/**
+	 * Restores the last checkpoint of a resumed tournament: the random number
+	 * generator and game counts, and the state of the tournament type.
+	 *
+	 * @return the state of the tournament type, or null if not resuming
+	 */
+	protected Serializable restore() {
+		if(journal == null || journal.getSnapshot() == null) { return null; }
+		Snapshot snapshot = (Snapshot)journal.getSnapshot();
+		random = snapshot.random;
+		gamesPlayed = snapshot.gamesPlayed;
+		gamesCapped = snapshot.gamesCapped;
+		gamesDrawn = snapshot.gamesDrawn;
+		lastCheckpoint = System.currentTimeMillis();
+		LOG.info("resuming from checkpoint after {} games", gamesPlayed);
+		return snapshot.state;
+	}
+
+	/**
+	 * Checkpoints the tournament, if journaled and the checkpoint interval has
+	 * passed since the last checkpoint. All rows of completed work must have
+	 * been written, and none of work in progress.
+	 *
+	 * @param state the state of the tournament type, from which it continues
+	 * when resumed
+	 */
+	protected void checkpoint(Serializable state) throws IOException {
+		if(journal == null) { return; }
+		long now = System.currentTimeMillis();
+		if(now - lastCheckpoint < checkpointInterval) { return; }
+		journal.snapshot(new Snapshot(random, gamesPlayed, gamesCapped, gamesDrawn, state));
+		lastCheckpoint = now;
+		LOG.debug("checkpointed after {} games", gamesPlayed);
+	}
+
+	/**
+	 * Creates an instance pool for each agent, prewarming the pools if
+	 * requested.
+	 *
+	 * @param classes the agent classes
+	 * @return the instance pools, in the order of the classes
+	 */
+	protected List<GinRummyPlayerPool> createPools(List<GinRummyPlayerClass> classes) {
+		List<GinRummyPlayerPool> pools = classes.stream()
+			.map(c -> new GinRummyPlayerPool(c, poolSize))
+			.collect(Collectors.toList());
+		// the agents of a coordinator are played by its workers
+		if(prewarm && coordinator == null) {
+			LOG.debug("prewarming {} GinRummyPlayer instances per agent", poolSize);
+			pools.forEach(pool -> pool.prewarm(poolSize));
+		}
+		return pools;
+	}
+
+	/**
+	 * Closes the given instance pools.
+	 *
+	 * @param pools the instance pools
+	 */
+	protected void closePools(List<GinRummyPlayerPool> pools) throws IOException {
+		for(GinRummyPlayerPool pool : pools) { pool.close(); }
+	}
+
+	/**
+	 * Warms up every instance of the given pools (creating them as needed) by
+	 * playing warm-up games against a throwaway instance of the same agent.
+	 * Warm-up games are neither scored nor recorded; their call times are
+	 * written to warmup.csv rather than stats.csv.
+	 *
+	 * @param pools the instance pools
+	 */
+	protected void warmUp(List<GinRummyPlayerPool> pools) throws IOException {
+		if(warmup == 0) { return; }
+
+		Path warmupPath = FileMap.get().getPath("warmup.csv");
+		CSVWriter warmupWriter = new CSVWriter(new PrintWriter(Files.newOutputStream(warmupPath, StandardOpenOption.CREATE_NEW)), ',', '\0', '\\', "\n");
+		warmupWriter.writeNext(new String[] { "METHOD", "PLAYER", "TIME" });
+
+		PrintStream stub = new StubPrintStream();
+		PrintStream out = ThreadPrintStream.setOut(stub);
+		PrintStream err = ThreadPrintStream.setErr(stub);
+		try {
+			double[] measured = new double[pools.size()];
+			for(int p = 0; p < pools.size(); p += 1) {
+				GinRummyPlayerPool pool = pools.get(p);
+				long time = 0, hands = 0;
+				List<GinRummyPlayer> instances = new ArrayList<>();
+				for(int i = 0; i < pool.size(); i += 1) { instances.add(pool.acquire()); }
+				GinRummyPlayer opponent = pool.getType().newInstance();
+
+				for(int i = 0; i < instances.size(); i += 1) {
+					int games = 0;
+					double previous = Double.NaN, mean = Double.NaN;
+					while(games < warmup || (warmupTolerance > 0 && games < 4 * warmup && !(Math.abs(mean - previous) <= previous * warmupTolerance / 100))) {
+						GinRummyAgent agent0 = new GinRummyAgent(instances.get(i), p, warmupWriter, stub, stub);
+						GinRummyAgent agent1 = new GinRummyAgent(opponent, p, null, stub, stub);
+						Result result;
+						if((games & 1) == 1) { result = game(agent1, agent0, GameEventListener.NONE, maxHands, null); }
+						else { result = game(agent0, agent1, GameEventListener.NONE, maxHands, null); }
+						games += 1;
+						time += agent0.getCallTime();
+						hands += result.hands;
+						previous = mean;
+						mean = agent0.getCalls() == 0 ? 0 : (double)agent0.getCallTime() / agent0.getCalls();
+					}
+					LOG.info("warmed up [{}]{} instance {} in {} games (mean call time {} us)", p, pool.getType(), i, games, String.format("%.1f", mean / 1e3));
+				}
+
+				if(opponent instanceof Closeable) { ((Closeable)opponent).close(); }
+				instances.forEach(pool::release);
+				measured[p] = hands == 0 ? 0 : (double)time / hands;
+			}
+			costs = measured;
+		}
+		finally {
+			ThreadPrintStream.setOut(out);
+			ThreadPrintStream.setErr(err);
+		}
+
+		warmupWriter.close();
+	}
+
+	/**
+	 * Sets whether all agents receive game events in batched turns, with a
+	 * single (measured) call per decision. Agents implementing
+	 * GinRummyTurnPlayer always do; other agents are otherwise called once per
+	 * event.
+	 *
+	 * @param batched whether all agents receive batched turns
+	 */
+	public void setBatched(boolean batched) {
+		this.batched = batched;
+	}
+
+	/**
+	 * Sets the per-game CPU time bank of each agent. An agent exhausting its
+	 * time bank forfeits the game.
+	 *
+	 * @param timeBank the time bank, in milliseconds, or a negative value for
+	 * an unlimited time bank
+	 */
+	public void setTimeBank(long timeBank) {
+		this.timeBank = timeBank < 0 ? -1 : timeBank * 1000000;
+	}
+
+	/**
+	 * Sets the maximum number of hands per game. A game reaching the limit
+	 * ends, won by the player with the greater score or drawn on equal scores.
+	 *
+	 * @param maxHands the maximum number of hands per game, or 0 if unlimited
+	 */
+	public void setMaxHands(int maxHands) {
+		this.maxHands = Math.max(maxHands, 0);
+	}
+
+	/**
+	 * Sets the maximum number of hands per match. Each game is limited to the
+	 * hands remaining in the match, and no further games of a match are played
+	 * once its hands are exhausted.
+	 *
+	 * @param maxMatchHands the maximum number of hands per match, or 0 if
+	 * unlimited
+	 */
+	public void setMaxMatchHands(int maxMatchHands) {
+		this.maxMatchHands = Math.max(maxMatchHands, 0);
+	}
+
+	/**
+	 * Returns the hand limit of the next game of a match, given the hands
+	 * already played in the match.
+	 *
+	 * @param matchHands the hands already played in the match
+	 * @return the hand limit of the next game, 0 if unlimited, or -1 if the
+	 * match has exhausted its hands
+	 */
+	protected int handLimit(int matchHands) {
+		if(maxMatchHands == 0) { return maxHands; }
+		int remaining = maxMatchHands - matchHands;
+		if(remaining <= 0) { return -1; }
+		return maxHands == 0 ? remaining : Math.min(maxHands, remaining);
+	}
+
+	/**
+	 * Sets the sequential probability ratio test of the matches. Each match
+	 * tests the expected score of its first agent, and ends once the test
+	 * accepts either hypothesis.
+	 *
+	 * @param sprt the test, or null if every match plays all of its games
+	 */
+	public void setSprt(SPRT sprt) {
+		this.sprt = sprt;
+	}
+
+	/**
+	 * Sets whether Elo rounds pair agents adaptively, each round playing at
+	 * most one game per agent between the pairs of greatest expected
+	 * information, rather than a full round robin.
+	 *
+	 * @param adaptive whether rounds are paired adaptively
+	 */
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	/**
+	 * Sets whether Elo tournaments rank agents by Glicko-2 (see
+	 * {@link Glicko2}), each round being a rating period, rather than by
+	 * fixed-K Elo updates.
+	 *
+	 * @param glicko whether agents are ranked by Glicko-2
+	 */
+	public void setGlicko(boolean glicko) {
+		this.glicko = glicko;
+	}
+
+	/**
+	 * Sets the rating deviation below which the Glicko-2 rating of an agent
+	 * is considered converged. Two converged agents are not paired, and the
+	 * tournament ends once every agent has converged.
+	 *
+	 * @param convergedDeviation the deviation, in Elo points, or 0 to pair
+	 * agents regardless
+	 */
+	public void setConvergedDeviation(double convergedDeviation) {
+		this.convergedDeviation = Math.max(convergedDeviation, 0);
+	}
+
+	/**
+	 * Sets the stability tolerance of Elo tournaments, which end once the
+	 * order of the average rankings is unchanged and no average ranking
+	 * changes by the tolerance or more over several consecutive rounds.
+	 *
+	 * @param stability the tolerance, in Elo points, or 0 to play all rounds
+	 */
+	public void setStability(double stability) {
+		this.stability = Math.max(stability, 0);
+	}
+
+	/**
+	 * Returns a new sequential test for a match.
+	 *
+	 * @return the test, or null if matches are not tested
+	 */
+	protected SPRT newSprt() {
+		return sprt == null ? null : sprt.restart();
+	}
+
+	/**
+	 * Adds the outcome of a game to the sequential test of a match, logging
+	 * the log-likelihood ratio and any decision.
+	 *
+	 * @param test the test of the match, or null
+	 * @param scores the final scores of the game, indexed by seat
+	 * @return whether the test has decided, ending the match
+	 */
+	protected boolean sprtDecided(SPRT test, int[] scores) {
+		if(test == null) { return false; }
+		int decision = test.add(scores[0] > scores[1] ? 1 : scores[0] == scores[1] ? .5 : 0);
+		LOG.info("game {} llr {} [{}, {}]", test.games() - 1, String.format("%.4f", test.llr()), String.format("%.4f", test.lower()), String.format("%.4f", test.upper()));
+		if(decision == SPRT.UNDECIDED) { return false; }
+		LOG.info("sprt accepted H{} after {} games (llr {})", decision == SPRT.H1 ? 1 : 0, test.games(), String.format("%.4f", test.llr()));
+		return true;
+	}
+
+	/**
+	 * Logs how often games reached the hand limit, if any limit is set.
+	 */
+	protected void reportLimits() {
+		if(maxHands == 0 && maxMatchHands == 0) { return; }
+		LOG.info("{} of {} games reached the hand limit ({} drawn)", gamesCapped, gamesPlayed, gamesDrawn);
+	}
+
+	/**
+	 * Opens a game record stream with the given name in the output archive, if
+	 * game records are enabled.
+	 *
+	 * @param name the record entry name
+	 * @return the record writer, or null if game records are disabled
+	 */
+	protected GameRecordWriter openRecord(String name) throws IOException {
+		if(!record) { return null; }
+		Path path = FileMap.get().getPath(name);
+		return new GameRecordWriter(Files.newByteChannel(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * Runs the given jobs on the worker threads, committing their results on
+	 * the calling thread in the order of the jobs, regardless of the order in
+	 * which they complete. With a single worker thread, each job runs on the
+	 * calling thread and is committed before the next job starts.
+	 *
+	 * @param jobs the jobs
+	 * @param commit the consumer of the job results
+	 */
+	protected <T> void execute(List<Job<T>> jobs, Commit<T> commit) throws IOException {
+		execute(jobs, null, commit);
+	}
+
+	/**
+	 * Runs the given jobs as for execute, starting them in the given order
+	 * (e.g., longest first), while still committing their results in the
+	 * order of the jobs.
+	 *
+	 * @param jobs the jobs
+	 * @param order the indices of the jobs in the order they are started, or
+	 * null to start them in order
+	 * @param commit the consumer of the job results
+	 */
+	protected <T> void execute(List<Job<T>> jobs, int[] order, Commit<T> commit) throws IOException {
+		// the games of a job are counted once it is committed, so that a checkpoint counts no games in progress
+		List<int[]> counts = new ArrayList<>();
+		for(int j = 0; j < jobs.size(); j += 1) { counts.add(new int[3]); }
+		if(threads <= 1) {
+			for(int j = 0; j < jobs.size(); j += 1) {
+				T value = counted(jobs.get(j), counts.get(j));
+				count(counts.get(j));
+				commit.accept(value);
+			}
+			return;
+		}
+
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "game-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<Future<T>> futures = new ArrayList<>(Collections.nCopies(jobs.size(), null));
+		for(int i = 0; i < jobs.size(); i += 1) {
+			int j = order == null ? i : order[i];
+			Job<T> job = jobs.get(j);
+			int[] jobCounts = counts.get(j);
+			futures.set(j, executor.submit(() -> counted(job, jobCounts)));
+		}
+		try {
+			for(int j = 0; j < futures.size(); j += 1) {
+				T value = futures.get(j).get();
+				count(counts.get(j));
+				commit.accept(value);
+			}
+		}
+		catch(InterruptedException except) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for games", except);
+		}
+		catch(ExecutionException except) {
+			Throwable cause = except.getCause();
+			if(cause instanceof IOException) { throw (IOException)cause; }
+			if(cause instanceof RuntimeException) { throw (RuntimeException)cause; }
+			if(cause instanceof Error) { throw (Error)cause; }
+			throw new IllegalStateException(cause);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays the given matches, locally on the worker threads or on the workers
+	 * of the coordinator, writing their rows to the given files and then
+	 * committing each match on the calling thread in the order of the matches.
+	 * When the costs of the agents are known, matches are started longest
+	 * first, and long matches may be split into chunks of games (see
+	 * setSplit); rows are written in the same order regardless.
+	 *
+	 * @param matches the matches, indexed by their position in the list
+	 * @param player the player of the matches
+	 * @param gamesFile the games.csv writer
+	 * @param statsFile the stats.csv writer
+	 * @param commit the consumer of each match, once all of its rows are
+	 * written
+	 */
+	protected void executeMatches(List<Match> matches, MatchPlayer player, CSVWriter gamesFile, CSVWriter statsFile, Commit<Match> commit) throws IOException {
+		if(cache != null) {
+			executeCached(matches, player, gamesFile, statsFile, commit);
+			return;
+		}
+		List<Match> chunks = split(matches);
+		int[] order = order(chunks);
+		if(metrics != null) { metrics.plan(chunks.stream().mapToLong(chunk -> chunk.games).sum()); }
+		// the chunks of a match are consecutive, and the match is committed with its last chunk
+		Commit<Match> committed = chunk -> {
+			if(chunk.index + 1 == chunks.size() || chunks.get(chunk.index + 1).match != chunk.match) { commit.accept(chunk); }
+		};
+		if(coordinator != null) {
+			coordinator.execute(chunks, order, outcome -> {
+				gamesFile.writeAll(outcome.games);
+				statsFile.writeAll(outcome.stats);
+				count(outcome.counts);
+				if(metrics != null) { report(outcome); }
+				committed.accept(chunks.get(outcome.index));
+			});
+			return;
+		}
+		List<Job<Output>> jobs = new ArrayList<>();
+		for(Match chunk : chunks) { jobs.add(() -> player.play(chunk, new Output(gamesFile, statsFile))); }
+		Iterator<Match> next = chunks.iterator();
+		execute(jobs, order, output -> {
+			output.commit(gamesFile, statsFile);
+			committed.accept(next.next());
+		});
+	}
+
+	/*
+	 * executes matches as for executeMatches, reusing the stored results of
+	 * matches and storing the results of those played; the rows of stored
+	 * matches are written in their place in the order of the matches
+	 */
+	private void executeCached(List<Match> matches, MatchPlayer player, CSVWriter gamesFile, CSVWriter statsFile, Commit<Match> commit) throws IOException {
+		ResultCache.Entry[] results = new ResultCache.Entry[matches.size()];
+		List<Match> missing = new ArrayList<>();
+		List<Integer> positions = new ArrayList<>();
+		for(Match match : matches) {
+			Match pairing = new Match(missing.size(), match.match, match.p0, match.p1, cache.seed(match.p0, match.p1), match.first, match.games);
+			results[match.index] = cache.load(pairing);
+			if(results[match.index] != null) { continue; }
+			missing.add(pairing);
+			positions.add(match.index);
+		}
+		LOG.info("reusing {} of {} matches from the result cache", matches.size() - missing.size(), matches.size());
+		if(metrics != null) { metrics.plan(missing.stream().mapToLong(match -> match.games).sum()); }
+
+		// writes the results of the matches in order, up to the first not yet available
+		int[] next = new int[] { 0 };
+		Commit<Void> flush = ignored -> {
+			for(; next[0] < matches.size() && results[next[0]] != null; next[0] += 1) {
+				ResultCache.Entry result = results[next[0]];
+				results[next[0]] = null;
+				gamesFile.writeAll(result.games);
+				statsFile.writeAll(result.stats);
+				count(result.counts);
+				commit.accept(matches.get(next[0]));
+			}
+		};
+		Commit<WorkerProtocol.Outcome> played = outcome -> {
+			Match match = missing.get(outcome.index);
+			cache.store(match, outcome.games, outcome.stats, outcome.counts);
+			if(coordinator != null && metrics != null) { report(outcome); }
+			results[positions.get(outcome.index)] = new ResultCache.Entry(match.match, match.p0, match.p1, outcome.games, outcome.stats, outcome.counts);
+			flush.accept(null);
+		};
+		flush.accept(null);
+		if(coordinator != null) {
+			coordinator.execute(missing, order(missing), played);
+		}
+		else {
+			List<Job<WorkerProtocol.Outcome>> jobs = new ArrayList<>();
+			for(Match match : missing) {
+				jobs.add(() -> outcome(player, match));
+			}
+			execute(jobs, order(missing), played);
+		}
+		flush.accept(null);
+		LOG.info("stored {} matches in the result cache", missing.size());
+	}
+
+	/*
+	 * reports the games and decisions of a match played by a worker to the
+	 * metrics: game rows come in pairs, the agent in seat 0 first, with the
+	 * agent in column 2 and its score in column 3
+	 */
+	private void report(WorkerProtocol.Outcome outcome) {
+		for(int i = 0; i + 1 < outcome.games.size(); i += 2) {
+			String[] row0 = outcome.games.get(i), row1 = outcome.games.get(i + 1);
+			int[] scores = new int[] { Integer.parseInt(row0[3]), Integer.parseInt(row1[3]) };
+			metrics.gameCompleted(Integer.parseInt(row0[2]), Integer.parseInt(row1[2]), scores);
+		}
+		for(String[] row : outcome.stats) {
+			if(TournamentMetrics.isDecision(row[0])) { metrics.decision(Integer.parseInt(row[1]), Long.parseLong(row[2])); }
+		}
+	}
+
+	/*
+	 * estimates the CPU time of a match from the costs of its agents, assuming
+	 * the hands per game of every pairing alike
+	 */
+	private double cost(Match match) {
+		return (costs[match.p0] + costs[match.p1]) * match.games;
+	}
+
+	/*
+	 * splits the matches estimated to take more than a quarter of the work
+	 * per thread into chunks of about that size, each dealt from its own seed
+	 * drawn from the seed of the match; chunks keep the order of the games
+	 */
+	private List<Match> split(List<Match> matches) {
+		if(!split || costs == null || threads <= 1) { return matches; }
+		double limit = matches.stream().mapToDouble(this::cost).sum() / (4 * threads);
+		if(!(limit > 0)) { return matches; }
+		List<Match> chunks = new ArrayList<>();
+		int splits = 0;
+		for(Match match : matches) {
+			int k = (int)Math.min(match.games, Math.max(Math.ceil(cost(match) / limit), 1));
+			if(k == 1) {
+				chunks.add(new Match(chunks.size(), match.match, match.p0, match.p1, match.seed, match.first, match.games));
+				continue;
+			}
+			Random seeds = new Random(match.seed);
+			for(int c = 0; c < k; c += 1) {
+				int first = match.first + match.games * c / k, end = match.first + match.games * (c + 1) / k;
+				chunks.add(new Match(chunks.size(), match.match, match.p0, match.p1, seeds.nextLong(), first, end - first));
+			}
+			splits += 1;
+		}
+		LOG.info("split {} of {} matches into chunks of games ({} chunks)", splits, matches.size(), chunks.size());
+		return chunks;
+	}
+
+	/*
+	 * the order in which the matches are started: longest first, by their
+	 * estimated cost (ties in order), or in order if costs are unknown
+	 */
+	private int[] order(List<Match> matches) {
+		IntStream indices = IntStream.range(0, matches.size());
+		if(costs == null) { return indices.toArray(); }
+		return indices.boxed()
+			.sorted(Comparator.comparingDouble((Integer i) -> -cost(matches.get(i))))
+			.mapToInt(Integer::intValue)
+			.toArray();
+	}
+
+	/**
+	 * Plays the matches dispatched by the coordinator of the worker until the
+	 * coordinator ends the tournament, sending back the rows of each match.
+	 *
+	 * @param player the player of the matches
+	 */
+	protected void serveMatches(MatchPlayer player) throws IOException {
+		worker.serve(threads, match -> outcome(player, match));
+	}
+
+	/*
+	 * plays a match, collecting its rows and game counts
+	 */
+	private WorkerProtocol.Outcome outcome(MatchPlayer player, Match match) throws IOException {
+		CSVBuffer games = new CSVBuffer(), stats = new CSVBuffer();
+		int[] counts = new int[3];
+		Output output = counted(() -> player.play(match, new Output(games, stats)), counts);
+		output.commit(games, stats);
+		return new WorkerProtocol.Outcome(match.index, games.drain(), stats.drain(), counts);
+	}
+
+	/*
+	 * runs a job, counting the games it plays in the given counts
+	 */
+	private <T> T counted(Job<T> job, int[] counts) throws IOException {
+		jobCounts.set(counts);
+		try {
+			return job.run();
+		}
+		finally {
+			jobCounts.remove();
+		}
+	}
+
+	/*
+	 * adds the game counts of a committed job
+	 */
+	private synchronized void count(int[] counts) {
+		gamesPlayed += counts[0];
+		gamesCapped += counts[1];
+		gamesDrawn += counts[2];
+	}
+
 	/**
 	 */
 	public abstract void run();
 
+	/*
+	 */
+	private GinRummyPlayer seat(GinRummyAgent agent) {
+		if(batched || agent.player instanceof GinRummyTurnPlayer) { return new BatchingGinRummyPlayer(agent); }
+		return agent.player instanceof GinRummyBitPlayer ? agent.asBitPlayer() : agent;
+	}
+
 	/**
+	 * Plays a single game between two agents, charging each agent's calls to
+	 * its time bank and letting each agent ponder during the other's decisions. An agent exhausting its time bank forfeits the game, which
+	 * is scored as any other forfeit (100 to the opponent, -1 to the agent).
+	 *
+	 * @param agent0 the agent in seat 0
+	 * @param agent1 the agent in seat 1
+	 * @param listener the listener informed of game events
+	 * @param maxHands the maximum number of hands of the game, 0 if unlimited
+	 * @param random the random number generator for the deals of the game
+	 * @return the outcome of the game
 	 */
-	protected int[] play(GinRummyPlayer player0, GinRummyPlayer player1) {
-		long seed = random.nextLong();
+	protected Result play(GinRummyAgent agent0, GinRummyAgent agent1, GameEventListener listener, int maxHands, Random random) {
+		if(metrics != null) {
+			agent0.setMetrics(metrics);
+			agent1.setMetrics(metrics);
+			metrics.gameStarted();
+		}
+		Result result = game(agent0, agent1, listener, maxHands, random);
+		if(metrics != null) { metrics.gameFinished(agent0.getId(), agent1.getId(), result.scores); }
+		if(worker != null) { worker.progressed(); }
+		int[] counts = jobCounts.get();
+		if(counts == null) { counts = new int[3]; }
+		counts[0] += 1;
+		if(result.capped) { counts[1] += 1; }
+		if(result.scores[0] == result.scores[1]) { counts[2] += 1; }
+		if(counts != jobCounts.get()) { count(counts); }
+		return result;
+	}
 
-		GinRummyGame game = new GinRummyGame(player0, player1);
-		return game.play();
+	/*
+	 * plays a game as for play, without counting it toward the limit report
+	 */
+	private Result game(GinRummyAgent agent0, GinRummyAgent agent1, GameEventListener listener, int maxHands, Random random) {
+		agent0.setTimeBank(timeBank);
+		agent1.setTimeBank(timeBank);
+		agent0.setOpponent(agent1);
+		agent1.setOpponent(agent0);
+		GinRummyPlayer seat0 = seat(agent0), seat1 = seat(agent1);
+		GinRummyGame game = new GinRummyGame(seat0, seat1, listener);
+		game.setMaxHands(maxHands);
+		game.setRandom(random);
+		Result result;
+		try {
+			int[] scores = game.play();
+			result = new Result(scores, game.getHandsPlayed(), game.isCapped());
+		}
+		catch(TimeBankExceededException except) {
+			int forfeit = except.getAgent() == agent0 ? 0 : 1;
+			LOG.warn("player {} forfeits: {}", forfeit, except.getMessage());
+			listener.timedOut(forfeit);
+			result = new Result(new int[] { forfeit == 0 ? -1 : 100, forfeit == 1 ? -1 : 100 }, game.getHandsPlayed(), false);
+		}
+		finally {
+			end(agent0, seat0);
+			end(agent1, seat1);
+		}
+		return result;
+	}
+
+	/*
+	 * ends the last hand of an agent's game, which a forfeit ends without
+	 * reporting scores: the table of a context player leaves its hand, and a
+	 * batched agent is delivered the end of the hand, on a fresh time bank as
+	 * the result of the game is settled
+	 */
+	private void end(GinRummyAgent agent, GinRummyPlayer seat) {
+		if(agent.player instanceof GinRummyContextDispatcher.Seat) { ((GinRummyContextDispatcher.Seat)agent.player).endHand(); }
+		if(!(seat instanceof BatchingGinRummyPlayer)) { return; }
+		agent.setTimeBank(timeBank);
+		try {
+			((BatchingGinRummyPlayer)seat).endGame();
+		}
+		catch(TimeBankExceededException except) {
+			LOG.warn("player {} exceeded its time bank ending a forfeited hand: {}", agent.getId(), except.getMessage());
+		}
 	}
 }
@@ -0,0 +1,351 @@
+package eaai.ginrummy;
+
+import com.sun.net.httpserver.HttpServer;
+import eaai.ginrummy.util.LatencyHistogram;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Live metrics of a running tournament: its progress (games completed,
+ * remaining and in progress, throughput over the last minute, and estimated
+ * time to completion), the decision CPU time percentiles and forfeits of each
+ * agent, and Bradley-Terry ratings of the agents over the games completed.
+ * The metrics are published as a JMX MBean (see
+ * {@link TournamentMetricsMBean}) and, optionally, in the Prometheus text
+ * format at /metrics on a localhost HTTP port.
+ * <p>
+ * Decisions are the calls in which an agent chooses an action
+ * (willDrawFaceUpCard, getDiscard and getFinalMelds); their CPU time is that
+ * reported in stats.csv.
+ */
+public class TournamentMetrics implements TournamentMetricsMBean, Closeable {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(TournamentMetrics.class);
+
+	/* name of the MBean */
+	private static final String NAME = "eaai.ginrummy:type=Tournament";
+
+	/* window of the throughput, in milliseconds */
+	private static final long WINDOW = 60000;
+
+	/* */
+	private final String[] agents;
+
+	/* */
+	private final AtomicLong completed = new AtomicLong(), planned = new AtomicLong(), inProgress = new AtomicLong();
+
+	/* completion times of the games of the last window */
+	private final Deque<Long> recent = new ArrayDeque<>();
+
+	/* time the tournament started, and the last game completed */
+	private final long started = System.currentTimeMillis();
+	private volatile long lastGame = started;
+
+	/* */
+	private final LatencyHistogram[] latencies;
+
+	/* */
+	private final AtomicLongArray forfeits;
+
+	/* */
+	private final BradleyTerry ratings;
+
+	/* */
+	private HttpServer server = null;
+
+	/* */
+	private ObjectName name = null;
+
+	/**
+	 * Creates the metrics of a tournament of the given agents.
+	 *
+	 * @param agents the descriptions of the agents, in order
+	 */
+	public TournamentMetrics(List<String> agents) {
+		this.agents = agents.toArray(new String[0]);
+		this.latencies = new LatencyHistogram[agents.size()];
+		for(int p = 0; p < agents.size(); p += 1) { latencies[p] = new LatencyHistogram(); }
+		this.forfeits = new AtomicLongArray(agents.size());
+		this.ratings = new BradleyTerry(agents.size());
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server.
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			name = new ObjectName(NAME);
+			if(server.isRegistered(name)) { server.unregisterMBean(name); }
+			server.registerMBean(this, name);
+		}
+		catch(JMException except) {
+			LOG.warn("failed to register tournament metrics MBean", except);
+			name = null;
+		}
+	}
+
+	/**
+	 * Serves the metrics in the Prometheus text format at /metrics on the
+	 * given port of the loopback interface.
+	 *
+	 * @param port the port
+	 */
+	public void serve(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", exchange -> {
+			byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try(OutputStream out = exchange.getResponseBody()) { out.write(body); }
+		});
+		server.start();
+		LOG.info("serving tournament metrics at http://{}:{}/metrics", server.getAddress().getHostString(), server.getAddress().getPort());
+	}
+
+	/**
+	 * Stops serving the metrics, and unregisters the MBean.
+	 */
+	@Override
+	public void close() {
+		if(server != null) { server.stop(0); }
+		try {
+			if(name != null) { ManagementFactory.getPlatformMBeanServer().unregisterMBean(name); }
+		}
+		catch(JMException except) {
+			// already unregistered
+		}
+	}
+
+	/**
+	 * Adds games to the games remaining, as the tournament schedules them.
+	 *
+	 * @param games the number of games
+	 */
+	public void plan(long games) {
+		planned.addAndGet(games);
+	}
+
+	/**
+	 * Records the start of a game.
+	 */
+	public void gameStarted() {
+		inProgress.incrementAndGet();
+	}
+
+	/**
+	 * Records the end of a game started with gameStarted.
+	 *
+	 * @param p0 the agent in seat 0
+	 * @param p1 the agent in seat 1
+	 * @param scores the final scores of the game, indexed by seat
+	 */
+	public void gameFinished(int p0, int p1, int[] scores) {
+		inProgress.decrementAndGet();
+		gameCompleted(p0, p1, scores);
+	}
+
+	/**
+	 * Records a game completed elsewhere (e.g., by a worker), which was not
+	 * started with gameStarted. A forfeiting agent scores -1.
+	 *
+	 * @param p0 the agent in seat 0
+	 * @param p1 the agent in seat 1
+	 * @param scores the final scores of the game, indexed by seat
+	 */
+	public void gameCompleted(int p0, int p1, int[] scores) {
+		long now = System.currentTimeMillis();
+		completed.incrementAndGet();
+		lastGame = now;
+		synchronized(recent) {
+			recent.addLast(now);
+			prune(now);
+		}
+		if(scores[0] < 0) { forfeits.incrementAndGet(p0); }
+		if(scores[1] < 0) { forfeits.incrementAndGet(p1); }
+		ratings.add(p0, p1, scores[0] > scores[1] ? 1 : scores[0] == scores[1] ? .5 : 0);
+	}
+
+	/**
+	 * Records the CPU time of a decision of an agent.
+	 *
+	 * @param p the agent
+	 * @param nanos the CPU time, in nanoseconds
+	 */
+	public void decision(int p, long nanos) {
+		latencies[p].add(nanos);
+	}
+
+	/**
+	 * Returns whether the given call is a decision.
+	 *
+	 * @param method the name of the call, as in stats.csv
+	 * @return whether the call is a decision
+	 */
+	public static boolean isDecision(String method) {
+		return "willDrawFaceUpCard".equals(method) || "getDiscard".equals(method) || "getFinalMelds".equals(method);
+	}
+
+	/*
+	 * removes the completion times older than the window
+	 */
+	private void prune(long now) {
+		while(!recent.isEmpty() && recent.peekFirst() <= now - WINDOW) { recent.removeFirst(); }
+	}
+
+	@Override
+	public String[] getAgents() {
+		return agents.clone();
+	}
+
+	@Override
+	public long getGamesCompleted() {
+		return completed.get();
+	}
+
+	@Override
+	public long getGamesRemaining() {
+		return Math.max(planned.get() - completed.get(), 0);
+	}
+
+	@Override
+	public long getGamesInProgress() {
+		return inProgress.get();
+	}
+
+	@Override
+	public double getGamesPerSecond() {
+		long now = System.currentTimeMillis();
+		synchronized(recent) {
+			prune(now);
+			return recent.size() / (Math.min(now - started, WINDOW) / 1000.);
+		}
+	}
+
+	@Override
+	public double getEtaSeconds() {
+		double rate = getGamesPerSecond();
+		return rate > 0 ? getGamesRemaining() / rate : Double.NaN;
+	}
+
+	@Override
+	public double getSecondsSinceLastGame() {
+		return (System.currentTimeMillis() - lastGame) / 1000.;
+	}
+
+	@Override
+	public double[] getDecisionLatencyP50() {
+		return percentiles(.5);
+	}
+
+	@Override
+	public double[] getDecisionLatencyP90() {
+		return percentiles(.9);
+	}
+
+	@Override
+	public double[] getDecisionLatencyP99() {
+		return percentiles(.99);
+	}
+
+	/*
+	 * a percentile of the decision CPU time of each agent, in microseconds
+	 */
+	private double[] percentiles(double q) {
+		double[] values = new double[latencies.length];
+		for(int p = 0; p < latencies.length; p += 1) { values[p] = latencies[p].percentile(q) / 1e3; }
+		return values;
+	}
+
+	@Override
+	public long[] getForfeits() {
+		long[] values = new long[forfeits.length()];
+		for(int p = 0; p < values.length; p += 1) { values[p] = forfeits.get(p); }
+		return values;
+	}
+
+	@Override
+	public double[] getRatings() {
+		return ratings.ratings();
+	}
+
+	/**
+	 * Returns the metrics in the Prometheus text exposition format.
+	 *
+	 * @return the metrics
+	 */
+	public String prometheus() {
+		StringBuilder text = new StringBuilder();
+		metric(text, "vermouth_games_completed_total", "counter", "Games completed.", null, getGamesCompleted());
+		metric(text, "vermouth_games_remaining", "gauge", "Games remaining (at most, as matches may end early).", null, getGamesRemaining());
+		metric(text, "vermouth_games_in_progress", "gauge", "Games being played.", null, getGamesInProgress());
+		metric(text, "vermouth_games_per_second", "gauge", "Games completed per second over the last minute.", null, getGamesPerSecond());
+		metric(text, "vermouth_eta_seconds", "gauge", "Estimated seconds until the tournament completes.", null, getEtaSeconds());
+		metric(text, "vermouth_seconds_since_last_game", "gauge", "Seconds since the last game completed.", null, getSecondsSinceLastGame());
+
+		text.append("# HELP vermouth_decision_seconds Decision CPU time of each agent.\n");
+		text.append("# TYPE vermouth_decision_seconds summary\n");
+		for(int p = 0; p < agents.length; p += 1) {
+			for(double q : new double[] { .5, .9, .99 }) {
+				sample(text, "vermouth_decision_seconds", labels(p) + String.format(Locale.ROOT, ",quantile=\"%s\"", q), latencies[p].percentile(q) / 1e9);
+			}
+			sample(text, "vermouth_decision_seconds_sum", labels(p), latencies[p].sum() / 1e9);
+			sample(text, "vermouth_decision_seconds_count", labels(p), latencies[p].count());
+		}
+
+		long[] forfeited = getForfeits();
+		text.append("# HELP vermouth_forfeits_total Games forfeited by each agent.\n");
+		text.append("# TYPE vermouth_forfeits_total counter\n");
+		for(int p = 0; p < agents.length; p += 1) { sample(text, "vermouth_forfeits_total", labels(p), forfeited[p]); }
+
+		double[] rated = getRatings();
+		text.append("# HELP vermouth_rating Bradley-Terry rating of each agent over the games completed, on the Elo scale.\n");
+		text.append("# TYPE vermouth_rating gauge\n");
+		for(int p = 0; p < agents.length; p += 1) { sample(text, "vermouth_rating", labels(p), rated[p]); }
+		return text.toString();
+	}
+
+	/*
+	 */
+	private static void metric(StringBuilder text, String name, String type, String help, String labels, double value) {
+		text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		sample(text, name, labels, value);
+	}
+
+	/*
+	 */
+	private static void sample(StringBuilder text, String name, String labels, double value) {
+		text.append(name);
+		if(labels != null) { text.append('{').append(labels).append('}'); }
+		text.append(' ');
+		if(Double.isNaN(value)) { text.append("NaN"); }
+		else if(value == Math.rint(value) && Math.abs(value) < 1e15) { text.append((long)value); }
+		else { text.append(String.format(Locale.ROOT, "%.6g", value)); }
+		text.append('\n');
+	}
+
+	/*
+	 * the labels of an agent: its index and its description, escaped
+	 */
+	private String labels(int p) {
+		String description = agents[p].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+		return String.format("agent=\"%d\",name=\"%s\"", p, description);
+	}
+}
@@ -0,0 +1,44 @@
+package eaai.ginrummy;
+
+/**
+ * The JMX management interface of {@link TournamentMetrics}, registered as
+ * eaai.ginrummy:type=Tournament. Per-agent attributes are arrays indexed by
+ * agent, in the order of {@link #getAgents()}.
+ */
+public interface TournamentMetricsMBean {
+	/** the agents of the tournament */
+	String[] getAgents();
+
+	/** number of games completed */
+	long getGamesCompleted();
+
+	/** number of games remaining (at most, as matches may end early) */
+	long getGamesRemaining();
+
+	/** number of games being played */
+	long getGamesInProgress();
+
+	/** games completed per second over the last minute */
+	double getGamesPerSecond();
+
+	/** estimated seconds until the tournament completes, or NaN if unknown */
+	double getEtaSeconds();
+
+	/** seconds since the last game completed, or since the tournament started */
+	double getSecondsSinceLastGame();
+
+	/** median decision CPU time of each agent, in microseconds */
+	double[] getDecisionLatencyP50();
+
+	/** 90th percentile decision CPU time of each agent, in microseconds */
+	double[] getDecisionLatencyP90();
+
+	/** 99th percentile decision CPU time of each agent, in microseconds */
+	double[] getDecisionLatencyP99();
+
+	/** number of games forfeited by each agent */
+	long[] getForfeits();
+
+	/** Bradley-Terry rating of each agent over the games completed, on the Elo scale */
+	double[] getRatings();
+}
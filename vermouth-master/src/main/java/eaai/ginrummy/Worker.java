@@ -0,0 +1,217 @@
+package eaai.ginrummy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static eaai.ginrummy.WorkerProtocol.*;
+
+/**
+ * A worker of a distributed tournament, which plays the matches dispatched to
+ * it by a {@link Coordinator} (see {@link WorkerProtocol}) on its own agent
+ * instances, loaded from its own command line, and sends back their results.
+ * A worker plays as many matches at a time as it has threads, and serves a
+ * single tournament, returning once the coordinator ends it or goes away.
+ * <p>
+ * The worker renews the lease of its matches with heartbeats for as long as
+ * it is alive, however long their games take; hung agents are left to the
+ * time bank. Given a stall time, the worker also gives up its matches (by
+ * closing its connection, so that the coordinator dispatches them to other
+ * workers) once one of them has gone that long without completing a game.
+ */
+public class Worker {
+	/* */
+	private static final Logger LOG = LogManager.getLogger(Worker.class);
+
+	/* attempts at connecting to the coordinator, a second apart */
+	private static final int CONNECT_ATTEMPTS = 30;
+
+	/* */
+	private final String host;
+
+	/* */
+	private final int port;
+
+	/* settings of the tournament, which must match the coordinator's */
+	private final String settings;
+
+	/* time a match may go without completing a game before the worker gives up its matches, in milliseconds, or 0 for no limit */
+	private final long stall;
+
+	/* */
+	private ObjectOutputStream out;
+
+	/* time each thread playing a match last made progress (started the match or completed a game), against the stall time */
+	private final Map<Thread, Long> progress = new ConcurrentHashMap<>();
+
+	/* whether the worker has given up its matches, whose outcomes are then no longer sent */
+	private volatile boolean abandoned = false;
+
+	/**
+	 * The player of the matches of a worker, called on the worker's threads.
+	 */
+	interface Player {
+		Outcome play(Tournament.Match match) throws IOException;
+	}
+
+	/**
+	 * Creates a worker for the coordinator at the given address.
+	 *
+	 * @param host the host of the coordinator
+	 * @param port the port of the coordinator
+	 * @param settings the settings of the tournament (e.g., its type, games
+	 * and agents), which must match the coordinator's
+	 * @param stall the time a match may go without completing a game before
+	 * the worker gives up its matches, in milliseconds, or 0 for no limit
+	 */
+	public Worker(String host, int port, String settings, long stall) {
+		this.host = host;
+		this.port = port;
+		this.settings = settings;
+		this.stall = stall;
+	}
+
+	/**
+	 * Connects to the coordinator, and plays the matches dispatched to the
+	 * worker until the coordinator ends the tournament or goes away.
+	 *
+	 * @param threads the number of matches played at a time
+	 * @param player the player of the matches
+	 */
+	void serve(int threads, Player player) throws IOException {
+		try(Socket socket = connect()) {
+			out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			send(new Hello(settings, threads));
+			ObjectInputStream in = input(new BufferedInputStream(socket.getInputStream()), Tournament.Match.class, Long.class, Number.class);
+			Object reply = read(in);
+			if(reply == null) { throw new IOException("rejected by the coordinator; the tournament options must match"); }
+			long lease = (Long)reply;
+			LOG.info("connected to coordinator {}:{} (lease {} ms)", host, port, lease);
+
+			ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "heartbeat");
+				thread.setDaemon(true);
+				return thread;
+			});
+			heartbeat.scheduleAtFixedRate(() -> {
+				long now = System.currentTimeMillis();
+				try {
+					if(stall > 0 && !progress.values().stream().allMatch(time -> now - time < stall)) {
+						LOG.error("a match has not completed a game in {} ms; giving up the matches of the worker", stall);
+						abandon(socket);
+						return;
+					}
+					send(HEARTBEAT);
+				}
+				catch(IOException except) {
+					// the connection is lost, which the reader finds out
+				}
+			}, lease / 4, Math.max(lease / 4, 1), TimeUnit.MILLISECONDS);
+
+			AtomicInteger count = new AtomicInteger();
+			ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "game-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				for(Object message = read(in); message != null; message = read(in)) {
+					Tournament.Match match = (Tournament.Match)message;
+					executor.submit(() -> {
+						progress.put(Thread.currentThread(), System.currentTimeMillis());
+						try {
+							send(player.play(match));
+						}
+						catch(IOException | RuntimeException except) {
+							if(abandoned) { return; }
+							LOG.fatal("failed to play match {}", match.index, except);
+							System.exit(1);
+						}
+						finally {
+							progress.remove(Thread.currentThread());
+						}
+					});
+				}
+				LOG.info("tournament over");
+			}
+			catch(IOException except) {
+				LOG.error("lost coordinator {}:{}", host, port, except);
+			}
+			finally {
+				heartbeat.shutdownNow();
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Records the progress of the match played on the current thread, upon
+	 * the completion of one of its games.
+	 */
+	void progressed() {
+		progress.computeIfPresent(Thread.currentThread(), (thread, time) -> System.currentTimeMillis());
+	}
+
+	/*
+	 * gives up the matches of the worker, closing its connection so that the
+	 * coordinator dispatches them to other workers
+	 */
+	private void abandon(Socket socket) throws IOException {
+		abandoned = true;
+		socket.close();
+	}
+
+	/*
+	 * connects to the coordinator, which may not be listening yet
+	 */
+	private Socket connect() throws IOException {
+		for(int attempt = 1; ; attempt += 1) {
+			try {
+				return new Socket(host, port);
+			}
+			catch(ConnectException except) {
+				if(attempt == CONNECT_ATTEMPTS) { throw except; }
+				LOG.debug("coordinator {}:{} not listening, retrying", host, port);
+				try {
+					Thread.sleep(1000);
+				}
+				catch(InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw except;
+				}
+			}
+		}
+	}
+
+	/*
+	 */
+	private static Object read(ObjectInputStream in) throws IOException {
+		try {
+			return in.readObject();
+		}
+		catch(ClassNotFoundException except) {
+			throw new IOException("unknown message class", except);
+		}
+	}
+
+	/*
+	 */
+	private synchronized void send(Object message) throws IOException {
+		out.writeObject(message);
+		out.reset();
+		out.flush();
+	}
+}
@@ -0,0 +1,113 @@
+package eaai.ginrummy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The messages between a {@link Coordinator} and its {@link Worker}s, sent as
+ * serialized objects over a TCP connection.
+ * <p>
+ * Upon connecting, a worker sends a {@link Hello}; the coordinator replies
+ * with the lease time (a Long, in milliseconds) if the worker's settings match
+ * its own, or null to reject the worker. The coordinator then sends matches
+ * ({@link Tournament.Match}) to the worker, at most as many at a time as the
+ * worker has threads, and finally null once the tournament is over. The
+ * worker sends an {@link Outcome} for each match it completes, and a
+ * {@link #HEARTBEAT} every quarter of the lease time, renewing the lease of
+ * its matches, as long as every match it is playing has completed a game
+ * within the lease time.
+ * <p>
+ * Each side only deserializes the classes of the messages it expects (see
+ * {@link #input(InputStream, Class...)}), so a peer cannot have arbitrary
+ * classes instantiated.
+ */
+final class WorkerProtocol {
+	/* message renewing the lease of a worker's matches */
+	static final String HEARTBEAT = "heartbeat";
+
+	// static class, private constructor
+	private WorkerProtocol() { }
+
+	/**
+	 * Returns an object input stream which only deserializes the given
+	 * classes, rejecting any other class (or proxy) in the stream.
+	 *
+	 * @param in the underlying stream
+	 * @param allowed the classes which may be deserialized, including the
+	 * serializable superclasses and the array types of the messages
+	 * @return the object input stream
+	 */
+	static ObjectInputStream input(InputStream in, Class<?>... allowed) throws IOException {
+		Set<String> names = new HashSet<>();
+		Arrays.stream(allowed).forEach(type -> names.add(type.getName()));
+		return new ObjectInputStream(in) {
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+				if(!names.contains(desc.getName())) { throw new InvalidClassException(desc.getName(), "not a message class"); }
+				return super.resolveClass(desc);
+			}
+
+			@Override
+			protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+				throw new InvalidClassException("proxy", "not a message class");
+			}
+		};
+	}
+
+	/**
+	 * The first message of a worker: the settings of its tournament (which
+	 * must match those of the coordinator) and its number of threads.
+	 */
+	static class Hello implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* */
+		final String settings;
+
+		/* */
+		final int threads;
+
+		/**
+		 */
+		Hello(String settings, int threads) {
+			this.settings = settings;
+			this.threads = threads;
+		}
+	}
+
+	/**
+	 * The result of a match played by a worker: its games.csv and stats.csv
+	 * rows, and the counts of games played, ended by the hand limit, and drawn.
+	 */
+	static class Outcome implements Serializable {
+		/* */
+		private static final long serialVersionUID = 1L;
+
+		/* index of the match in the coordinator's schedule */
+		final int index;
+
+		/* */
+		final List<String[]> games, stats;
+
+		/* */
+		final int[] counts;
+
+		/**
+		 */
+		Outcome(int index, List<String[]> games, List<String[]> stats, int[] counts) {
+			this.index = index;
+			this.games = games;
+			this.stats = stats;
+			this.counts = counts;
+		}
+	}
+}
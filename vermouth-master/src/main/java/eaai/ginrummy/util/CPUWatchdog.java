@@ -0,0 +1,154 @@
+package eaai.ginrummy.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single, long-lived watchdog thread enforcing thread CPU time limits. A
+ * caller arms a {@link Watch} on the current thread before a limited call and
+ * closes it once the call returns; should the thread's CPU time since arming
+ * surpass the limit in the meantime, the watch is marked expired and the
+ * thread is interrupted.
+ * <p>
+ * Unlike {@link ProcessCPUTimer#execute(Runnable, long, long)}, no thread is
+ * created per call and no thread is ever stopped: the limited call runs on
+ * the caller's thread, so a cooperative agent may notice the interrupt and
+ * return early, while the caller decides (on return) how to penalize an
+ * expired watch. A call which never returns is not recovered in process; an
+ * agent in its own JVM ({@link eaai.ginrummy.RemoteGinRummyPlayer}) is
+ * instead killed once its watch expires.
+ * <p>
+ * The watchdog thread is a daemon, started on first use, and parks while no
+ * watches are armed.
+ */
+public class CPUWatchdog implements Runnable {
+	/* */
+	private static final ThreadMXBean mxThread = ManagementFactory.getThreadMXBean();
+
+	/* */
+	private static CPUWatchdog instance = null;
+
+	/* polling interval, in nanoseconds */
+	private final long poll;
+
+	/* currently armed watches */
+	private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+	/* */
+	private final Thread thread;
+
+	/**
+	 * A CPU time limit armed on a single thread.
+	 */
+	public class Watch implements AutoCloseable {
+		/* */
+		private final Thread target;
+
+		/* */
+		private final long deadline;
+
+		/* run by the watchdog thread upon expiry, or null */
+		private final Runnable expiry;
+
+		/* */
+		private boolean expired = false, closed = false;
+
+		/* */
+		private Watch(Thread target, long limit, Runnable expiry) {
+			this.target = target;
+			this.deadline = mxThread.getThreadCpuTime(target.getId()) + limit;
+			this.expiry = expiry;
+		}
+
+		/* called by the watchdog thread */
+		private synchronized void check() {
+			if(closed || expired) { return; }
+			if(mxThread.getThreadCpuTime(target.getId()) >= deadline) {
+				expired = true;
+				target.interrupt();
+				if(expiry != null) { expiry.run(); }
+			}
+		}
+
+		/**
+		 * Returns whether the watched thread surpassed its limit before the
+		 * watch was closed.
+		 *
+		 * @return true if the watch expired
+		 */
+		public synchronized boolean isExpired() {
+			return expired;
+		}
+
+		/**
+		 * Disarms the watch. Must be called from the watched thread; any
+		 * interrupt issued by the watchdog is cleared.
+		 */
+		@Override
+		public synchronized void close() {
+			if(closed) { return; }
+			closed = true;
+			watches.remove(this);
+			if(expired) { Thread.interrupted(); }
+		}
+	}
+
+	/* */
+	private CPUWatchdog(long poll) {
+		this.poll = poll;
+		this.thread = new Thread(this, "cpu-watchdog");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Returns the shared watchdog, starting it on first use.
+	 *
+	 * @return the shared watchdog
+	 */
+	public static synchronized CPUWatchdog get() {
+		if(instance == null) { instance = new CPUWatchdog(TimeUnit.MILLISECONDS.toNanos(1)); }
+		return instance;
+	}
+
+	/**
+	 * Arms a watch limiting the current thread to the given CPU time.
+	 *
+	 * @param limit the CPU time limit, in nanoseconds
+	 * @return the armed watch, to be closed when the limited call returns
+	 */
+	public Watch watch(long limit) {
+		return watch(limit, null);
+	}
+
+	/**
+	 * Arms a watch limiting the current thread to the given CPU time, running
+	 * the given action on the watchdog thread should the watch expire (e.g.,
+	 * to report the expiry while the call goes on).
+	 *
+	 * @param limit the CPU time limit, in nanoseconds
+	 * @param expiry the action run upon expiry, or null
+	 * @return the armed watch, to be closed when the limited call returns
+	 */
+	public Watch watch(long limit, Runnable expiry) {
+		Watch watch = new Watch(Thread.currentThread(), limit, expiry);
+		watches.add(watch);
+		LockSupport.unpark(thread);
+		return watch;
+	}
+
+	/**
+	 */
+	@Override
+	public void run() {
+		while(true) {
+			if(watches.isEmpty()) { LockSupport.park(this); }
+			else { LockSupport.parkNanos(this, poll); }
+			for(Watch watch : watches) { watch.check(); }
+		}
+	}
+}
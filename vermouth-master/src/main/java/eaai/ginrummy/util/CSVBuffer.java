@@ -0,0 +1,54 @@
+package eaai.ginrummy.util;
+
+import com.opencsv.CSVWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A CSV writer which holds on to the rows written to it, to be written to
+ * another CSV writer later, e.g., rows produced on a worker thread which are
+ * written to the output file in a deterministic order.
+ */
+public class CSVBuffer extends CSVWriter {
+	/* */
+	private final List<String[]> rows = new ArrayList<>();
+
+	/**
+	 * Creates an empty buffer.
+	 */
+	public CSVBuffer() {
+		super(new StringWriter());
+	}
+
+	@Override
+	public synchronized void writeNext(String[] nextLine, boolean applyQuotesToAll) {
+		rows.add(nextLine);
+	}
+
+	@Override
+	public synchronized void writeAll(Iterable<String[]> allLines, boolean applyQuotesToAll) {
+		allLines.forEach(rows::add);
+	}
+
+	/**
+	 * Writes the buffered rows to the given writer, emptying the buffer.
+	 *
+	 * @param writer the writer
+	 */
+	public synchronized void drainTo(CSVWriter writer) {
+		writer.writeAll(rows);
+		rows.clear();
+	}
+
+	/**
+	 * Returns the buffered rows, emptying the buffer.
+	 *
+	 * @return the rows, in the order written
+	 */
+	public synchronized List<String[]> drain() {
+		List<String[]> drained = new ArrayList<>(rows);
+		rows.clear();
+		return drained;
+	}
+}
@@ -0,0 +1,307 @@
+package eaai.ginrummy.util;
+
+import com.opencsv.CSVWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only checkpoint file kept beside the output archive of a
+ * tournament, which (unlike the archive) remains readable if the tournament
+ * dies. The journal holds every CSV row written to the archive through its
+ * writers, interleaved with snapshots of the tournament state; a resumed
+ * tournament restores the last snapshot, and the rows written before it are
+ * replayed into the new archive. Rows written after the last snapshot belong
+ * to work which is repeated on resumption, and are dropped.
+ */
+public class Journal implements Closeable {
+	/* */
+	private static final String MAGIC = "vermouth-journal-1";
+
+	/* record types */
+	private static final int ROW = 1, SNAPSHOT = 2;
+
+	/* */
+	private final Path path;
+
+	/* */
+	private final FileOutputStream file;
+
+	/* */
+	private final DataOutputStream out;
+
+	/* offset of the end of the last snapshot when resumed, 0 otherwise */
+	private final long resumed;
+
+	/* the last snapshot when resumed, null otherwise */
+	private final Serializable snapshot;
+
+	/*
+	 */
+	private Journal(Path path, long resumed, Serializable snapshot) throws IOException {
+		this.path = path;
+		this.resumed = resumed;
+		this.snapshot = snapshot;
+		this.file = new FileOutputStream(path.toFile(), true);
+		this.out = new DataOutputStream(new BufferedOutputStream(file));
+	}
+
+	/**
+	 * Creates a new journal, replacing any existing file.
+	 *
+	 * @param path the journal file
+	 * @param signature the description of the tournament (e.g., its type and
+	 * agents), which a resumed tournament must match
+	 * @return the journal
+	 */
+	public static Journal create(Path path, String signature) throws IOException {
+		Files.deleteIfExists(path);
+		Journal journal = new Journal(path, 0, null);
+		journal.out.writeUTF(MAGIC);
+		journal.out.writeUTF(signature);
+		journal.sync();
+		return journal;
+	}
+
+	/**
+	 * Opens an existing journal for resumption, discarding any records after
+	 * its last snapshot.
+	 *
+	 * @param path the journal file
+	 * @param signature the description of the tournament, which must match the
+	 * description the journal was created with
+	 * @return the journal
+	 * @throws IOException if the journal cannot be read, or was created for
+	 * another tournament
+	 */
+	public static Journal resume(Path path, String signature) throws IOException {
+		long end = 0;
+		Serializable snapshot = null;
+		try(Reader reader = new Reader(path, signature)) {
+			end = reader.position();
+			try {
+				while(true) {
+					int type = reader.in.readUnsignedByte();
+					if(type == ROW) { reader.skipRow(); }
+					else if(type == SNAPSHOT) {
+						snapshot = reader.readSnapshot();
+						end = reader.position();
+					}
+					else { break; }
+				}
+			}
+			catch(EOFException except) {
+				// a record cut short by the end of the tournament
+			}
+		}
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) { channel.truncate(end); }
+		return new Journal(path, end, snapshot);
+	}
+
+	/**
+	 * Returns the last snapshot of a resumed journal.
+	 *
+	 * @return the snapshot, or null if the journal was created, or resumed
+	 * before its first snapshot
+	 */
+	public Serializable getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Returns a CSV writer writing to the given output which journals every
+	 * row written to it. When resumed, the rows journaled for the same name
+	 * before the last snapshot are first written to the output, without being
+	 * journaled again; otherwise, the header is written.
+	 *
+	 * @param name the name of the CSV file (e.g., games.csv)
+	 * @param output the output of the CSV file
+	 * @param header the header row of the CSV file
+	 * @return the writer
+	 */
+	public CSVWriter writer(String name, Writer output, String[] header) throws IOException {
+		CSVWriter writer = new CSVWriter(output, ',', '\0', '\\', "\n") {
+			// every row passes through here, whether written by writeNext or writeAll
+			@Override
+			protected void writeNext(String[] nextLine, boolean applyQuotesToAll, Appendable appendable) throws IOException {
+				super.writeNext(nextLine, applyQuotesToAll, appendable);
+				row(name, nextLine);
+			}
+		};
+		boolean replayed = false;
+		if(resumed > 0) {
+			CSVWriter replay = new CSVWriter(output, ',', '\0', '\\', "\n");
+			try(Reader reader = new Reader(path, null)) {
+				while(reader.position() < resumed) {
+					int type = reader.in.readUnsignedByte();
+					if(type == ROW) {
+						String file = reader.in.readUTF();
+						String[] row = reader.readRow();
+						if(file.equals(name)) {
+							replay.writeNext(row);
+							replayed = true;
+						}
+					}
+					else { reader.readSnapshot(); }
+				}
+			}
+			replay.flush();
+		}
+		if(!replayed) { writer.writeNext(header); }
+		return writer;
+	}
+
+	/*
+	 */
+	private synchronized void row(String name, String[] row) {
+		try {
+			out.writeByte(ROW);
+			out.writeUTF(name);
+			out.writeInt(row.length);
+			for(String value : row) {
+				out.writeBoolean(value != null);
+				if(value != null) { out.writeUTF(value); }
+			}
+		}
+		catch(IOException except) {
+			throw new IllegalStateException("failed to write journal", except);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the tournament state, and forces the journal to the
+	 * disk. The rows written so far are those of the state.
+	 *
+	 * @param state the state
+	 */
+	public synchronized void snapshot(Serializable state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ObjectOutputStream objects = new ObjectOutputStream(bytes)) { objects.writeObject(state); }
+		out.writeByte(SNAPSHOT);
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+		sync();
+	}
+
+	/*
+	 */
+	private void sync() throws IOException {
+		out.flush();
+		file.getChannel().force(false);
+	}
+
+	/**
+	 * Closes the journal, keeping the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Closes the journal and deletes the file, once the tournament has
+	 * completed.
+	 */
+	public void delete() throws IOException {
+		close();
+		Files.deleteIfExists(path);
+	}
+
+	/*
+	 * a sequential reader of the records of a journal file
+	 */
+	private static class Reader implements Closeable {
+		/* */
+		private final DataInputStream in;
+
+		/* */
+		private long position = 0;
+
+		/*
+		 */
+		private Reader(Path path, String signature) throws IOException {
+			InputStream counting = new FilterInputStream(new BufferedInputStream(Files.newInputStream(path))) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if(b >= 0) { position += 1; }
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					if(n > 0) { position += n; }
+					return n;
+				}
+
+				@Override
+				public long skip(long n) throws IOException {
+					long skipped = super.skip(n);
+					position += skipped;
+					return skipped;
+				}
+			};
+			this.in = new DataInputStream(counting);
+			if(!MAGIC.equals(in.readUTF())) { throw new IOException(String.format("%s is not a journal", path)); }
+			String journaled = in.readUTF();
+			if(signature != null && !signature.equals(journaled)) { throw new IOException(String.format("%s is the journal of another tournament (%s)", path, journaled)); }
+		}
+
+		/*
+		 */
+		private long position() {
+			return position;
+		}
+
+		/*
+		 */
+		private String[] readRow() throws IOException {
+			String[] row = new String[in.readInt()];
+			for(int i = 0; i < row.length; i += 1) { row[i] = in.readBoolean() ? in.readUTF() : null; }
+			return row;
+		}
+
+		/*
+		 */
+		private void skipRow() throws IOException {
+			in.readUTF();
+			readRow();
+		}
+
+		/*
+		 */
+		private Serializable readSnapshot() throws IOException {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			try(ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+				return (Serializable)objects.readObject();
+			}
+			catch(ClassNotFoundException except) {
+				throw new IOException("unknown snapshot class", except);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package eaai.ginrummy.util;
+
+/**
+ * A histogram of latencies with logarithmic buckets, four per power of two,
+ * from which percentiles are estimated to within about 10%. Adding a latency
+ * takes constant time and no allocation, so every call of a tournament can be
+ * recorded.
+ */
+public class LatencyHistogram {
+	/* buckets per power of two, and number of buckets (latencies up to 2^48 ns, about 3 days) */
+	private static final int RESOLUTION = 4, BUCKETS = 48 * RESOLUTION;
+
+	/* */
+	private final long[] counts = new long[BUCKETS];
+
+	/* */
+	private long count = 0, sum = 0;
+
+	/**
+	 * Adds a latency to the histogram.
+	 *
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public synchronized void add(long nanos) {
+		int bucket = nanos < 1 ? 0 : (int)Math.min(Math.floor(RESOLUTION * Math.log(nanos) / Math.log(2)), BUCKETS - 1);
+		counts[bucket] += 1;
+		count += 1;
+		sum += nanos;
+	}
+
+	/**
+	 * Returns the number of latencies added.
+	 *
+	 * @return the number of latencies
+	 */
+	public synchronized long count() {
+		return count;
+	}
+
+	/**
+	 * Returns the sum of the latencies added.
+	 *
+	 * @return the sum, in nanoseconds
+	 */
+	public synchronized long sum() {
+		return sum;
+	}
+
+	/**
+	 * Estimates the given percentile of the latencies added, as the geometric
+	 * middle of the bucket it falls in.
+	 *
+	 * @param q the percentile, in [0, 1]
+	 * @return the estimate, in nanoseconds, or NaN if no latencies were added
+	 */
+	public synchronized double percentile(double q) {
+		if(count == 0) { return Double.NaN; }
+		long rank = Math.max((long)Math.ceil(q * count), 1), seen = 0;
+		for(int bucket = 0; bucket < BUCKETS; bucket += 1) {
+			seen += counts[bucket];
+			if(seen >= rank) { return Math.pow(2, (bucket + .5) / RESOLUTION); }
+		}
+		return Math.pow(2, (double)BUCKETS / RESOLUTION);
+	}
+}
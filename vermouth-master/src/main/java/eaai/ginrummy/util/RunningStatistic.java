@@ -1,9 +1,13 @@
 package eaai.ginrummy.util;
 
+import java.io.Serializable;
+
 /**
  *
  **/
-public class RunningStatistic {
+public class RunningStatistic implements Serializable {
+	/* */
+	private static final long serialVersionUID = 1L;
 
 	/* */
 	private int n;
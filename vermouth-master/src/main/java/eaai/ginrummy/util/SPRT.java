@@ -0,0 +1,141 @@
+package eaai.ginrummy.util;
+
+/**
+ * A sequential probability ratio test on the expected score of a player, e.g.,
+ * the first agent of a match, deciding between the hypotheses H0 (expected
+ * score p0) and H1 (expected score p1) with error rates alpha (accepting H1
+ * when H0 holds) and beta (accepting H0 when H1 holds). Each game scores 1
+ * for a win, 0 for a loss and 1/2 for a draw; the log-likelihood ratio of the
+ * scores is accumulated until it crosses log(beta / (1 - alpha)), accepting
+ * H0, or log((1 - beta) / alpha), accepting H1.
+ */
+public class SPRT {
+	/** decision of a test which has not crossed a bound */
+	public static final int UNDECIDED = 0;
+
+	/** decision of a test which has accepted H0 */
+	public static final int H0 = -1;
+
+	/** decision of a test which has accepted H1 */
+	public static final int H1 = 1;
+
+	/* hypothesized expected scores */
+	private final double p0, p1;
+
+	/* error rates */
+	private final double alpha, beta;
+
+	/* log-likelihood ratio bounds */
+	private final double lower, upper;
+
+	/* */
+	private double llr = 0;
+
+	/* */
+	private int games = 0;
+
+	/**
+	 * Creates a test of the given hypotheses.
+	 *
+	 * @param p0 the expected score under H0, in (0, 1)
+	 * @param p1 the expected score under H1, in (0, 1) and greater than p0
+	 * @param alpha the probability of accepting H1 when H0 holds, in (0, 1)
+	 * @param beta the probability of accepting H0 when H1 holds, in (0, 1)
+	 * @throws IllegalArgumentException if the parameters are out of range
+	 */
+	public SPRT(double p0, double p1, double alpha, double beta) {
+		if(!(0 < p0 && p0 < p1 && p1 < 1)) { throw new IllegalArgumentException(String.format("invalid SPRT hypotheses (%f, %f)", p0, p1)); }
+		if(!(0 < alpha && alpha < 1 && 0 < beta && beta < 1)) { throw new IllegalArgumentException(String.format("invalid SPRT error rates (%f, %f)", alpha, beta)); }
+		this.p0 = p0;
+		this.p1 = p1;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.lower = Math.log(beta / (1 - alpha));
+		this.upper = Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * Returns the expected score of a player rated the given number of Elo
+	 * points above its opponent.
+	 *
+	 * @param elo the rating difference
+	 * @return the expected score
+	 */
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	/**
+	 * Returns a new test of the same hypotheses and error rates, without any
+	 * games.
+	 *
+	 * @return the new test
+	 */
+	public SPRT restart() {
+		return new SPRT(p0, p1, alpha, beta);
+	}
+
+	/**
+	 * Adds the score of a game to the test.
+	 *
+	 * @param score the score of the game (1 for a win, 0 for a loss, 1/2 for
+	 * a draw)
+	 * @return the decision of the test
+	 */
+	public int add(double score) {
+		games += 1;
+		llr += score * Math.log(p1 / p0) + (1 - score) * Math.log((1 - p1) / (1 - p0));
+		return decision();
+	}
+
+	/**
+	 * Returns the decision of the test.
+	 *
+	 * @return H0 or H1 once the log-likelihood ratio has crossed a bound,
+	 * otherwise UNDECIDED
+	 */
+	public int decision() {
+		return llr <= lower ? H0 : llr >= upper ? H1 : UNDECIDED;
+	}
+
+	/**
+	 * Returns the log-likelihood ratio of the scores added so far.
+	 *
+	 * @return the log-likelihood ratio
+	 */
+	public double llr() {
+		return llr;
+	}
+
+	/**
+	 * Returns the number of games added so far.
+	 *
+	 * @return the number of games
+	 */
+	public int games() {
+		return games;
+	}
+
+	/**
+	 * Returns the log-likelihood ratio bound below which H0 is accepted.
+	 *
+	 * @return the lower bound
+	 */
+	public double lower() {
+		return lower;
+	}
+
+	/**
+	 * Returns the log-likelihood ratio bound above which H1 is accepted.
+	 *
+	 * @return the upper bound
+	 */
+	public double upper() {
+		return upper;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SPRT(p0 %.4f, p1 %.4f, alpha %.3f, beta %.3f)", p0, p1, alpha, beta);
+	}
+}
@@ -0,0 +1,116 @@
+package eaai.ginrummy.util;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * A print stream forwarding all output to a per-thread target stream, so that
+ * each thread can redirect System.out or System.err (e.g., to the output of
+ * the game it is playing) without affecting other threads. Once installed in
+ * place of System.out and System.err, threads which have not set a target
+ * write to the original streams.
+ */
+public class ThreadPrintStream extends PrintStream {
+	/* the original stream */
+	private final PrintStream fallback;
+
+	/* */
+	private final ThreadLocal<PrintStream> target;
+
+	/*
+	 */
+	private ThreadPrintStream(PrintStream fallback) {
+		super(new OutputStream() { @Override public void write(int b) {} }, true);
+		this.fallback = fallback;
+		this.target = ThreadLocal.withInitial(() -> fallback);
+	}
+
+	/*
+	 * redirects the current thread, returning its previous target; the stream
+	 * itself (or null) stands for the original stream
+	 */
+	private PrintStream redirect(PrintStream stream) {
+		PrintStream previous = target.get();
+		target.set(stream == null || stream == this ? fallback : stream);
+		return previous;
+	}
+
+	/**
+	 * Returns the original stream, to which threads without a target write.
+	 *
+	 * @return the original stream
+	 */
+	public PrintStream getFallback() {
+		return fallback;
+	}
+
+	@Override
+	public void write(int b) {
+		target.get().write(b);
+	}
+
+	@Override
+	public void write(byte[] buf, int off, int len) {
+		target.get().write(buf, off, len);
+	}
+
+	@Override
+	public void flush() {
+		target.get().flush();
+	}
+
+	@Override
+	public void close() {
+		// the underlying streams are owned by their creators
+		flush();
+	}
+
+	@Override
+	public boolean checkError() {
+		return target.get().checkError();
+	}
+
+	/**
+	 * Redirects System.out for the current thread only, installing a thread
+	 * print stream as System.out if needed.
+	 *
+	 * @param out the stream the current thread writes System.out to, or null
+	 * for the original System.out
+	 * @return the stream the current thread previously wrote System.out to
+	 */
+	public static PrintStream setOut(PrintStream out) {
+		return installOut().redirect(out);
+	}
+
+	/**
+	 * Redirects System.err for the current thread only, installing a thread
+	 * print stream as System.err if needed.
+	 *
+	 * @param err the stream the current thread writes System.err to, or null
+	 * for the original System.err
+	 * @return the stream the current thread previously wrote System.err to
+	 */
+	public static PrintStream setErr(PrintStream err) {
+		return installErr().redirect(err);
+	}
+
+	/**
+	 * Installs a thread print stream as System.out, unless already installed.
+	 *
+	 * @return the thread print stream
+	 */
+	public static synchronized ThreadPrintStream installOut() {
+		if(!(System.out instanceof ThreadPrintStream)) { System.setOut(new ThreadPrintStream(System.out)); }
+		return (ThreadPrintStream)System.out;
+	}
+
+	/**
+	 * Installs a thread print stream as System.err, unless already installed.
+	 *
+	 * @return the thread print stream
+	 */
+	public static synchronized ThreadPrintStream installErr() {
+		if(!(System.err instanceof ThreadPrintStream)) { System.setErr(new ThreadPrintStream(System.err)); }
+		return (ThreadPrintStream)System.err;
+	}
+}
@@ -0,0 +1,105 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * A GinRummyPlayer buffering the individual report calls of the game into a GinRummyTurn and delivering them to a
+ * GinRummyTurnPlayer in a single call with each decision request, or at the end of each hand. A hand ended by forfeit
+ * reports no scores, so the host calls endGame once the game is over to deliver its end.
+ */
+public class BatchingGinRummyPlayer implements GinRummyPlayer {
+
+	/**
+	 * Player turns are delivered to
+	 */
+	private final GinRummyTurnPlayer player;
+
+	/**
+	 * Events buffered since the previous delivery
+	 */
+	private final GinRummyTurn turn = new GinRummyTurn();
+
+	/**
+	 * Whether a hand has started whose end has not been delivered
+	 */
+	private boolean inHand = false;
+
+	/**
+	 * Create a batching player delivering turns to the given player.
+	 * @param player player turns are delivered to
+	 */
+	public BatchingGinRummyPlayer(GinRummyTurnPlayer player) {
+		this.player = player;
+	}
+
+	@Override
+	public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+		turn.start(playerNum, startingPlayerNum, cards);
+		inHand = true;
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(Card card) {
+		boolean drawFaceUp = player.willDrawFaceUpCard(turn, card);
+		turn.clear();
+		return drawFaceUp;
+	}
+
+	@Override
+	public void reportDraw(int playerNum, Card drawnCard) {
+		turn.draw(playerNum, drawnCard);
+	}
+
+	@Override
+	public Card getDiscard() {
+		Card discard = player.getDiscard(turn);
+		turn.clear();
+		return discard;
+	}
+
+	@Override
+	public void reportDiscard(int playerNum, Card discardedCard) {
+		turn.discard(playerNum, discardedCard);
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds() {
+		ArrayList<ArrayList<Card>> melds = player.getFinalMelds(turn);
+		turn.clear();
+		return melds;
+	}
+
+	@Override
+	public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		turn.finalMelds(playerNum, melds);
+	}
+
+	@Override
+	public void reportScores(int[] scores) {
+		turn.scores(scores);
+		endGame(); // scores are the last report of a hand
+	}
+
+	@Override
+	public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		turn.layoff(playerNum, layoffCard, opponentMeld);
+	}
+
+	@Override
+	public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+		turn.finalHand(playerNum, hand);
+	}
+
+	/**
+	 * Deliver the end of the current hand, with the events buffered since the previous delivery, if the hand has not
+	 * ended with its scores (e.g., if it was ended by a forfeit). Does nothing otherwise.
+	 */
+	public void endGame() {
+		if (!inHand)
+			return;
+		inHand = false;
+		player.endHand(turn);
+		turn.clear();
+	}
+
+}
@@ -0,0 +1,173 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+
+/**
+ * A GameEventListener forwarding every event, in order, to each of a fixed list of listeners.
+ */
+public class CompositeGameEventListener implements GameEventListener {
+
+	/**
+	 * Listeners events are forwarded to
+	 */
+	private final GameEventListener[] listeners;
+
+	/**
+	 * Create a listener forwarding events to the given listeners.
+	 * @param listeners listeners events are forwarded to
+	 */
+	public CompositeGameEventListener(GameEventListener... listeners) {
+		this.listeners = listeners.clone();
+	}
+
+	/**
+	 * Return a listener forwarding to all given non-null listeners, avoiding composition where it is unnecessary.
+	 * @param listeners listeners, possibly null
+	 * @return NONE, the single given listener, or a composite of the given listeners
+	 */
+	public static GameEventListener of(GameEventListener... listeners) {
+		ArrayList<GameEventListener> used = new ArrayList<GameEventListener>();
+		for (GameEventListener listener : listeners)
+			if (listener != null && listener != NONE)
+				used.add(listener);
+		if (used.isEmpty())
+			return NONE;
+		if (used.size() == 1)
+			return used.get(0);
+		return new CompositeGameEventListener(used.toArray(new GameEventListener[used.size()]));
+	}
+
+	@Override
+	public void dealt(int playerNum, ArrayList<Card> hand) {
+		for (GameEventListener listener : listeners)
+			listener.dealt(playerNum, hand);
+	}
+
+	@Override
+	public void started(int seed, int startingPlayerNum) {
+		for (GameEventListener listener : listeners)
+			listener.started(seed, startingPlayerNum);
+	}
+
+	@Override
+	public void faceUp(Card card) {
+		for (GameEventListener listener : listeners)
+			listener.faceUp(card);
+	}
+
+	@Override
+	public void declined(int playerNum, Card card) {
+		for (GameEventListener listener : listeners)
+			listener.declined(playerNum, card);
+	}
+
+	@Override
+	public void drew(int playerNum, Card card, boolean faceUp) {
+		for (GameEventListener listener : listeners)
+			listener.drew(playerNum, card, faceUp);
+	}
+
+	@Override
+	public void discarded(int playerNum, Card card, ArrayList<Card> hand) {
+		for (GameEventListener listener : listeners)
+			listener.discarded(playerNum, card, hand);
+	}
+
+	@Override
+	public void illegalDiscard(int playerNum, Card card) {
+		for (GameEventListener listener : listeners)
+			listener.illegalDiscard(playerNum, card);
+	}
+
+	@Override
+	public void illegalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		for (GameEventListener listener : listeners)
+			listener.illegalMelds(playerNum, melds);
+	}
+
+	@Override
+	public void excessDeadwood(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood) {
+		for (GameEventListener listener : listeners)
+			listener.excessDeadwood(playerNum, melds, deadwood);
+	}
+
+	@Override
+	public void timedOut(int playerNum) {
+		for (GameEventListener listener : listeners)
+			listener.timedOut(playerNum);
+	}
+
+	@Override
+	public void knocked(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood, ArrayList<Card> hand) {
+		for (GameEventListener listener : listeners)
+			listener.knocked(playerNum, melds, deadwood, hand);
+	}
+
+	@Override
+	public void melded(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		for (GameEventListener listener : listeners)
+			listener.melded(playerNum, melds);
+	}
+
+	@Override
+	public void laidOff(int playerNum, Card card, ArrayList<Card> meld) {
+		for (GameEventListener listener : listeners)
+			listener.laidOff(playerNum, card, meld);
+	}
+
+	@Override
+	public void deadwood(int playerNum, int deadwood, ArrayList<Card> unmelded) {
+		for (GameEventListener listener : listeners)
+			listener.deadwood(playerNum, deadwood, unmelded);
+	}
+
+	@Override
+	public void scoredGin(int playerNum, int opponentDeadwood) {
+		for (GameEventListener listener : listeners)
+			listener.scoredGin(playerNum, opponentDeadwood);
+	}
+
+	@Override
+	public void scoredKnock(int playerNum, int difference) {
+		for (GameEventListener listener : listeners)
+			listener.scoredKnock(playerNum, difference);
+	}
+
+	@Override
+	public void scoredUndercut(int playerNum, int difference) {
+		for (GameEventListener listener : listeners)
+			listener.scoredUndercut(playerNum, difference);
+	}
+
+	@Override
+	public void cancelled() {
+		for (GameEventListener listener : listeners)
+			listener.cancelled();
+	}
+
+	@Override
+	public void scores(int[] scores) {
+		for (GameEventListener listener : listeners)
+			listener.scores(scores);
+	}
+
+	@Override
+	public void capped(int handsPlayed) {
+		for (GameEventListener listener : listeners)
+			listener.capped(handsPlayed);
+	}
+
+	@Override
+	public void won(int winner) {
+		for (GameEventListener listener : listeners)
+			listener.won(winner);
+	}
+
+	@Override
+	public void drawn() {
+		for (GameEventListener listener : listeners)
+			listener.drawn();
+	}
+
+}
@@ -0,0 +1,177 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+
+/**
+ * GameEventListener - interface for observing the play of a GinRummyGame
+ *
+ * Each GinRummyGame reports its events to a single listener given at construction.  All methods have empty default
+ * implementations, so a listener need only override the events it cares for, and the NONE listener costs a game
+ * nothing beyond the empty calls.  Events are reported in game order, from the thread playing the game.
+ *
+ * Card lists passed to a listener are owned by the game and may change after the call returns; a listener wishing to
+ * retain them must copy them.
+ */
+public interface GameEventListener {
+
+	/**
+	 * A listener ignoring all events
+	 */
+	GameEventListener NONE = new GameEventListener() { };
+
+	/**
+	 * Report the cards dealt to a player.
+	 * @param playerNum player dealt the cards
+	 * @param hand dealt cards
+	 */
+	default void dealt(int playerNum, ArrayList<Card> hand) { }
+
+	/**
+	 * Report the start of a hand, after both players are dealt their cards.
+	 * @param seed shuffle seed number of the deck (see Card.getShuffle)
+	 * @param startingPlayerNum starting player number (0/1)
+	 */
+	default void started(int seed, int startingPlayerNum) { }
+
+	/**
+	 * Report the initial face-up card of the discard pile.
+	 * @param card the initial face-up card
+	 */
+	default void faceUp(Card card) { }
+
+	/**
+	 * Report that a player declined the initial face-up card.
+	 * @param playerNum declining player
+	 * @param card the initial face-up card
+	 */
+	default void declined(int playerNum, Card card) { }
+
+	/**
+	 * Report that a player has drawn a card.
+	 * @param playerNum drawing player
+	 * @param card drawn card
+	 * @param faceUp whether the card was drawn face up from the discard pile
+	 */
+	default void drew(int playerNum, Card card, boolean faceUp) { }
+
+	/**
+	 * Report that a player has discarded a card.
+	 * @param playerNum discarding player
+	 * @param card discarded card
+	 * @param hand the player's hand after discarding
+	 */
+	default void discarded(int playerNum, Card card, ArrayList<Card> hand) { }
+
+	/**
+	 * Report that a player has attempted an illegal discard, forfeiting the game.
+	 * @param playerNum forfeiting player
+	 * @param card attempted discard
+	 */
+	default void illegalDiscard(int playerNum, Card card) { }
+
+	/**
+	 * Report that a player has attempted to meld illegally, forfeiting the game.
+	 * @param playerNum forfeiting player
+	 * @param melds attempted melds
+	 */
+	default void illegalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) { }
+
+	/**
+	 * Report that a player has knocked with too much deadwood, forfeiting the game.
+	 * @param playerNum forfeiting player
+	 * @param melds knocking melds
+	 * @param deadwood deadwood points of the knocking melds
+	 */
+	default void excessDeadwood(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood) { }
+
+	/**
+	 * Report that a player has exhausted its time allowance, forfeiting the game. Reported by the
+	 * party enforcing the allowance (e.g. a tournament) rather than by the game itself.
+	 * @param playerNum forfeiting player
+	 */
+	default void timedOut(int playerNum) { }
+
+	/**
+	 * Report that a player has knocked (or gone gin).
+	 * @param playerNum knocking player
+	 * @param melds knocking melds
+	 * @param deadwood deadwood points of the knocking player
+	 * @param hand hand of the knocking player
+	 */
+	default void knocked(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood, ArrayList<Card> hand) { }
+
+	/**
+	 * Report the melds of the player opposing the knocking player.
+	 * @param playerNum melding player
+	 * @param melds player melds
+	 */
+	default void melded(int playerNum, ArrayList<ArrayList<Card>> melds) { }
+
+	/**
+	 * Report that a player has laid off a card on a knocking meld.
+	 * @param playerNum player laying off
+	 * @param card card laid off
+	 * @param meld meld the card is laid off on, before the card is added
+	 */
+	default void laidOff(int playerNum, Card card, ArrayList<Card> meld) { }
+
+	/**
+	 * Report the final deadwood of the player opposing the knocking player, after lay offs.
+	 * @param playerNum opposing player
+	 * @param deadwood deadwood points
+	 * @param unmelded unmelded cards
+	 */
+	default void deadwood(int playerNum, int deadwood, ArrayList<Card> unmelded) { }
+
+	/**
+	 * Report that a player has scored by going gin.
+	 * @param playerNum scoring player
+	 * @param opponentDeadwood deadwood of the opponent, scored along with the gin bonus
+	 */
+	default void scoredGin(int playerNum, int opponentDeadwood) { }
+
+	/**
+	 * Report that a knocking player has scored the deadwood difference.
+	 * @param playerNum scoring player
+	 * @param difference scored deadwood difference
+	 */
+	default void scoredKnock(int playerNum, int difference) { }
+
+	/**
+	 * Report that a player has undercut the knocking player.
+	 * @param playerNum scoring player
+	 * @param difference deadwood difference, scored along with the undercut bonus
+	 */
+	default void scoredUndercut(int playerNum, int difference) { }
+
+	/**
+	 * Report that the hand was cancelled, as the draw pile was reduced to two cards without knocking.
+	 */
+	default void cancelled() { }
+
+	/**
+	 * Report the scores at the end of a hand.
+	 * @param scores current player scores, indexed by 0-based player number
+	 */
+	default void scores(int[] scores) { }
+
+	/**
+	 * Report that the game has reached its maximum number of hands without either player reaching the goal
+	 * score. The game ends, reporting either the player with the greater score as the winner or a draw.
+	 * @param handsPlayed number of hands played, including cancelled hands
+	 */
+	default void capped(int handsPlayed) { }
+
+	/**
+	 * Report the end of the game.
+	 * @param winner winning player number
+	 */
+	default void won(int winner) { }
+
+	/**
+	 * Report the end of the game as a draw, with equal scores after reaching the maximum number of hands.
+	 */
+	default void drawn() { }
+
+}
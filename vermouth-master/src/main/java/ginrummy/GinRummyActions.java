@@ -0,0 +1,284 @@
+package ginrummy;
+
+
+/**
+ * Action encoding and move generation for GinRummyState, intended for tree search (e.g. CFR or expectimax).
+ * Actions are small integers:
+ * 0 = draw face-up; 1 = draw face-down (or decline the initial face-up card); 2 = knock; 3 = don't knock;
+ * 4-55 = discard the card with id (action - 4).
+ *
+ * A knock uses the knocking player's best melds, so it is only legal when the best deadwood of the hand is at most
+ * GinRummyUtil.MAX_DEADWOOD.  Every apply pushes one record onto the state's undo stack, and undo pops and reverts
+ * it in constant time, so search may proceed depth-first without ever copying the state:
+ * <pre>
+ * int n = GinRummyActions.legalActions(state, buf);
+ * for (int i = 0; i &lt; n; i++) {
+ *     GinRummyActions.apply(state, buf[i]);
+ *     ... recurse ...
+ *     GinRummyActions.undo(state);
+ * }
+ * </pre>
+ * Note that a buffer is overwritten by subsequent calls, so recursive searches should use one buffer per depth.
+ */
+public class GinRummyActions {
+
+	/**
+	 * Draw the face-up card from the discard pile
+	 */
+	public static final int DRAW_FACE_UP = 0;
+
+	/**
+	 * Draw the face-down card from the draw pile, or decline the initial face-up card
+	 */
+	public static final int DRAW_FACE_DOWN = 1;
+
+	/**
+	 * Knock with the best melds of the hand
+	 */
+	public static final int KNOCK = 2;
+
+	/**
+	 * Continue play without knocking
+	 */
+	public static final int NO_KNOCK = 3;
+
+	/**
+	 * Action of discarding the card with id 0; card id i is discarded by action DISCARD + i
+	 */
+	public static final int DISCARD = 4;
+
+	/**
+	 * Total number of distinct actions
+	 */
+	public static final int NUM_ACTIONS = DISCARD + Card.NUM_CARDS;
+
+	/**
+	 * Maximum number of legal actions in any state, suitable for sizing action buffers
+	 */
+	public static final int MAX_LEGAL_ACTIONS = GinRummyState.HAND_SIZE + 1;
+
+	/*
+	 * Undo record layout, from the least significant bit: action (6 bits), moved card id (6 bits),
+	 * whether a card was moved (1 bit), previous phase (2 bits), previous player (1 bit), previous drawn face-up
+	 * card id + 1 (6 bits), previous knocker + 1 (2 bits), and previous turns taken (remaining bits).
+	 */
+	private static final int CARD_SHIFT = 6, MOVED_SHIFT = 12, PHASE_SHIFT = 13, PLAYER_SHIFT = 15,
+			DRAWN_SHIFT = 16, KNOCKER_SHIFT = 22, TURNS_SHIFT = 24;
+
+	// static class, private constructor
+	private GinRummyActions() { }
+
+	/**
+	 * Return the discard action for the given card.
+	 * @param card card to discard
+	 * @return the corresponding discard action
+	 */
+	public static int discard(Card card) {
+		return DISCARD + card.getId();
+	}
+
+	/**
+	 * Return whether or not the given action is a discard.
+	 * @param action action
+	 * @return whether or not the action is a discard
+	 */
+	public static boolean isDiscard(int action) {
+		return action >= DISCARD;
+	}
+
+	/**
+	 * Return the card discarded by the given discard action.
+	 * @param action discard action
+	 * @return the discarded card
+	 */
+	public static Card toCard(int action) {
+		return Card.getCard(action - DISCARD);
+	}
+
+	/**
+	 * Return a short human-readable name of the given action.
+	 * @param action action
+	 * @return a short human-readable name of the action
+	 */
+	public static String toString(int action) {
+		switch (action) {
+		case DRAW_FACE_UP: return "draw face-up";
+		case DRAW_FACE_DOWN: return "draw face-down";
+		case KNOCK: return "knock";
+		case NO_KNOCK: return "no knock";
+		default: return "discard " + toCard(action);
+		}
+	}
+
+	/**
+	 * Write the legal actions of the given state into the given buffer and return their number.
+	 * A terminal state has no legal actions.
+	 * @param state game state
+	 * @param buf action buffer of at least MAX_LEGAL_ACTIONS entries
+	 * @return the number of legal actions written to buf
+	 */
+	public static int legalActions(GinRummyState state, int[] buf) {
+		int n = 0;
+		switch (state.phase) {
+		case GinRummyState.DRAW:
+			// the face-up card is not offered to the starting player on the third turn if both players declined it
+			if (state.discardSize > 0 && !(state.turnsTaken == 2 && state.discards[state.discardSize - 1] == state.firstFaceUp))
+				buf[n++] = DRAW_FACE_UP;
+			buf[n++] = DRAW_FACE_DOWN;
+			break;
+		case GinRummyState.DISCARD:
+			long hand = state.hands[state.currentPlayer];
+			if (state.drawnFaceUp >= 0)
+				hand &= ~(1L << state.drawnFaceUp);
+			while (hand != 0L) {
+				buf[n++] = DISCARD + Long.numberOfTrailingZeros(hand);
+				hand &= hand - 1;
+			}
+			break;
+		case GinRummyState.KNOCK:
+			if (GinRummyUtil.getBestDeadwood(state.hands[state.currentPlayer]) <= GinRummyUtil.MAX_DEADWOOD)
+				buf[n++] = KNOCK;
+			buf[n++] = NO_KNOCK;
+			break;
+		default:
+			break;
+		}
+		return n;
+	}
+
+	/**
+	 * Return whether or not the given action is legal in the given state.
+	 * @param state game state
+	 * @param action action
+	 * @return whether or not the action is legal
+	 */
+	public static boolean isLegal(GinRummyState state, int action) {
+		int[] buf = new int[MAX_LEGAL_ACTIONS];
+		int n = legalActions(state, buf);
+		for (int i = 0; i < n; i++)
+			if (buf[i] == action)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Apply the given legal action to the given state, pushing a record onto its undo stack.
+	 * Legality is not checked; see legalActions.
+	 * @param state game state
+	 * @param action legal action
+	 */
+	public static void apply(GinRummyState state, int action) {
+		long record = action
+				| (long) state.phase << PHASE_SHIFT
+				| (long) state.currentPlayer << PLAYER_SHIFT
+				| (long) (state.drawnFaceUp + 1) << DRAWN_SHIFT
+				| (long) (state.knocker + 1) << KNOCKER_SHIFT
+				| (long) state.turnsTaken << TURNS_SHIFT;
+		int card;
+		switch (action) {
+		case DRAW_FACE_UP:
+			card = state.discards[--state.discardSize];
+			state.hands[state.currentPlayer] |= 1L << card;
+			state.drawnFaceUp = card;
+			state.phase = GinRummyState.DISCARD;
+			record |= (long) card << CARD_SHIFT | 1L << MOVED_SHIFT;
+			break;
+		case DRAW_FACE_DOWN:
+			if (state.isInitialOffer()) { // declined initial face-up card; turn passes without a draw
+				endTurn(state);
+				break;
+			}
+			card = state.deck[--state.deckSize];
+			state.hands[state.currentPlayer] |= 1L << card;
+			state.drawnFaceUp = -1;
+			state.phase = GinRummyState.DISCARD;
+			record |= (long) card << CARD_SHIFT | 1L << MOVED_SHIFT;
+			break;
+		case KNOCK:
+			state.knocker = state.currentPlayer;
+			state.phase = GinRummyState.TERMINAL;
+			break;
+		case NO_KNOCK:
+			endTurn(state);
+			break;
+		default: // discard
+			card = action - DISCARD;
+			state.hands[state.currentPlayer] &= ~(1L << card);
+			state.discards[state.discardSize++] = (byte) card;
+			state.phase = GinRummyState.KNOCK;
+			record |= (long) card << CARD_SHIFT | 1L << MOVED_SHIFT;
+			break;
+		}
+		state.pushUndo(record);
+	}
+
+	/**
+	 * Revert the most recently applied action of the given state.
+	 * @param state game state with at least one applied action
+	 */
+	public static void undo(GinRummyState state) {
+		long record = state.undo[--state.undoSize];
+		int action = (int) (record & 0x3F);
+		int card = (int) (record >>> CARD_SHIFT & 0x3F);
+		boolean moved = (record >>> MOVED_SHIFT & 1L) != 0L;
+		state.phase = (int) (record >>> PHASE_SHIFT & 0x3);
+		state.currentPlayer = (int) (record >>> PLAYER_SHIFT & 0x1);
+		state.drawnFaceUp = (int) (record >>> DRAWN_SHIFT & 0x3F) - 1;
+		state.knocker = (int) (record >>> KNOCKER_SHIFT & 0x3) - 1;
+		state.turnsTaken = (int) (record >>> TURNS_SHIFT);
+		if (!moved)
+			return;
+		switch (action) {
+		case DRAW_FACE_UP:
+			state.hands[state.currentPlayer] &= ~(1L << card);
+			state.discards[state.discardSize++] = (byte) card;
+			break;
+		case DRAW_FACE_DOWN:
+			state.hands[state.currentPlayer] &= ~(1L << card);
+			state.deck[state.deckSize++] = (byte) card;
+			break;
+		default: // discard
+			state.discardSize--;
+			state.hands[state.currentPlayer] |= 1L << card;
+			break;
+		}
+	}
+
+	/**
+	 * End the current player's turn, ending the hand if the draw pile is reduced to two cards.
+	 * @param state game state
+	 */
+	private static void endTurn(GinRummyState state) {
+		state.turnsTaken++;
+		state.currentPlayer = 1 - state.currentPlayer;
+		state.drawnFaceUp = -1;
+		state.phase = state.deckSize > 2 ? GinRummyState.DRAW : GinRummyState.TERMINAL;
+	}
+
+	/**
+	 * Test legal action generation, apply and undo over random playouts.
+	 * @param args (unused)
+	 */
+	public static void main(String[] args) {
+		java.util.Random random = new java.util.Random(0);
+		int[] buf = new int[MAX_LEGAL_ACTIONS];
+		int numPlayouts = 10000, numKnocks = 0;
+		long startMs = System.currentTimeMillis();
+		for (int i = 0; i < numPlayouts; i++) {
+			GinRummyState state = GinRummyState.deal(random.nextInt(), random.nextInt(2));
+			String initial = state.toString();
+			while (!state.isTerminal()) {
+				int n = legalActions(state, buf);
+				apply(state, buf[random.nextInt(n)]);
+			}
+			if (state.getKnocker() >= 0)
+				numKnocks++;
+			while (state.getUndoDepth() > 0)
+				undo(state);
+			if (!initial.equals(state.toString()))
+				throw new IllegalStateException("undo did not restore " + initial + ", got " + state);
+		}
+		long totalMs = System.currentTimeMillis() - startMs;
+		System.out.printf("%d random playouts (%d knocks) applied and undone in %d ms.\n", numPlayouts, numKnocks, totalMs);
+	}
+}
@@ -0,0 +1,155 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * A GinRummyPlayer bridging to a GinRummyBitPlayer: calls of the GinRummyPlayer methods are converted to ids and
+ * bitstrings, while calls of the GinRummyBitPlayer methods (e.g., by GinRummyGame) are passed through unconverted.
+ */
+public class GinRummyBitAdapter implements GinRummyPlayer, GinRummyBitPlayer {
+
+	/**
+	 * Adapted player
+	 */
+	private final GinRummyBitPlayer player;
+
+	/**
+	 * Create an adapter for the given player.
+	 * @param player adapted player
+	 */
+	public GinRummyBitAdapter(GinRummyBitPlayer player) {
+		this.player = player;
+	}
+
+	/**
+	 * Return the adapted player.
+	 * @return the adapted player
+	 */
+	public GinRummyBitPlayer getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Return the id of the given card, or UNKNOWN for null.
+	 */
+	private static int id(Card card) {
+		return card == null ? UNKNOWN : card.getId();
+	}
+
+	/**
+	 * Return the card of the given id, or null for an invalid id.
+	 */
+	private static Card card(int id) {
+		return id < 0 || id >= Card.NUM_CARDS ? null : Card.getCard(id);
+	}
+
+	@Override
+	public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+		long hand = 0L;
+		for (Card card : cards)
+			hand |= 1L << card.getId();
+		player.startGame(playerNum, startingPlayerNum, hand);
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(Card card) {
+		return player.willDrawFaceUpCard(card.getId());
+	}
+
+	@Override
+	public void reportDraw(int playerNum, Card drawnCard) {
+		player.reportDraw(playerNum, id(drawnCard));
+	}
+
+	@Override
+	public Card getDiscard() {
+		return card(player.getDiscardId());
+	}
+
+	@Override
+	public void reportDiscard(int playerNum, Card discardedCard) {
+		player.reportDiscard(playerNum, discardedCard.getId());
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds() {
+		long[] melds = player.getFinalMeldBitstrings();
+		if (melds == null)
+			return null;
+		ArrayList<ArrayList<Card>> meldLists = new ArrayList<ArrayList<Card>>(melds.length);
+		for (long meld : melds)
+			meldLists.add(GinRummyUtil.bitstringToCards(meld));
+		return meldLists;
+	}
+
+	@Override
+	public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		long[] meldBitstrings = new long[melds.size()];
+		for (int i = 0; i < meldBitstrings.length; i++)
+			meldBitstrings[i] = GinRummyUtil.cardsToBitstring(melds.get(i));
+		player.reportFinalMelds(playerNum, meldBitstrings);
+	}
+
+	@Override
+	public void reportScores(int[] scores) {
+		player.reportScores(scores);
+	}
+
+	@Override
+	public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		player.reportLayoff(playerNum, layoffCard.getId(), GinRummyUtil.cardsToBitstring(opponentMeld));
+	}
+
+	@Override
+	public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+		player.reportFinalHand(playerNum, GinRummyUtil.cardsToBitstring(hand));
+	}
+
+	// GinRummyBitPlayer methods, passed through
+
+	@Override
+	public void startGame(int playerNum, int startingPlayerNum, long hand) {
+		player.startGame(playerNum, startingPlayerNum, hand);
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(int card) {
+		return player.willDrawFaceUpCard(card);
+	}
+
+	@Override
+	public void reportDraw(int playerNum, int card) {
+		player.reportDraw(playerNum, card);
+	}
+
+	@Override
+	public int getDiscardId() {
+		return player.getDiscardId();
+	}
+
+	@Override
+	public void reportDiscard(int playerNum, int card) {
+		player.reportDiscard(playerNum, card);
+	}
+
+	@Override
+	public long[] getFinalMeldBitstrings() {
+		return player.getFinalMeldBitstrings();
+	}
+
+	@Override
+	public void reportFinalMelds(int playerNum, long[] melds) {
+		player.reportFinalMelds(playerNum, melds);
+	}
+
+	@Override
+	public void reportLayoff(int playerNum, int card, long opponentMeld) {
+		player.reportLayoff(playerNum, card, opponentMeld);
+	}
+
+	@Override
+	public void reportFinalHand(int playerNum, long hand) {
+		player.reportFinalHand(playerNum, hand);
+	}
+
+}
@@ -0,0 +1,91 @@
+package ginrummy;
+
+/**
+ * A primitive alternative to GinRummyPlayer, exchanging cards as ids (see Card.getId) and sets of cards as bitstrings
+ * (see GinRummyUtil.cardsToBitstring) rather than Card objects and lists. Each method corresponds to the GinRummyPlayer
+ * method of the same name, with the decisions getDiscardId and getFinalMeldBitstrings named apart from getDiscard and
+ * getFinalMelds so that a class may implement both interfaces.
+ * <p>
+ * GinRummyGame reports to a GinRummyBitPlayer directly, without copying or converting hands and melds to lists;
+ * where a GinRummyPlayer is required (e.g., by other hosts), a GinRummyBitAdapter bridges the two interfaces. Meld
+ * arrays passed to a player are shared with the other player and must not be modified.
+ */
+public interface GinRummyBitPlayer {
+
+	/**
+	 * Card id reported for a card unknown to the player
+	 */
+	public static final int UNKNOWN = -1;
+
+	/**
+	 * Inform player of 0-based player number (0/1), starting player number (0/1), and dealt cards
+	 * @param playerNum player's 0-based player number (0/1)
+	 * @param startingPlayerNum starting player number (0/1)
+	 * @param hand bitstring of the dealt cards
+	 */
+	public void startGame(int playerNum, int startingPlayerNum, long hand);
+
+	/**
+	 * Return whether or not player will draw the given face-up card on the draw pile.
+	 * @param card id of the face-up card on the draw pile
+	 * @return whether or not player will draw the given face-up card on the draw pile
+	 */
+	public boolean willDrawFaceUpCard(int card);
+
+	/**
+	 * Report that the given player has drawn a given card and, if known, what the card is.
+	 * @param playerNum player drawing a card
+	 * @param card id of the card drawn, or UNKNOWN if the card was drawn face down by the opponent
+	 */
+	public void reportDraw(int playerNum, int card);
+
+	/**
+	 * Get the player's discarded card.
+	 * @return id of the player's chosen card for discarding
+	 * @see GinRummyPlayer#getDiscard()
+	 */
+	public int getDiscardId();
+
+	/**
+	 * Report that the given player has discarded a given card.
+	 * @param playerNum the discarding player
+	 * @param card id of the card that was discarded
+	 */
+	public void reportDiscard(int playerNum, int card);
+
+	/**
+	 * Return null if not knocking (and the opponent hasn't knocked), or the player's final melds.
+	 * @return null if continuing play and opponent hasn't melded, or the bitstrings of the melds
+	 * @see GinRummyPlayer#getFinalMelds()
+	 */
+	public long[] getFinalMeldBitstrings();
+
+	/**
+	 * Report the final melds of the given player.
+	 * @param playerNum player that has revealed melds
+	 * @param melds bitstrings of the melds, not to be modified
+	 */
+	public void reportFinalMelds(int playerNum, long[] melds);
+
+	/**
+	 * Report current player scores, indexed by 0-based player number.
+	 * @param scores current player scores, indexed by 0-based player number
+	 */
+	public void reportScores(int[] scores);
+
+	/**
+	 * Report layoff actions.
+	 * @param playerNum player laying off cards
+	 * @param card id of the card laid off
+	 * @param opponentMeld bitstring of the opponent meld that card is added to (without the card)
+	 */
+	public void reportLayoff(int playerNum, int card, long opponentMeld);
+
+	/**
+	 * Report the final hands of players.
+	 * @param playerNum player of hand reported
+	 * @param hand bitstring of the complete hand of given player
+	 */
+	public void reportFinalHand(int playerNum, long hand);
+
+}
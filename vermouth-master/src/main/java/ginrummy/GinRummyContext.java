@@ -0,0 +1,62 @@
+package ginrummy;
+
+/**
+ * A handle identifying one game (table) played by a GinRummyContextPlayer. Every callback of a context player carries
+ * the context of the game it concerns, so that a single player object can play many games at once, keeping its
+ * per-game state (e.g., its hand and player number) in the context rather than in fields.
+ * <p>
+ * A context stays the same for all hands of all games played at its table. It is not safe for use by multiple
+ * threads, but the host never makes concurrent calls to a context player.
+ */
+public class GinRummyContext {
+
+	/**
+	 * Context number, unique per player object
+	 */
+	private final int id;
+
+	/**
+	 * Player state attached to the context
+	 */
+	private Object state = null;
+
+	/**
+	 * Create a context with the given number.
+	 * @param id context number, unique per player object
+	 */
+	public GinRummyContext(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Return the context number, unique among the contexts of a player object.
+	 * @return the context number
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Return the player state attached to the context.
+	 * @param <T> the type of the player state
+	 * @return the player state, or null if none has been attached
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getState() {
+		return (T) state;
+	}
+
+	/**
+	 * Attach player state to the context, replacing any previously attached state.
+	 * @param state the player state
+	 */
+	public void setState(Object state) {
+		this.state = state;
+	}
+
+	@Override
+	public String toString() {
+		return "context " + id;
+	}
+
+}
@@ -0,0 +1,121 @@
+package ginrummy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An alternative to GinRummyPlayer for players serving many games at once from a single object. Each method
+ * corresponds to the GinRummyPlayer method of the same name, with the context of the game it concerns as an
+ * additional first argument; per-game state is kept in the context (see GinRummyContext.setState) rather than in
+ * fields of the player.
+ * <p>
+ * The host never calls a context player concurrently, so implementations need not be thread-safe, but calls for
+ * different games may interleave arbitrarily. Pending decisions of games played at the same time are passed together
+ * to decideBatch, letting expensive evaluations (large lookup tables, batched simulation) be shared across games.
+ * Players which do not batch need not implement decideBatch, which by default makes each decision individually.
+ */
+public interface GinRummyContextPlayer {
+
+	/**
+	 * Inform player of 0-based player number (0/1), starting player number (0/1), and dealt cards
+	 * @param context game context
+	 * @param playerNum player's 0-based player number (0/1)
+	 * @param startingPlayerNum starting player number (0/1)
+	 * @param cards dealt cards
+	 * @see GinRummyPlayer#startGame(int, int, Card[])
+	 */
+	public void startGame(GinRummyContext context, int playerNum, int startingPlayerNum, Card[] cards);
+
+	/**
+	 * Return whether or not player will draw the given face-up card on the draw pile.
+	 * @param context game context
+	 * @param card face-up card on the draw pile
+	 * @return whether or not player will draw the given face-up card on the draw pile
+	 */
+	public boolean willDrawFaceUpCard(GinRummyContext context, Card card);
+
+	/**
+	 * Report that the given player has drawn a given card and, if known, what the card is.
+	 * @param context game context
+	 * @param playerNum player drawing a card
+	 * @param drawnCard the card drawn or null, depending on whether the card is known to the player or not, respectively
+	 */
+	public void reportDraw(GinRummyContext context, int playerNum, Card drawnCard);
+
+	/**
+	 * Get the player's discarded card.
+	 * @param context game context
+	 * @return the player's chosen card for discarding
+	 * @see GinRummyPlayer#getDiscard()
+	 */
+	public Card getDiscard(GinRummyContext context);
+
+	/**
+	 * Report that the given player has discarded a given card.
+	 * @param context game context
+	 * @param playerNum the discarding player
+	 * @param discardedCard the card that was discarded
+	 */
+	public void reportDiscard(GinRummyContext context, int playerNum, Card discardedCard);
+
+	/**
+	 * At the end of each turn, this method is called and the player that cannot (or will not) end the round will
+	 * return a null value. However, the first player to "knock" (that is, end the round), and then their opponent,
+	 * will return an ArrayList of ArrayLists of melded cards.
+	 * @param context game context
+	 * @return null if continuing play and opponent hasn't melded, or an ArrayList of ArrayLists of melded cards.
+	 * @see GinRummyPlayer#getFinalMelds()
+	 */
+	public ArrayList<ArrayList<Card>> getFinalMelds(GinRummyContext context);
+
+	/**
+	 * When an player has ended play and formed melds, the melds (and deadwood) are reported to both players.
+	 * @param context game context
+	 * @param playerNum player that has revealed melds
+	 * @param melds an ArrayList of ArrayLists of melded cards with the last ArrayList (possibly empty) being deadwood.
+	 */
+	public void reportFinalMelds(GinRummyContext context, int playerNum, ArrayList<ArrayList<Card>> melds);
+
+	/**
+	 * Report current player scores, indexed by 0-based player number.
+	 * @param context game context
+	 * @param scores current player scores, indexed by 0-based player number
+	 */
+	public void reportScores(GinRummyContext context, int[] scores);
+
+	/**
+	 * Report layoff actions.
+	 * @param context game context
+	 * @param playerNum player laying off cards
+	 * @param layoffCard card laid off
+	 * @param opponentMeld the opponent meld that card is added to
+	 */
+	public void reportLayoff(GinRummyContext context, int playerNum, Card layoffCard, ArrayList<Card> opponentMeld);
+
+	/**
+	 * Report the final hands of players.
+	 * @param context game context
+	 * @param playerNum player of hand reported
+	 * @param hand complete hand of given player
+	 */
+	public void reportFinalHand(GinRummyContext context, int playerNum, ArrayList<Card> hand);
+
+	/**
+	 * Make the given pending decisions, each for a different game, by calling the setter for its type. By default,
+	 * each decision is made individually through willDrawFaceUpCard, getDiscard or getFinalMelds.
+	 * @param decisions pending decisions, each for a different game
+	 */
+	public default void decideBatch(List<GinRummyDecision> decisions) {
+		for (GinRummyDecision decision : decisions)
+			decision.decide(this);
+	}
+
+	/**
+	 * Inform player that no further calls will be made for the given context, e.g., to release state attached to it.
+	 * By default, does nothing.
+	 * @param context game context
+	 */
+	public default void closeContext(GinRummyContext context) {
+	}
+
+}
@@ -0,0 +1,167 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * A pending decision of a GinRummyContextPlayer in one of its games: whether to draw the face-up card (DRAW), which
+ * card to discard (DISCARD), or whether and how to knock (MELDS). Decisions of several games are passed together to
+ * GinRummyContextPlayer.decideBatch, which answers each through the setter for its type.
+ */
+public class GinRummyDecision {
+
+	/**
+	 * Decision types, corresponding to willDrawFaceUpCard, getDiscard and getFinalMelds respectively
+	 */
+	public static final int DRAW = 0, DISCARD = 1, MELDS = 2;
+
+	/**
+	 * Decision type
+	 */
+	private final int type;
+
+	/**
+	 * Context of the game the decision is for
+	 */
+	private final GinRummyContext context;
+
+	/**
+	 * Face-up card (DRAW), otherwise null
+	 */
+	private final Card card;
+
+	/**
+	 * Whether the decision has been made
+	 */
+	private boolean decided = false;
+
+	/**
+	 * Decision results, by type
+	 */
+	private boolean drawFaceUp;
+	private Card discard;
+	private ArrayList<ArrayList<Card>> melds;
+
+	/**
+	 * Create a pending decision.
+	 * @param type decision type (DRAW, DISCARD or MELDS)
+	 * @param context context of the game the decision is for
+	 * @param card face-up card on the draw pile for a DRAW decision, otherwise null
+	 */
+	public GinRummyDecision(int type, GinRummyContext context, Card card) {
+		this.type = type;
+		this.context = context;
+		this.card = card;
+	}
+
+	/**
+	 * Return the decision type.
+	 * @return the decision type (DRAW, DISCARD or MELDS)
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Return the context of the game the decision is for.
+	 * @return the game context
+	 */
+	public GinRummyContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Return the face-up card on the draw pile of a DRAW decision.
+	 * @return the face-up card, or null for other decisions
+	 */
+	public Card getCard() {
+		return card;
+	}
+
+	/**
+	 * Return whether the decision has been made.
+	 * @return whether the decision has been made
+	 */
+	public boolean isDecided() {
+		return decided;
+	}
+
+	/**
+	 * Decide a DRAW decision.
+	 * @param drawFaceUp whether or not the player will draw the face-up card
+	 */
+	public void setDrawFaceUp(boolean drawFaceUp) {
+		check(DRAW);
+		this.drawFaceUp = drawFaceUp;
+	}
+
+	/**
+	 * Decide a DISCARD decision.
+	 * @param discard the card to discard
+	 */
+	public void setDiscard(Card discard) {
+		check(DISCARD);
+		this.discard = discard;
+	}
+
+	/**
+	 * Decide a MELDS decision.
+	 * @param melds null if not knocking, or the player's final melds
+	 */
+	public void setMelds(ArrayList<ArrayList<Card>> melds) {
+		check(MELDS);
+		this.melds = melds;
+	}
+
+	/**
+	 * Return the result of a decided DRAW decision.
+	 * @return whether or not the player will draw the face-up card
+	 */
+	public boolean getDrawFaceUp() {
+		return drawFaceUp;
+	}
+
+	/**
+	 * Return the result of a decided DISCARD decision.
+	 * @return the card to discard
+	 */
+	public Card getDiscard() {
+		return discard;
+	}
+
+	/**
+	 * Return the result of a decided MELDS decision.
+	 * @return null if not knocking, or the player's final melds
+	 */
+	public ArrayList<ArrayList<Card>> getMelds() {
+		return melds;
+	}
+
+	/**
+	 * Make the decision through the individual decision method of the given player, e.g., for decisions a batch
+	 * evaluator does not handle.
+	 * @param player the player deciding
+	 */
+	public void decide(GinRummyContextPlayer player) {
+		switch (type) {
+		case DRAW:
+			setDrawFaceUp(player.willDrawFaceUpCard(context, card));
+			break;
+		case DISCARD:
+			setDiscard(player.getDiscard(context));
+			break;
+		case MELDS:
+			setMelds(player.getFinalMelds(context));
+			break;
+		}
+	}
+
+	/**
+	 * Check the type of a decision being made, and mark it decided.
+	 */
+	private void check(int type) {
+		if (this.type != type)
+			throw new IllegalStateException("decision of type " + this.type + " decided as type " + type);
+		decided = true;
+	}
+
+}
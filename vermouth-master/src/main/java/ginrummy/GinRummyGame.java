@@ -43,122 +43,285 @@ public class GinRummyGame {
 	private static final int HAND_SIZE = 10;
 
 	/**
-	 * Whether or not to print information during game play
+	 * Two Gin Rummy players numbered according to their array index.
 	 */
-	private static boolean playVerbose = false;
+	private GinRummyPlayer[] players;
 
 	/**
-	 * Two Gin Rummy players numbered according to their array index.
+	 * The players as GinRummyBitPlayers, reported to without copying or converting to lists, or null for players
+	 * implementing only GinRummyPlayer
 	 */
-	private GinRummyPlayer[] players;
+	private GinRummyBitPlayer[] bitPlayers;
 
 	/**
-	 * Set whether or not there is to be printed output during gameplay.
-	 * @param playVerbose whether or not there is to be printed output during gameplay
+	 * Random number generator for shuffles and starting players
 	 */
-	public static void setPlayVerbose(boolean playVerbose) {
-		GinRummyGame.playVerbose = playVerbose;
-	}
+	private Random random = RANDOM;
+
+	/**
+	 * Listener informed of game events
+	 */
+	private GameEventListener listener;
+
+	/**
+	 * Maximum number of hands per game, or 0 for no maximum
+	 */
+	private int maxHands = 0;
+
+	/**
+	 * Number of hands dealt (including cancelled and forfeited hands) in the most recent game
+	 */
+	private int handsPlayed = 0;
+
+	/**
+	 * Whether the most recent game ended by reaching the maximum number of hands
+	 */
+	private boolean capped = false;
 
 	/**
-	 * Create a GinRummyGame with two given players
+	 * Create a GinRummyGame with two given players and no listener
 	 * @param player0 Player 0
 	 * @param player1 Player 1
 	 */
 	public GinRummyGame(GinRummyPlayer player0, GinRummyPlayer player1) {
+		this(player0, player1, GameEventListener.NONE);
+	}
+
+	/**
+	 * Create a GinRummyGame with two given players, reporting game events to the given listener
+	 * @param player0 Player 0
+	 * @param player1 Player 1
+	 * @param listener listener informed of game events (e.g. a TextGameEventListener for printed output)
+	 */
+	public GinRummyGame(GinRummyPlayer player0, GinRummyPlayer player1, GameEventListener listener) {
 		players = new GinRummyPlayer[] {player0, player1};
+		bitPlayers = new GinRummyBitPlayer[] {bits(player0), bits(player1)};
+		this.listener = listener;
+	}
+
+	/**
+	 * Return the given player as a GinRummyBitPlayer, if it is one.
+	 */
+	private static GinRummyBitPlayer bits(GinRummyPlayer player) {
+		return player instanceof GinRummyBitPlayer ? (GinRummyBitPlayer) player : null;
+	}
+
+	/**
+	 * Return the id of the given card, or GinRummyBitPlayer.UNKNOWN for null.
+	 */
+	private static int id(Card card) {
+		return card == null ? GinRummyBitPlayer.UNKNOWN : card.getId();
+	}
+
+	/**
+	 * Return the given meld bitstrings as lists of cards, for listeners and GinRummyPlayers.
+	 */
+	private static ArrayList<ArrayList<Card>> meldLists(long[] meldBitstrings) {
+		ArrayList<ArrayList<Card>> melds = new ArrayList<ArrayList<Card>>(meldBitstrings.length);
+		for (long meld : meldBitstrings)
+			melds.add(GinRummyUtil.bitstringToCards(meld));
+		return melds;
+	}
+
+	/**
+	 * Return the given melds as bitstrings, for validation and GinRummyBitPlayers.
+	 */
+	private static long[] meldBitstrings(ArrayList<ArrayList<Card>> melds) {
+		long[] meldBitstrings = new long[melds.size()];
+		for (int m = 0; m < meldBitstrings.length; m++)
+			meldBitstrings[m] = GinRummyUtil.cardsToBitstring(melds.get(m));
+		return meldBitstrings;
+	}
+
+	/**
+	 * Return the final melds of the given player as bitstrings, or null if not knocking. The melds of a
+	 * GinRummyBitPlayer are kept as returned, and those of other players converted from their lists.
+	 */
+	private long[] getFinalMeldBitstrings(int player, ArrayList<ArrayList<Card>> melds) {
+		if (bitPlayers[player] != null)
+			return bitPlayers[player].getFinalMeldBitstrings();
+		return melds == null ? null : meldBitstrings(melds);
+	}
+
+	/**
+	 * Return the bitstring of the cards of a hand left unmelded by the given melds, or -1 if any meld is not a meld
+	 * or not in the hand.
+	 */
+	private static long unmelded(long handBitstring, long[] meldBitstrings) {
+		long unmelded = handBitstring;
+		for (long meldBitstring : meldBitstrings) {
+			if (!GinRummyUtil.getAllMeldBitstrings().contains(meldBitstring) // non-meld ...
+					|| (meldBitstring & unmelded) != meldBitstring) // ... or meld not in hand
+				return -1;
+			unmelded &= ~meldBitstring; // remove successfully melded cards from
+		}
+		return unmelded;
+	}
+
+	/**
+	 * Report the final melds of the given player to both players, as bitstrings to GinRummyBitPlayers (each given its
+	 * own copy, so neither can alter the melds seen by the other or by the game) and as copies of the lists to other
+	 * players. The lists are only built for GinRummyPlayers.
+	 */
+	@SuppressWarnings("unchecked")
+	private void reportFinalMelds(int player, ArrayList<ArrayList<Card>> melds, long[] meldBitstrings) {
+		ArrayList<ArrayList<Card>> meldsCopy = null;
+		for (int i = 0; i < 2; i++) {
+			if (bitPlayers[i] != null)
+				bitPlayers[i].reportFinalMelds(player, meldBitstrings.clone());
+			else {
+				if (meldsCopy == null) {
+					meldsCopy = new ArrayList<ArrayList<Card>>();
+					for (ArrayList<Card> meld : melds)
+						meldsCopy.add((ArrayList<Card>) meld.clone());
+				}
+				players[i].reportFinalMelds(player, meldsCopy);
+			}
+		}
+	}
+
+	/**
+	 * Set the listener informed of game events.
+	 * @param listener listener informed of game events
+	 */
+	public void setGameEventListener(GameEventListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set the random number generator used for shuffles and starting players, e.g., a seeded generator per game for
+	 * games that are reproducible regardless of the order (or thread) they are played in.
+	 * @param random random number generator, or null for the generator shared by all games
+	 */
+	public void setRandom(Random random) {
+		this.random = random == null ? RANDOM : random;
 	}
 
 	/**
-	 * Play a game of Gin Rummy and return the winning player number 0 or 1.
-	 * @return the winning player number 0 or 1
+	 * Set the maximum number of hands per game. Once the maximum is reached without either player reaching the
+	 * goal score, the game ends: the player with the higher score wins, and equal scores are a draw.
+	 * Cancelled hands count toward the maximum, so the maximum bounds games between players which never knock.
+	 * @param maxHands maximum number of hands per game, or 0 for no maximum
+	 */
+	public void setMaxHands(int maxHands) {
+		this.maxHands = maxHands;
+	}
+
+	/**
+	 * Return the number of hands dealt (including cancelled and forfeited hands) in the most recent game.
+	 * @return the number of hands played in the most recent game
+	 */
+	public int getHandsPlayed() {
+		return handsPlayed;
+	}
+
+	/**
+	 * Return whether the most recent game ended by reaching the maximum number of hands.
+	 * @return whether the most recent game ended by reaching the maximum number of hands
+	 */
+	public boolean isCapped() {
+		return capped;
+	}
+
+	/**
+	 * Play a game of Gin Rummy and return the final scores. The player with the greater score wins; if the
+	 * maximum number of hands was reached, the scores may be equal (a draw).
+	 * @return the final scores, indexed by player number
 	 */
 	@SuppressWarnings("unchecked")
 	public int[] play() {
 		int[] scores = new int[2];
+		handsPlayed = 0;
+		capped = false;
 		ArrayList<ArrayList<Card>> hands = new ArrayList<ArrayList<Card>>();
 		hands.add(new ArrayList<Card>());
 		hands.add(new ArrayList<Card>());
-		int startingPlayer = RANDOM.nextInt(2);
+		int startingPlayer = random.nextInt(2);
 
-		while (scores[0] < GinRummyUtil.GOAL_SCORE && scores[1] < GinRummyUtil.GOAL_SCORE) { // while game not over
+		while (scores[0] < GinRummyUtil.GOAL_SCORE && scores[1] < GinRummyUtil.GOAL_SCORE // while game not over ...
+				&& (maxHands == 0 || handsPlayed < maxHands)) { // ... and hand limit not reached
 			int currentPlayer = startingPlayer;
 			int opponent = (currentPlayer == 0) ? 1 : 0;
 
 			// get shuffled deck and deal cards
-			Stack<Card> deck = Card.getShuffle(RANDOM.nextInt());
+			handsPlayed++;
+			int seed = random.nextInt();
+			Stack<Card> deck = Card.getShuffle(seed);
 			hands.get(0).clear();
 			hands.get(1).clear();
 			for (int i = 0; i < 2 * HAND_SIZE; i++)
 				hands.get(i % 2).add(deck.pop());
 			for (int i = 0; i < 2; i++) {
-				Card[] handArr = new Card[HAND_SIZE];
-				hands.get(i).toArray(handArr);
-				players[i].startGame(i, startingPlayer, handArr);
-				if (playVerbose)
-					System.out.printf("Player %d is dealt %s.\n", i, hands.get(i));
+				if (bitPlayers[i] != null)
+					bitPlayers[i].startGame(i, startingPlayer, GinRummyUtil.cardsToBitstring(hands.get(i)));
+				else {
+					Card[] handArr = new Card[HAND_SIZE];
+					hands.get(i).toArray(handArr);
+					players[i].startGame(i, startingPlayer, handArr);
+				}
+				listener.dealt(i, hands.get(i));
 			}
-			if (playVerbose)
-				System.out.printf("Player %d starts.\n", startingPlayer);
+			listener.started(seed, startingPlayer);
 			Stack<Card> discards = new Stack<Card>();
 			discards.push(deck.pop());
-			if (playVerbose)
-				System.out.printf("The initial face up card is %s.\n", discards.peek());
+			listener.faceUp(discards.peek());
 			Card firstFaceUpCard = discards.peek();
 			int turnsTaken = 0;
 			ArrayList<ArrayList<Card>> knockMelds = null;
+			long[] knockMeldBitstrings = null;
 			while (deck.size() > 2) { // while the deck has more than two cards remaining, play round
 				// DRAW
 				boolean drawFaceUp = false;
 				Card faceUpCard = discards.peek();
 				// offer draw face-up iff not 3rd turn with first face up card (decline automatically in that case)
 				if (!(turnsTaken == 2 && faceUpCard == firstFaceUpCard)) { // both players declined and 1st player must draw face down
-					drawFaceUp = players[currentPlayer].willDrawFaceUpCard(faceUpCard);
-					if (playVerbose && !drawFaceUp && faceUpCard == firstFaceUpCard && turnsTaken < 2)
-						System.out.printf("Player %d declines %s.\n", currentPlayer, firstFaceUpCard);
+					drawFaceUp = bitPlayers[currentPlayer] != null
+							? bitPlayers[currentPlayer].willDrawFaceUpCard(faceUpCard.getId())
+							: players[currentPlayer].willDrawFaceUpCard(faceUpCard);
+					if (!drawFaceUp && faceUpCard == firstFaceUpCard && turnsTaken < 2)
+						listener.declined(currentPlayer, firstFaceUpCard);
 				}
 				if (!(!drawFaceUp && turnsTaken < 2 && faceUpCard == firstFaceUpCard)) { // continue with turn if not initial declined option
 					Card drawCard = drawFaceUp ? discards.pop() : deck.pop();
-					for (int i = 0; i < 2; i++)
-						players[i].reportDraw(currentPlayer, (i == currentPlayer || drawFaceUp) ? drawCard : null);
-					if (playVerbose)
-						System.out.printf("Player %d draws %s.\n", currentPlayer, drawCard);
+					for (int i = 0; i < 2; i++) {
+						Card reportedCard = (i == currentPlayer || drawFaceUp) ? drawCard : null;
+						if (bitPlayers[i] != null)
+							bitPlayers[i].reportDraw(currentPlayer, id(reportedCard));
+						else
+							players[i].reportDraw(currentPlayer, reportedCard);
+					}
+					listener.drew(currentPlayer, drawCard, drawFaceUp);
 					hands.get(currentPlayer).add(drawCard);
 
 					// DISCARD
-					Card discardCard = players[currentPlayer].getDiscard();
+					Card discardCard;
+					if (bitPlayers[currentPlayer] != null) {
+						int discardId = bitPlayers[currentPlayer].getDiscardId();
+						discardCard = discardId >= 0 && discardId < Card.NUM_CARDS ? Card.getCard(discardId) : null;
+					}
+					else
+						discardCard = players[currentPlayer].getDiscard();
 					if (!hands.get(currentPlayer).contains(discardCard) || discardCard == faceUpCard) {
-						if (playVerbose)
-							System.out.printf("Player %d discards %s illegally and forfeits.\n", currentPlayer, discardCard);
+						listener.illegalDiscard(currentPlayer, discardCard);
 						return new int[] {
 							opponent == 0 ? 100 : -1,
 							opponent == 1 ? 100 : -1
 						};
 					}
 					hands.get(currentPlayer).remove(discardCard);
-					for (int i = 0; i < 2; i++)
-						players[i].reportDiscard(currentPlayer, discardCard);
-					if (playVerbose)
-						System.out.printf("Player %d discards %s.\n", currentPlayer, discardCard);
-					discards.push(discardCard);
-					if (playVerbose) {
-						ArrayList<Card> unmeldedCards = (ArrayList<Card>) hands.get(currentPlayer).clone();
-						ArrayList<ArrayList<ArrayList<Card>>> bestMelds = GinRummyUtil.cardsToBestMeldSets(unmeldedCards);
-						if (bestMelds.isEmpty())
-							System.out.printf("Player %d has %s with %d deadwood.\n", currentPlayer, unmeldedCards, GinRummyUtil.getDeadwoodPoints(unmeldedCards));
-						else {
-							ArrayList<ArrayList<Card>> melds = bestMelds.get(0);
-							for (ArrayList<Card> meld : melds)
-								for (Card card : meld)
-									unmeldedCards.remove(card);
-							melds.add(unmeldedCards);
-							System.out.printf("Player %d has %s with %d deadwood.\n", currentPlayer, melds, GinRummyUtil.getDeadwoodPoints(unmeldedCards));
-						}
+					for (int i = 0; i < 2; i++) {
+						if (bitPlayers[i] != null)
+							bitPlayers[i].reportDiscard(currentPlayer, discardCard.getId());
+						else
+							players[i].reportDiscard(currentPlayer, discardCard);
 					}
+					discards.push(discardCard);
+					listener.discarded(currentPlayer, discardCard, hands.get(currentPlayer));
 
 					// CHECK FOR KNOCK
-					knockMelds = players[currentPlayer].getFinalMelds();
-					if (knockMelds != null)
+					knockMelds = bitPlayers[currentPlayer] == null ? players[currentPlayer].getFinalMelds() : null;
+					knockMeldBitstrings = getFinalMeldBitstrings(currentPlayer, knockMelds);
+					if (knockMeldBitstrings != null)
 						break; // player knocked; end of round
 				}
 
@@ -167,71 +330,48 @@ public class GinRummyGame {
 				opponent = (currentPlayer == 0) ? 1 : 0;
 			}
 
-			if (knockMelds != null) { // round didn't end due to non-knocking and 2 cards remaining in draw pile
+			if (knockMeldBitstrings != null) { // round didn't end due to non-knocking and 2 cards remaining in draw pile
+				if (knockMelds == null) // lists of a GinRummyBitPlayer's melds, for listeners and laying off
+					knockMelds = meldLists(knockMeldBitstrings);
 				// check legality of knocking meld
-				long handBitstring = GinRummyUtil.cardsToBitstring(hands.get(currentPlayer));
-				long unmelded = handBitstring;
-				for (ArrayList<Card> meld : knockMelds) {
-					long meldBitstring = GinRummyUtil.cardsToBitstring(meld);
-					if (!GinRummyUtil.getAllMeldBitstrings().contains(meldBitstring) // non-meld ...
-							|| (meldBitstring & unmelded) != meldBitstring) { // ... or meld not in hand
-						if (playVerbose)
-							System.out.printf("Player %d melds %s illegally and forfeits.\n", currentPlayer, knockMelds);
-						return new int[] {
-							opponent == 0 ? 100 : -1,
-							opponent == 1 ? 100 : -1
-						};
-					}
-					unmelded &= ~meldBitstring; // remove successfully melded cards from
+				long unmelded = unmelded(GinRummyUtil.cardsToBitstring(hands.get(currentPlayer)), knockMeldBitstrings);
+				if (unmelded < 0) {
+					listener.illegalMelds(currentPlayer, knockMelds);
+					return new int[] {
+						opponent == 0 ? 100 : -1,
+						opponent == 1 ? 100 : -1
+					};
 				}
 				// compute knocking deadwood
-				int knockingDeadwood = GinRummyUtil.getDeadwoodPoints(knockMelds, hands.get(currentPlayer));
+				int knockingDeadwood = GinRummyUtil.getDeadwoodPoints(unmelded);
 				if (knockingDeadwood > GinRummyUtil.MAX_DEADWOOD) {
-					if (playVerbose)
-						System.out.printf("Player %d melds %s with greater than %d deadwood and forfeits.\n", currentPlayer, knockMelds, knockingDeadwood);
+					listener.excessDeadwood(currentPlayer, knockMelds, knockingDeadwood);
 					return new int[] {
 						opponent == 0 ? 100 : -1,
 						opponent == 1 ? 100 : -1
 					};
 				}
 
-				ArrayList<ArrayList<Card>> meldsCopy = new ArrayList<ArrayList<Card>>();
-				for (ArrayList<Card> meld : knockMelds)
-					meldsCopy.add((ArrayList<Card>) meld.clone());
-				for (int i = 0; i < 2; i++)
-					players[i].reportFinalMelds(currentPlayer, meldsCopy);
-				if (playVerbose)
-					if (knockingDeadwood > 0)
-						System.out.printf("Player %d melds %s with %d deadwood from %s.\n", currentPlayer, knockMelds, knockingDeadwood, GinRummyUtil.bitstringToCards(unmelded));
-					else
-						System.out.printf("Player %d goes gin with melds %s.\n", currentPlayer, knockMelds);
+				reportFinalMelds(currentPlayer, knockMelds, knockMeldBitstrings);
+				listener.knocked(currentPlayer, knockMelds, knockingDeadwood, hands.get(currentPlayer));
 
 				// get opponent meld
-				ArrayList<ArrayList<Card>> opponentMelds = players[opponent].getFinalMelds();
-				meldsCopy = new ArrayList<ArrayList<Card>>();
-				for (ArrayList<Card> meld : opponentMelds)
-					meldsCopy.add((ArrayList<Card>) meld.clone());
-				for (int i = 0; i < 2; i++)
-					players[i].reportFinalMelds(opponent, meldsCopy);
-
-				// check legality of opponent meld
-				long opponentHandBitstring = GinRummyUtil.cardsToBitstring(hands.get(opponent));
-				long opponentUnmelded = opponentHandBitstring;
-				for (ArrayList<Card> meld : opponentMelds) {
-					long meldBitstring = GinRummyUtil.cardsToBitstring(meld);
-					if (!GinRummyUtil.getAllMeldBitstrings().contains(meldBitstring) // non-meld ...
-							|| (meldBitstring & opponentUnmelded) != meldBitstring) { // ... or meld not in hand
-						if (playVerbose)
-							System.out.printf("Player %d melds %s illegally and forfeits.\n", opponent, opponentMelds);
-						return new int[] {
-							currentPlayer == 0 ? 100 : -1,
-							currentPlayer == 1 ? 100 : -1
-						};
-					}
-					opponentUnmelded &= ~meldBitstring; // remove successfully melded cards from
+				ArrayList<ArrayList<Card>> opponentMelds = bitPlayers[opponent] == null ? players[opponent].getFinalMelds() : null;
+				long[] opponentMeldBitstrings = getFinalMeldBitstrings(opponent, opponentMelds);
+				if (opponentMelds == null)
+					opponentMelds = meldLists(opponentMeldBitstrings);
+				reportFinalMelds(opponent, opponentMelds, opponentMeldBitstrings);
+
+				// check legality of opponent meld (bit players were given copies of the bitstrings)
+				long opponentUnmelded = unmelded(GinRummyUtil.cardsToBitstring(hands.get(opponent)), opponentMeldBitstrings);
+				if (opponentUnmelded < 0) {
+					listener.illegalMelds(opponent, opponentMelds);
+					return new int[] {
+						currentPlayer == 0 ? 100 : -1,
+						currentPlayer == 1 ? 100 : -1
+					};
 				}
-				if (playVerbose)
-					System.out.printf("Player %d melds %s.\n", opponent, opponentMelds);
+				listener.melded(opponent, opponentMelds);
 
 				// lay off on knocking meld (if not gin)
 				ArrayList<Card> unmeldedCards = GinRummyUtil.bitstringToCards(opponentUnmelded);
@@ -253,10 +393,13 @@ public class GinRummyGame {
 								}
 							}
 							if (layOffCard != null) {
-								if (playVerbose)
-									System.out.printf("Player %d lays off %s on %s.\n", opponent, layOffCard, layOffMeld);
-								for (int i = 0; i < 2; i++)
-									players[i].reportLayoff(opponent, layOffCard, (ArrayList<Card>) layOffMeld.clone());
+								listener.laidOff(opponent, layOffCard, layOffMeld);
+								for (int i = 0; i < 2; i++) {
+									if (bitPlayers[i] != null)
+										bitPlayers[i].reportLayoff(opponent, layOffCard.getId(), GinRummyUtil.cardsToBitstring(layOffMeld));
+									else
+										players[i].reportLayoff(opponent, layOffCard, (ArrayList<Card>) layOffMeld.clone());
+								}
 								unmeldedCards.remove(layOffCard);
 								layOffMeld.add(layOffCard);
 								cardWasLaidOff = true;
@@ -269,45 +412,49 @@ public class GinRummyGame {
 				int opponentDeadwood = 0;
 				for (Card card : unmeldedCards)
 					opponentDeadwood += GinRummyUtil.getDeadwoodPoints(card);
-				if (playVerbose)
-					System.out.printf("Player %d has %d deadwood with %s\n", opponent, opponentDeadwood, unmeldedCards);
+				listener.deadwood(opponent, opponentDeadwood, unmeldedCards);
 
 				// compare deadwood and compute new scores
 				if (knockingDeadwood == 0) { // gin round win
 					scores[currentPlayer] += GinRummyUtil.GIN_BONUS + opponentDeadwood;
-					if (playVerbose)
-						System.out.printf("Player %d scores the gin bonus of %d plus opponent deadwood %d for %d total points.\n", currentPlayer, GinRummyUtil.GIN_BONUS, opponentDeadwood, GinRummyUtil.GIN_BONUS + opponentDeadwood);
+					listener.scoredGin(currentPlayer, opponentDeadwood);
 				}
 				else if (knockingDeadwood < opponentDeadwood) { // non-gin round win
 					scores[currentPlayer] += opponentDeadwood - knockingDeadwood;
-					if (playVerbose)
-						System.out.printf("Player %d scores the deadwood difference of %d.\n", currentPlayer, opponentDeadwood - knockingDeadwood);
+					listener.scoredKnock(currentPlayer, opponentDeadwood - knockingDeadwood);
 				}
 				else { // undercut win for opponent
 					scores[opponent] += GinRummyUtil.UNDERCUT_BONUS + knockingDeadwood - opponentDeadwood;
-					if (playVerbose)
-						System.out.printf("Player %d undercuts and scores the undercut bonus of %d plus deadwood difference of %d for %d total points.\n", opponent, GinRummyUtil.UNDERCUT_BONUS, knockingDeadwood - opponentDeadwood, GinRummyUtil.UNDERCUT_BONUS + knockingDeadwood - opponentDeadwood);
+					listener.scoredUndercut(opponent, knockingDeadwood - opponentDeadwood);
 				}
 				startingPlayer = (startingPlayer == 0) ? 1 : 0; // starting player alternates
 			}
 			else { // If the round ends due to a two card draw pile with no knocking, the round is cancelled.
-				if (playVerbose)
-					System.out.println("The draw pile was reduced to two cards without knocking, so the hand is cancelled.");
+				listener.cancelled();
 			}
 
 			// report final hands
 			for (int i = 0; i < 2; i++)
-				for (int j = 0; j < 2; j++)
-					players[i].reportFinalHand(j, (ArrayList<Card>) hands.get(j).clone());
+				for (int j = 0; j < 2; j++) {
+					if (bitPlayers[i] != null)
+						bitPlayers[i].reportFinalHand(j, GinRummyUtil.cardsToBitstring(hands.get(j)));
+					else
+						players[i].reportFinalHand(j, (ArrayList<Card>) hands.get(j).clone());
+				}
 
 			// score reporting
-			if (playVerbose)
-				System.out.printf("Player\tScore\n0\t%d\n1\t%d\n", scores[0], scores[1]);
+			listener.scores(scores);
 			for (int i = 0; i < 2; i++)
 				players[i].reportScores(scores.clone());
 		}
-		if (playVerbose)
-			System.out.printf("Player %s wins.\n", scores[0] > scores[1] ? 0 : 1);
+		if (scores[0] < GinRummyUtil.GOAL_SCORE && scores[1] < GinRummyUtil.GOAL_SCORE) {
+			capped = true;
+			listener.capped(handsPlayed);
+		}
+		if (scores[0] == scores[1])
+			listener.drawn();
+		else
+			listener.won(scores[0] > scores[1] ? 0 : 1);
 		return scores;
 	}
 
@@ -318,11 +465,9 @@ public class GinRummyGame {
 	 */
 	public static void main(String[] args) {
 		// Single verbose demonstration game
-		setPlayVerbose(true);
-		new GinRummyGame(new SimpleGinRummyPlayer(), new SimpleGinRummyPlayer()).play();
+		new GinRummyGame(new SimpleGinRummyPlayer(), new SimpleGinRummyPlayer(), new TextGameEventListener()).play();
 
 		// Multiple non-verbose games
-		setPlayVerbose(false);
 		int numGames = 1000;
 		int numP1Wins = 0;
 		GinRummyGame game = new GinRummyGame(new SimpleGinRummyPlayer(), new SimpleGinRummyPlayer());
@@ -0,0 +1,273 @@
+package ginrummy;
+
+import java.util.Arrays;
+import java.util.Stack;
+
+
+/**
+ * A compact, mutable model of a single Gin Rummy hand, from the deal until a player knocks or the draw pile
+ * is reduced to two cards.  Hands are card set bitstrings (see GinRummyUtil), and the draw and discard piles are
+ * stacks of card id numbers, so a state can be copied or advanced without allocating Card lists.
+ *
+ * States are advanced and rewound through GinRummyActions.  Each applied action pushes a single record onto
+ * an internal undo stack, so a depth-first search may apply and undo actions in place rather than copying the state.
+ *
+ * The state models the same turn structure as GinRummyGame: the initial face-up card is offered to the starting
+ * player and then to the opponent, and a card drawn face up may not be discarded in the same turn.
+ */
+public class GinRummyState {
+
+	/**
+	 * Phase in which the current player draws (or declines the initial face-up card)
+	 */
+	public static final int DRAW = 0;
+
+	/**
+	 * Phase in which the current player discards
+	 */
+	public static final int DISCARD = 1;
+
+	/**
+	 * Phase in which the current player decides whether or not to knock
+	 */
+	public static final int KNOCK = 2;
+
+	/**
+	 * Phase after a knock or after the draw pile is reduced to two cards
+	 */
+	public static final int TERMINAL = 3;
+
+	/**
+	 * Hand size (before and after turn)
+	 */
+	public static final int HAND_SIZE = 10;
+
+	/**
+	 * Hand card set bitstrings indexed by player number
+	 */
+	final long[] hands = new long[2];
+
+	/**
+	 * Draw pile card ids; the top card is at deckSize - 1
+	 */
+	final byte[] deck = new byte[Card.NUM_CARDS];
+
+	/**
+	 * Number of cards in the draw pile
+	 */
+	int deckSize;
+
+	/**
+	 * Discard pile card ids; the face-up card is at discardSize - 1
+	 */
+	final byte[] discards = new byte[Card.NUM_CARDS];
+
+	/**
+	 * Number of cards in the discard pile
+	 */
+	int discardSize;
+
+	/**
+	 * Id of the initial face-up card
+	 */
+	int firstFaceUp;
+
+	/**
+	 * Id of the card drawn face up this turn, which may not be discarded, or -1
+	 */
+	int drawnFaceUp = -1;
+
+	/**
+	 * Player to act
+	 */
+	int currentPlayer;
+
+	/**
+	 * Current phase: DRAW, DISCARD, KNOCK or TERMINAL
+	 */
+	int phase = DRAW;
+
+	/**
+	 * Number of completed turns, including declined initial face-up offers
+	 */
+	int turnsTaken;
+
+	/**
+	 * Player that knocked, or -1
+	 */
+	int knocker = -1;
+
+	/**
+	 * Undo records, one per applied action (see GinRummyActions)
+	 */
+	long[] undo = new long[64];
+
+	/**
+	 * Number of undo records
+	 */
+	int undoSize;
+
+	/**
+	 * Create the state of a newly dealt hand from a shuffled deck, dealing exactly as GinRummyGame does.
+	 * @param startingPlayer starting player number (0/1)
+	 * @param shuffle shuffled deck of cards; not modified
+	 */
+	public GinRummyState(int startingPlayer, Stack<Card> shuffle) {
+		for (int i = 0; i < shuffle.size(); i++)
+			deck[i] = (byte) shuffle.get(i).getId();
+		deckSize = shuffle.size();
+		for (int i = 0; i < 2 * HAND_SIZE; i++)
+			hands[i % 2] |= 1L << deck[--deckSize];
+		discards[discardSize++] = deck[--deckSize];
+		firstFaceUp = discards[0];
+		currentPlayer = startingPlayer;
+	}
+
+	/**
+	 * Create a copy of the given state, excluding its undo history.
+	 * @param other state to copy
+	 */
+	public GinRummyState(GinRummyState other) {
+		hands[0] = other.hands[0];
+		hands[1] = other.hands[1];
+		System.arraycopy(other.deck, 0, deck, 0, other.deckSize);
+		deckSize = other.deckSize;
+		System.arraycopy(other.discards, 0, discards, 0, other.discardSize);
+		discardSize = other.discardSize;
+		firstFaceUp = other.firstFaceUp;
+		drawnFaceUp = other.drawnFaceUp;
+		currentPlayer = other.currentPlayer;
+		phase = other.phase;
+		turnsTaken = other.turnsTaken;
+		knocker = other.knocker;
+	}
+
+	/**
+	 * Return the state of a newly dealt hand for the given shuffle seed, as GinRummyGame would deal it.
+	 * @param seed shuffle seed number (see Card.getShuffle)
+	 * @param startingPlayer starting player number (0/1)
+	 * @return the newly dealt state
+	 */
+	public static GinRummyState deal(int seed, int startingPlayer) {
+		return new GinRummyState(startingPlayer, Card.getShuffle(seed));
+	}
+
+	/**
+	 * Return the current phase: DRAW, DISCARD, KNOCK or TERMINAL.
+	 * @return the current phase
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Return whether or not the hand is over.
+	 * @return whether or not the hand is over
+	 */
+	public boolean isTerminal() {
+		return phase == TERMINAL;
+	}
+
+	/**
+	 * Return the player to act.
+	 * @return the player to act
+	 */
+	public int getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	/**
+	 * Return the card set bitstring of the given player's hand.
+	 * @param playerNum player number (0/1)
+	 * @return the card set bitstring of the player's hand
+	 */
+	public long getHand(int playerNum) {
+		return hands[playerNum];
+	}
+
+	/**
+	 * Return the id of the face-up card on the discard pile, or -1 if the discard pile is empty.
+	 * @return the id of the face-up card, or -1
+	 */
+	public int getFaceUpCard() {
+		return discardSize == 0 ? -1 : discards[discardSize - 1];
+	}
+
+	/**
+	 * Return the id of the card drawn face up this turn, or -1 if none was drawn.
+	 * @return the id of the card drawn face up this turn, or -1
+	 */
+	public int getDrawnFaceUpCard() {
+		return drawnFaceUp;
+	}
+
+	/**
+	 * Return the number of cards remaining in the draw pile.
+	 * @return the number of cards remaining in the draw pile
+	 */
+	public int getDeckSize() {
+		return deckSize;
+	}
+
+	/**
+	 * Return the number of completed turns, including declined initial face-up offers.
+	 * @return the number of completed turns
+	 */
+	public int getTurnsTaken() {
+		return turnsTaken;
+	}
+
+	/**
+	 * Return the player that knocked, or -1 if the hand is ongoing or was cancelled.
+	 * @return the player that knocked, or -1
+	 */
+	public int getKnocker() {
+		return knocker;
+	}
+
+	/**
+	 * Return the number of actions that may currently be undone.
+	 * @return the number of actions that may currently be undone
+	 */
+	public int getUndoDepth() {
+		return undoSize;
+	}
+
+	/**
+	 * Return the minimal deadwood points of the given player's hand.
+	 * @param playerNum player number (0/1)
+	 * @return the minimal deadwood points of the player's hand
+	 */
+	public int getDeadwood(int playerNum) {
+		return GinRummyUtil.getBestDeadwood(hands[playerNum]);
+	}
+
+	/**
+	 * Return whether or not the current draw is the offer of the initial face-up card, which may be declined
+	 * without drawing.
+	 * @return whether or not the current draw is the initial face-up offer
+	 */
+	public boolean isInitialOffer() {
+		return phase == DRAW && turnsTaken < 2 && discardSize > 0 && discards[discardSize - 1] == firstFaceUp;
+	}
+
+	/**
+	 * Push an undo record, growing the undo stack if necessary.
+	 * @param record undo record
+	 */
+	void pushUndo(long record) {
+		if (undoSize == undo.length)
+			undo = Arrays.copyOf(undo, 2 * undo.length);
+		undo[undoSize++] = record;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("phase %d, player %d, turn %d, hands %s %s, face up %s, deck %d",
+				phase, currentPlayer, turnsTaken,
+				GinRummyUtil.bitstringToCards(hands[0]), GinRummyUtil.bitstringToCards(hands[1]),
+				discardSize == 0 ? null : Card.getCard(discards[discardSize - 1]), deckSize);
+	}
+}
@@ -0,0 +1,225 @@
+package ginrummy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The game events reported to a player since its previous decision, delivered in a single call to a
+ * GinRummyTurnPlayer along with the request for its next decision (or at the end of a hand).
+ * <p>
+ * Each event corresponds to one of the GinRummyPlayer report methods (or startGame), in the order the game made
+ * them. A turn object is reused by the host: it is only valid during the call it is delivered to, and any event data
+ * needed afterward must be copied.
+ */
+public class GinRummyTurn {
+
+	/**
+	 * Event types, corresponding to startGame, reportDraw, reportDiscard, reportFinalMelds, reportLayoff,
+	 * reportFinalHand and reportScores respectively
+	 */
+	public static final int START = 0, DRAW = 1, DISCARD = 2, FINAL_MELDS = 3, LAYOFF = 4, FINAL_HAND = 5, SCORES = 6;
+
+	/**
+	 * Number of buffered events
+	 */
+	private int size = 0;
+
+	/**
+	 * Event types
+	 */
+	private int[] types = new int[16];
+
+	/**
+	 * Event players (the player number passed to the report method)
+	 */
+	private int[] players = new int[16];
+
+	/**
+	 * Event cards (drawn, discarded or laid off cards), possibly null
+	 */
+	private Card[] cards = new Card[16];
+
+	/**
+	 * Further event data: dealt cards, melds, hands or scores
+	 */
+	private Object[] data = new Object[16];
+
+	/**
+	 * Starting player number of the most recent START event
+	 */
+	private int startingPlayerNum;
+
+	/**
+	 * Buffer a single event.
+	 */
+	private void add(int type, int playerNum, Card card, Object object) {
+		if (size == types.length) {
+			types = Arrays.copyOf(types, 2 * size);
+			players = Arrays.copyOf(players, 2 * size);
+			cards = Arrays.copyOf(cards, 2 * size);
+			data = Arrays.copyOf(data, 2 * size);
+		}
+		types[size] = type;
+		players[size] = playerNum;
+		cards[size] = card;
+		data[size] = object;
+		size++;
+	}
+
+	// Event buffering, in the order of the corresponding GinRummyPlayer calls (see BatchingGinRummyPlayer)
+
+	void start(int playerNum, int startingPlayerNum, Card[] cards) {
+		this.startingPlayerNum = startingPlayerNum;
+		add(START, playerNum, null, cards);
+	}
+
+	void draw(int playerNum, Card drawnCard) {
+		add(DRAW, playerNum, drawnCard, null);
+	}
+
+	void discard(int playerNum, Card discardedCard) {
+		add(DISCARD, playerNum, discardedCard, null);
+	}
+
+	void finalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		add(FINAL_MELDS, playerNum, null, melds);
+	}
+
+	void layoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		add(LAYOFF, playerNum, layoffCard, opponentMeld);
+	}
+
+	void finalHand(int playerNum, ArrayList<Card> hand) {
+		add(FINAL_HAND, playerNum, null, hand);
+	}
+
+	void scores(int[] scores) {
+		add(SCORES, -1, null, scores);
+	}
+
+	/**
+	 * Remove all buffered events.
+	 */
+	void clear() {
+		Arrays.fill(cards, 0, size, null);
+		Arrays.fill(data, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Return the number of events.
+	 * @return the number of events
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the type of the given event.
+	 * @param i event index
+	 * @return the event type (START, DRAW, DISCARD, FINAL_MELDS, LAYOFF, FINAL_HAND or SCORES)
+	 */
+	public int getType(int i) {
+		return types[i];
+	}
+
+	/**
+	 * Return the player number of the given event: the player dealt to (START), drawing, discarding, melding, laying
+	 * off or holding the hand (FINAL_HAND); -1 for SCORES.
+	 * @param i event index
+	 * @return the player number of the event
+	 */
+	public int getPlayer(int i) {
+		return players[i];
+	}
+
+	/**
+	 * Return the card of the given DRAW, DISCARD or LAYOFF event. The card of a DRAW event is null if it was drawn
+	 * face down by the opponent.
+	 * @param i event index
+	 * @return the card of the event, possibly null
+	 */
+	public Card getCard(int i) {
+		return cards[i];
+	}
+
+	/**
+	 * Return the starting player number of the given START event.
+	 * @param i event index
+	 * @return the starting player number
+	 */
+	public int getStartingPlayer(int i) {
+		return startingPlayerNum;
+	}
+
+	/**
+	 * Return the dealt cards of the given START event.
+	 * @param i event index
+	 * @return the dealt cards
+	 */
+	public Card[] getDealtCards(int i) {
+		return (Card[]) data[i];
+	}
+
+	/**
+	 * Return the melds of the given FINAL_MELDS event.
+	 * @param i event index
+	 * @return the reported melds
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<ArrayList<Card>> getMelds(int i) {
+		return (ArrayList<ArrayList<Card>>) data[i];
+	}
+
+	/**
+	 * Return the opponent meld (LAYOFF) or the hand (FINAL_HAND) of the given event.
+	 * @param i event index
+	 * @return the cards of the event
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<Card> getCards(int i) {
+		return (ArrayList<Card>) data[i];
+	}
+
+	/**
+	 * Return the scores of the given SCORES event.
+	 * @param i event index
+	 * @return the scores, indexed by player number
+	 */
+	public int[] getScores(int i) {
+		return (int[]) data[i];
+	}
+
+	/**
+	 * Report every event, in order, to the given player through the corresponding GinRummyPlayer method.
+	 * @param player player events are reported to
+	 */
+	public void replay(GinRummyPlayer player) {
+		for (int i = 0; i < size; i++) {
+			switch (types[i]) {
+			case START:
+				player.startGame(players[i], startingPlayerNum, getDealtCards(i));
+				break;
+			case DRAW:
+				player.reportDraw(players[i], cards[i]);
+				break;
+			case DISCARD:
+				player.reportDiscard(players[i], cards[i]);
+				break;
+			case FINAL_MELDS:
+				player.reportFinalMelds(players[i], getMelds(i));
+				break;
+			case LAYOFF:
+				player.reportLayoff(players[i], cards[i], getCards(i));
+				break;
+			case FINAL_HAND:
+				player.reportFinalHand(players[i], getCards(i));
+				break;
+			case SCORES:
+				player.reportScores(getScores(i));
+				break;
+			}
+		}
+	}
+
+}
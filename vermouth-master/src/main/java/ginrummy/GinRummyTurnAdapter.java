@@ -0,0 +1,106 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * A GinRummyTurnPlayer adapting a player implementing only the individual GinRummyPlayer methods: the events of each
+ * turn are replayed to the player, one call per event, before its decision is requested.
+ */
+public class GinRummyTurnAdapter implements GinRummyTurnPlayer {
+
+	/**
+	 * Adapted player
+	 */
+	private final GinRummyPlayer player;
+
+	/**
+	 * Create an adapter for the given player.
+	 * @param player adapted player
+	 */
+	public GinRummyTurnAdapter(GinRummyPlayer player) {
+		this.player = player;
+	}
+
+	/**
+	 * Return the given player as a GinRummyTurnPlayer, adapting it only if it does not support batched turns.
+	 * @param player player
+	 * @return the player, or an adapter for the player
+	 */
+	public static GinRummyTurnPlayer of(GinRummyPlayer player) {
+		return player instanceof GinRummyTurnPlayer ? (GinRummyTurnPlayer) player : new GinRummyTurnAdapter(player);
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(GinRummyTurn turn, Card card) {
+		turn.replay(player);
+		return player.willDrawFaceUpCard(card);
+	}
+
+	@Override
+	public Card getDiscard(GinRummyTurn turn) {
+		turn.replay(player);
+		return player.getDiscard();
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds(GinRummyTurn turn) {
+		turn.replay(player);
+		return player.getFinalMelds();
+	}
+
+	@Override
+	public void endHand(GinRummyTurn turn) {
+		turn.replay(player);
+	}
+
+	@Override
+	public void startGame(int playerNum, int startingPlayerNum, Card[] cards) {
+		player.startGame(playerNum, startingPlayerNum, cards);
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(Card card) {
+		return player.willDrawFaceUpCard(card);
+	}
+
+	@Override
+	public void reportDraw(int playerNum, Card drawnCard) {
+		player.reportDraw(playerNum, drawnCard);
+	}
+
+	@Override
+	public Card getDiscard() {
+		return player.getDiscard();
+	}
+
+	@Override
+	public void reportDiscard(int playerNum, Card discardedCard) {
+		player.reportDiscard(playerNum, discardedCard);
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds() {
+		return player.getFinalMelds();
+	}
+
+	@Override
+	public void reportFinalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		player.reportFinalMelds(playerNum, melds);
+	}
+
+	@Override
+	public void reportScores(int[] scores) {
+		player.reportScores(scores);
+	}
+
+	@Override
+	public void reportLayoff(int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		player.reportLayoff(playerNum, layoffCard, opponentMeld);
+	}
+
+	@Override
+	public void reportFinalHand(int playerNum, ArrayList<Card> hand) {
+		player.reportFinalHand(playerNum, hand);
+	}
+
+}
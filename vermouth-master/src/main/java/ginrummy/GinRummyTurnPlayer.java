@@ -0,0 +1,49 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * An optional extension of GinRummyPlayer for players which receive game events in batches. Rather than one call per
+ * report, the player receives all events since its previous decision (see GinRummyTurn) together with the request
+ * for its next decision, e.g., the opponent's draw and discard along with the request for its own draw decision. The
+ * remaining events of a hand (final melds, layoffs, final hands and scores) are delivered by endHand.
+ * <p>
+ * A host supporting batched turns (see BatchingGinRummyPlayer) calls only the methods of this interface; other hosts
+ * call the individual GinRummyPlayer methods. A player need only keep its state consistent for the interface its host
+ * uses; the individual methods may, e.g., delegate to a BatchingGinRummyPlayer wrapping the player.
+ */
+public interface GinRummyTurnPlayer extends GinRummyPlayer {
+
+	/**
+	 * Report the events since the previous decision and return whether or not player will draw the given face-up card
+	 * on the draw pile.
+	 * @param turn events since the previous decision, valid only during this call
+	 * @param card face-up card on the draw pile
+	 * @return whether or not player will draw the given face-up card on the draw pile
+	 */
+	public boolean willDrawFaceUpCard(GinRummyTurn turn, Card card);
+
+	/**
+	 * Report the events since the previous decision and return the player's discarded card.
+	 * @param turn events since the previous decision, valid only during this call
+	 * @return the player's chosen card for discarding
+	 * @see GinRummyPlayer#getDiscard()
+	 */
+	public Card getDiscard(GinRummyTurn turn);
+
+	/**
+	 * Report the events since the previous decision and return null if not knocking, or the player's final melds.
+	 * @param turn events since the previous decision, valid only during this call
+	 * @return null if continuing play and opponent hasn't melded, or an ArrayList of ArrayLists of melded cards.
+	 * @see GinRummyPlayer#getFinalMelds()
+	 */
+	public ArrayList<ArrayList<Card>> getFinalMelds(GinRummyTurn turn);
+
+	/**
+	 * Report the remaining events of a hand, at the end of the hand (after the scores) or, should the game have ended
+	 * by forfeit, before the next hand is dealt.
+	 * @param turn events since the previous decision, valid only during this call
+	 */
+	public void endHand(GinRummyTurn turn);
+
+}
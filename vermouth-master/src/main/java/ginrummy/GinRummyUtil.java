@@ -279,6 +279,60 @@ public class GinRummyUtil {
 		return deadwood;
 	}
 
+	/**
+	 * Return the deadwood points for a card set bitstring.
+	 * @param bitstring card set bitstring
+	 * @return the deadwood points for the cards of the bitstring
+	 */
+	public static int getDeadwoodPoints(long bitstring) {
+		int deadwood = 0;
+		while (bitstring != 0L) {
+			deadwood += DEADWOOD_POINTS[Long.numberOfTrailingZeros(bitstring) % Card.NUM_RANKS];
+			bitstring &= bitstring - 1;
+		}
+		return deadwood;
+	}
+
+	/**
+	 * Return the minimal deadwood points over all ways of melding the given card set bitstring.
+	 * Unlike cardsToBestMeldSets, no card lists are built, so this is suitable for inner loops of search.
+	 * @param bitstring card set bitstring
+	 * @return the minimal deadwood points for the given cards
+	 */
+	public static int getBestDeadwood(long bitstring) {
+		int numMelds = 0;
+		for (ArrayList<Long> meldBitstringList : meldBitstrings)
+			for (long meldBitstring : meldBitstringList)
+				if ((meldBitstring & bitstring) == meldBitstring)
+					numMelds++;
+				else
+					break;
+		long[] melds = new long[numMelds];
+		numMelds = 0;
+		for (ArrayList<Long> meldBitstringList : meldBitstrings)
+			for (long meldBitstring : meldBitstringList)
+				if ((meldBitstring & bitstring) == meldBitstring)
+					melds[numMelds++] = meldBitstring;
+				else
+					break;
+		return getBestDeadwood(melds, 0, bitstring);
+	}
+
+	/**
+	 * Return the minimal deadwood of unmelded cards using disjoint melds from index start onward.
+	 * @param melds melds contained in the original hand
+	 * @param start first meld index to consider
+	 * @param unmelded bitstring of cards not yet melded
+	 * @return the minimal deadwood points
+	 */
+	private static int getBestDeadwood(long[] melds, int start, long unmelded) {
+		int best = getDeadwoodPoints(unmelded);
+		for (int i = start; i < melds.length && best > 0; i++)
+			if ((melds[i] & unmelded) == melds[i])
+				best = Math.min(best, getBestDeadwood(melds, i + 1, unmelded & ~melds[i]));
+		return best;
+	}
+
 	/**
 	 * Returns a list of list of melds that all leave a minimal deadwood count.
 	 * @param cards
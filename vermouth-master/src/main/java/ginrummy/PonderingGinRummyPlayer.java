@@ -0,0 +1,43 @@
+package ginrummy;
+
+/**
+ * An optional extension of GinRummyPlayer for players which think ("ponder") while their opponent decides.
+ * <p>
+ * When the opponent's decision (willDrawFaceUpCard, getDiscard or getFinalMelds) begins, the host calls
+ * ponderStart() on a background thread; when the decision has been made, the host calls ponderStop() on its own
+ * thread and waits for ponderStart() to return before making any further call to the player. Other than
+ * ponderStop(), no player method is called while ponderStart() is running.
+ * <p>
+ * ponderStop() is called exactly once per ponderStart(), but for short decisions it may be called before
+ * ponderStart() has been entered. Implementations should therefore reset their stop condition when ponderStart()
+ * returns rather than when it is entered, e.g.:
+ * <pre>
+ * private volatile boolean stop = false;
+ *
+ * public void ponderStart() {
+ *     while (!stop)
+ *         searchOneIteration();
+ *     stop = false;
+ * }
+ *
+ * public void ponderStop() {
+ *     stop = true;
+ * }
+ * </pre>
+ * The CPU time used while pondering is accounted separately from the CPU time of a player's own decisions.
+ */
+public interface PonderingGinRummyPlayer extends GinRummyPlayer {
+
+	/**
+	 * Ponder while the opponent decides, returning once ponderStop() has been called (or earlier, if there is nothing
+	 * left to ponder). Called on a background thread.
+	 */
+	public void ponderStart();
+
+	/**
+	 * Request that the current (or imminent) ponderStart() return promptly. Called on the host thread once the
+	 * opponent's decision has been made.
+	 */
+	public void ponderStop();
+
+}
@@ -0,0 +1,82 @@
+package ginrummy;
+
+import java.util.ArrayList;
+
+/**
+ * An example GinRummyContextPlayer, playing the policy of SimpleGinRummyPlayer at every table: the per-game state of
+ * each table is a SimpleGinRummyPlayer of its own, attached to the context of the table. Decisions are made
+ * individually (by the default decideBatch); a player with expensive evaluations would override decideBatch to share
+ * them across the pending decisions of its tables.
+ */
+public class SimpleGinRummyContextPlayer implements GinRummyContextPlayer {
+
+	/**
+	 * Return the player of the given table, attaching a new one to the context on first use.
+	 * @param context game context
+	 * @return the player of the table
+	 */
+	private static SimpleGinRummyPlayer table(GinRummyContext context) {
+		SimpleGinRummyPlayer player = context.getState();
+		if (player == null) {
+			player = new SimpleGinRummyPlayer();
+			context.setState(player);
+		}
+		return player;
+	}
+
+	@Override
+	public void startGame(GinRummyContext context, int playerNum, int startingPlayerNum, Card[] cards) {
+		table(context).startGame(playerNum, startingPlayerNum, cards);
+	}
+
+	@Override
+	public boolean willDrawFaceUpCard(GinRummyContext context, Card card) {
+		return table(context).willDrawFaceUpCard(card);
+	}
+
+	@Override
+	public void reportDraw(GinRummyContext context, int playerNum, Card drawnCard) {
+		table(context).reportDraw(playerNum, drawnCard);
+	}
+
+	@Override
+	public Card getDiscard(GinRummyContext context) {
+		return table(context).getDiscard();
+	}
+
+	@Override
+	public void reportDiscard(GinRummyContext context, int playerNum, Card discardedCard) {
+		table(context).reportDiscard(playerNum, discardedCard);
+	}
+
+	@Override
+	public ArrayList<ArrayList<Card>> getFinalMelds(GinRummyContext context) {
+		return table(context).getFinalMelds();
+	}
+
+	@Override
+	public void reportFinalMelds(GinRummyContext context, int playerNum, ArrayList<ArrayList<Card>> melds) {
+		table(context).reportFinalMelds(playerNum, melds);
+	}
+
+	@Override
+	public void reportScores(GinRummyContext context, int[] scores) {
+		table(context).reportScores(scores);
+	}
+
+	@Override
+	public void reportLayoff(GinRummyContext context, int playerNum, Card layoffCard, ArrayList<Card> opponentMeld) {
+		table(context).reportLayoff(playerNum, layoffCard, opponentMeld);
+	}
+
+	@Override
+	public void reportFinalHand(GinRummyContext context, int playerNum, ArrayList<Card> hand) {
+		table(context).reportFinalHand(playerNum, hand);
+	}
+
+	@Override
+	public void closeContext(GinRummyContext context) {
+		context.setState(null);
+	}
+
+}
@@ -0,0 +1,162 @@
+package ginrummy;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+
+/**
+ * A GameEventListener printing a human-readable account of the game, as GinRummyGame did in verbose mode.
+ */
+public class TextGameEventListener implements GameEventListener {
+
+	/**
+	 * Stream the account is printed to
+	 */
+	private final PrintStream out;
+
+	/**
+	 * Create a listener printing to standard output.
+	 */
+	public TextGameEventListener() {
+		this(System.out);
+	}
+
+	/**
+	 * Create a listener printing to the given stream.
+	 * @param out stream the account is printed to
+	 */
+	public TextGameEventListener(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void dealt(int playerNum, ArrayList<Card> hand) {
+		out.printf("Player %d is dealt %s.\n", playerNum, hand);
+	}
+
+	@Override
+	public void started(int seed, int startingPlayerNum) {
+		out.printf("Player %d starts.\n", startingPlayerNum);
+	}
+
+	@Override
+	public void faceUp(Card card) {
+		out.printf("The initial face up card is %s.\n", card);
+	}
+
+	@Override
+	public void declined(int playerNum, Card card) {
+		out.printf("Player %d declines %s.\n", playerNum, card);
+	}
+
+	@Override
+	public void drew(int playerNum, Card card, boolean faceUp) {
+		out.printf("Player %d draws %s.\n", playerNum, card);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void discarded(int playerNum, Card card, ArrayList<Card> hand) {
+		out.printf("Player %d discards %s.\n", playerNum, card);
+		ArrayList<Card> unmeldedCards = (ArrayList<Card>) hand.clone();
+		ArrayList<ArrayList<ArrayList<Card>>> bestMelds = GinRummyUtil.cardsToBestMeldSets(unmeldedCards);
+		if (bestMelds.isEmpty())
+			out.printf("Player %d has %s with %d deadwood.\n", playerNum, unmeldedCards, GinRummyUtil.getDeadwoodPoints(unmeldedCards));
+		else {
+			ArrayList<ArrayList<Card>> melds = bestMelds.get(0);
+			for (ArrayList<Card> meld : melds)
+				for (Card meldCard : meld)
+					unmeldedCards.remove(meldCard);
+			melds.add(unmeldedCards);
+			out.printf("Player %d has %s with %d deadwood.\n", playerNum, melds, GinRummyUtil.getDeadwoodPoints(unmeldedCards));
+		}
+	}
+
+	@Override
+	public void illegalDiscard(int playerNum, Card card) {
+		out.printf("Player %d discards %s illegally and forfeits.\n", playerNum, card);
+	}
+
+	@Override
+	public void illegalMelds(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		out.printf("Player %d melds %s illegally and forfeits.\n", playerNum, melds);
+	}
+
+	@Override
+	public void excessDeadwood(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood) {
+		out.printf("Player %d melds %s with greater than %d deadwood and forfeits.\n", playerNum, melds, deadwood);
+	}
+
+	@Override
+	public void timedOut(int playerNum) {
+		out.printf("Player %d exceeds its time allowance and forfeits.\n", playerNum);
+	}
+
+	@Override
+	public void knocked(int playerNum, ArrayList<ArrayList<Card>> melds, int deadwood, ArrayList<Card> hand) {
+		if (deadwood > 0) {
+			long unmelded = GinRummyUtil.cardsToBitstring(hand);
+			for (ArrayList<Card> meld : melds)
+				unmelded &= ~GinRummyUtil.cardsToBitstring(meld);
+			out.printf("Player %d melds %s with %d deadwood from %s.\n", playerNum, melds, deadwood, GinRummyUtil.bitstringToCards(unmelded));
+		}
+		else
+			out.printf("Player %d goes gin with melds %s.\n", playerNum, melds);
+	}
+
+	@Override
+	public void melded(int playerNum, ArrayList<ArrayList<Card>> melds) {
+		out.printf("Player %d melds %s.\n", playerNum, melds);
+	}
+
+	@Override
+	public void laidOff(int playerNum, Card card, ArrayList<Card> meld) {
+		out.printf("Player %d lays off %s on %s.\n", playerNum, card, meld);
+	}
+
+	@Override
+	public void deadwood(int playerNum, int deadwood, ArrayList<Card> unmelded) {
+		out.printf("Player %d has %d deadwood with %s\n", playerNum, deadwood, unmelded);
+	}
+
+	@Override
+	public void scoredGin(int playerNum, int opponentDeadwood) {
+		out.printf("Player %d scores the gin bonus of %d plus opponent deadwood %d for %d total points.\n", playerNum, GinRummyUtil.GIN_BONUS, opponentDeadwood, GinRummyUtil.GIN_BONUS + opponentDeadwood);
+	}
+
+	@Override
+	public void scoredKnock(int playerNum, int difference) {
+		out.printf("Player %d scores the deadwood difference of %d.\n", playerNum, difference);
+	}
+
+	@Override
+	public void scoredUndercut(int playerNum, int difference) {
+		out.printf("Player %d undercuts and scores the undercut bonus of %d plus deadwood difference of %d for %d total points.\n", playerNum, GinRummyUtil.UNDERCUT_BONUS, difference, GinRummyUtil.UNDERCUT_BONUS + difference);
+	}
+
+	@Override
+	public void cancelled() {
+		out.println("The draw pile was reduced to two cards without knocking, so the hand is cancelled.");
+	}
+
+	@Override
+	public void scores(int[] scores) {
+		out.printf("Player\tScore\n0\t%d\n1\t%d\n", scores[0], scores[1]);
+	}
+
+	@Override
+	public void capped(int handsPlayed) {
+		out.printf("The game reaches the limit of %d hands.\n", handsPlayed);
+	}
+
+	@Override
+	public void won(int winner) {
+		out.printf("Player %s wins.\n", winner);
+	}
+
+	@Override
+	public void drawn() {
+		out.println("The game is drawn.");
+	}
+
+}